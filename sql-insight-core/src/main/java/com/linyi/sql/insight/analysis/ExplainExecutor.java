@@ -22,18 +22,18 @@
 
 package com.linyi.sql.insight.analysis;
 
-import com.linyi.sql.insight.model.SqlAnalysisResultList;
-
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.sql.PreparedStatement;
+
+import com.linyi.sql.insight.extract.SqlFingerprinter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * 负责执行 EXPLAIN（后续支持 JSON/TABLE 模式与回退）。
+ * 负责执行 EXPLAIN：按配置的 {@link ExplainMode} 与服务端版本选择 JSON/TREE/TABLE 格式，仅在执行失败时回退表格格式，
+ * 保证每条被分析的 SQL 只产生一次成功的 EXPLAIN 往返。EXPLAIN ANALYZE 由调用方在采样通过后单独触发。
  *
  * @author linyi
  * @since 1.0.0
@@ -42,56 +42,174 @@ public class ExplainExecutor {
     private final VersionDetector versionDetector = new VersionDetector();
     private static final Logger log = LoggerFactory.getLogger(ExplainExecutor.class);
 
-    public SqlAnalysisResultList explain(Connection connection, String sql) {
-        // 基于版本的优先策略 + 能力回退
+    private final ExplainMode mode;
+    private final ExplainParser parser = new ExplainParser();
+
+    public ExplainExecutor() {
+        this(ExplainMode.AUTO);
+    }
+
+    /**
+     * @param mode EXPLAIN 模式，为null时按 AUTO 处理
+     */
+    public ExplainExecutor(ExplainMode mode) {
+        this.mode = mode == null ? ExplainMode.AUTO : mode;
+    }
+
+    public ExplainMode getMode() {
+        return mode;
+    }
+
+    /**
+     * 执行 EXPLAIN 并解析结果
+     *
+     * @param connection 数据库连接
+     * @param sql        可直接执行 EXPLAIN 的 SQL
+     * @return 包含原始计划、解析结果与所用格式的 EXPLAIN 结果，失败时返回空结果
+     */
+    public ExplainResult explain(Connection connection, String sql) {
+        // 基于模式与版本的优先策略 + 能力回退
         if (connection == null || sql == null || sql.isEmpty()) {
-            return new SqlAnalysisResultList();
+            return ExplainResult.empty();
         }
-        boolean preferJson = versionDetector.isMySQL8OrAbove(connection);
-        if (preferJson) {
-            // JSON 优先
-            try (Statement stmt = connection.createStatement()) {
-                try (ResultSet rs = stmt.executeQuery("EXPLAIN FORMAT=JSON " + sql)) {
-                    if (rs.next()) {
-                        String json = rs.getString(1);
-                        SqlAnalysisResultList list = new ExplainParser().parseJson(json);
-                        if (list != null && !list.getResults().isEmpty()) {
-                            return list;
-                        }
-                        // JSON 为空则回退一次表格
-                        try (Statement stmt2 = connection.createStatement();
-                                ResultSet rs2 = stmt2
-                                        .executeQuery("EXPLAIN " + sql)) {
-                            return new ExplainParser().parseTable(rs2);
-                        }
-                    }
-                }
+        ExplainMode format = planFormat(connection);
+        if (format == ExplainMode.TREE) {
+            try {
+                return explainTree(connection, sql);
+            } catch (SQLException ignore) {
+                log.warn("[SqlInsight] EXPLAIN FORMAT=TREE failed: {} fingerprint={}", describe(ignore), fingerprint(sql));
+            }
+        } else if (format == ExplainMode.JSON) {
+            // JSON 优先：解析结果为空时直接返回，不再追加表格 EXPLAIN
+            try {
+                return explainJson(connection, sql);
             } catch (SQLException ignore) {
                 // 回退到表格
-                log.warn("[SqlInsight] EXPLAIN FORMAT=JSON failed: {} sql= {}", ignore.toString(), sql);
+                log.warn("[SqlInsight] EXPLAIN FORMAT=JSON failed: {} fingerprint={}", describe(ignore), fingerprint(sql));
             }
         }
         // 表格（默认或回退）
-        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery("EXPLAIN " + sql)) {
-            return new ExplainParser().parseTable(rs);
+        try {
+            return explainTable(connection, sql);
         } catch (SQLException e) {
-            if (!preferJson) {
+            if (format == ExplainMode.TABLE && mode != ExplainMode.TABLE) {
                 // 对于非 8，也尝试一次 JSON（某些兼容层可能支持）
-                try (Statement stmt = connection.createStatement()) {
-                    try (ResultSet rs = stmt.executeQuery("EXPLAIN FORMAT=JSON " + sql)) {
-                        if (rs.next()) {
-                            String json = rs.getString(1);
-                            return new ExplainParser().parseJson(json);
-                        }
-                    }
+                try {
+                    return explainJson(connection, sql);
                 } catch (SQLException ignore) {
-                    log.warn("[SqlInsight] EXPLAIN fallback JSON failed: {} sql= {}", ignore.toString(), sql);
+                    log.warn("[SqlInsight] EXPLAIN fallback JSON failed: {} fingerprint={}", describe(ignore), fingerprint(sql));
                 }
             }
-            log.warn("[SqlInsight] EXPLAIN failed: {} sql= {}", e.toString(), sql);
-            return new SqlAnalysisResultList();
+            log.warn("[SqlInsight] EXPLAIN failed: {} fingerprint={}", describe(e), fingerprint(sql));
+            return ExplainResult.empty();
+        }
+    }
+
+    /**
+     * 执行 EXPLAIN ANALYZE（会真实执行查询），仅 MySQL 8.0.18+ 且调用方已确认为只读 SELECT 时使用
+     *
+     * @param connection 数据库连接
+     * @param sql        可直接执行的 SELECT
+     * @param timeoutMs  查询超时（毫秒，按秒向上取整），<=0 表示不设置
+     * @return 含实际耗时与行数的树形计划文本，不支持或失败时返回null
+     */
+    public String explainAnalyze(Connection connection, String sql, long timeoutMs) {
+        if (connection == null || sql == null || sql.isEmpty())
+            return null;
+        if (!versionDetector.supports(connection, ExplainMode.ANALYZE))
+            return null;
+        try (Statement stmt = connection.createStatement()) {
+            if (timeoutMs > 0) {
+                stmt.setQueryTimeout((int) Math.max(1L, (timeoutMs + 999) / 1000));
+            }
+            try (ResultSet rs = stmt.executeQuery("EXPLAIN ANALYZE " + sql)) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        } catch (SQLException e) {
+            log.warn("[SqlInsight] EXPLAIN ANALYZE failed: {} fingerprint={}", describe(e), fingerprint(sql));
+            return null;
         }
+    }
+
+    /**
+     * 计划格式：TABLE/JSON 按配置，TREE 需 8.0.16+（否则按 AUTO），AUTO/ANALYZE 在 MySQL 8+ 上使用 JSON
+     */
+    private ExplainMode planFormat(Connection connection) {
+        switch (mode) {
+            case TABLE:
+            case JSON:
+                return mode;
+            case TREE:
+                return versionDetector.supports(connection, ExplainMode.TREE) ? ExplainMode.TREE : autoFormat(connection);
+            default:
+                return autoFormat(connection);
+        }
+    }
+
+    /**
+     * AUTO 格式：MySQL 8+ 使用 JSON，否则使用 TABLE
+     */
+    private ExplainMode autoFormat(Connection connection) {
+        return versionDetector.isMySQL8OrAbove(connection) ? ExplainMode.JSON : ExplainMode.TABLE;
+    }
+
+    /**
+     * 执行 EXPLAIN FORMAT=TREE
+     *
+     * @param connection 数据库连接
+     * @param sql        待分析 SQL
+     * @return 树形格式的 EXPLAIN 结果
+     * @throws SQLException EXPLAIN 执行失败时抛出
+     */
+    private ExplainResult explainTree(Connection connection, String sql) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+                ResultSet rs = stmt.executeQuery("EXPLAIN FORMAT=TREE " + sql)) {
+            String tree = rs.next() ? rs.getString(1) : null;
+            return new ExplainResult(tree, parser.parseTree(tree), ExplainMode.TREE);
+        }
+    }
+
+    /**
+     * 执行 EXPLAIN FORMAT=JSON
+     *
+     * @param connection 数据库连接
+     * @param sql        待分析 SQL
+     * @return JSON 格式的 EXPLAIN 结果
+     * @throws SQLException EXPLAIN 执行失败时抛出
+     */
+    private ExplainResult explainJson(Connection connection, String sql) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+                ResultSet rs = stmt.executeQuery("EXPLAIN FORMAT=JSON " + sql)) {
+            String json = rs.next() ? rs.getString(1) : null;
+            return new ExplainResult(json, parser.parseJson(json), ExplainMode.JSON);
+        }
+    }
+
+    /**
+     * 执行表格格式的 EXPLAIN
+     *
+     * @param connection 数据库连接
+     * @param sql        待分析 SQL
+     * @return 表格格式的 EXPLAIN 结果
+     * @throws SQLException EXPLAIN 执行失败时抛出
+     */
+    private ExplainResult explainTable(Connection connection, String sql) throws SQLException {
+        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery("EXPLAIN " + sql)) {
+            return new ExplainResult(null, parser.parseTable(rs), ExplainMode.TABLE);
+        }
+    }
+
+    /**
+     * 失败日志只记录异常类型、SQLState 与错误码：EXPLAIN SQL 含真实参数值，MySQL 的语法错误消息也会回显 SQL 片段
+     */
+    private static String describe(SQLException e) {
+        return e.getClass().getSimpleName() + "(SQLState=" + e.getSQLState() + ", code=" + e.getErrorCode() + ")";
+    }
 
-        // 删除 PreparedStatement 绑定方式，改用外部生成的可执行 SQL
+    /**
+     * 失败日志中代替 SQL 文本的指纹（与输出中的 fingerprint 一致，可据此关联）
+     */
+    private static String fingerprint(String sql) {
+        return SqlFingerprinter.toHex(SqlFingerprinter.fingerprint(sql));
     }
 }
@@ -23,8 +23,55 @@
 package com.linyi.sql.insight.analysis;
 
 /**
+ * EXPLAIN 输出格式与选择模式。
+ * <p>
+ * TABLE/JSON/TREE 为实际执行的格式；AUTO 按服务端版本选择可解析信息最丰富的格式（MySQL 8+ 为 JSON，否则 TABLE）；
+ * ANALYZE 在 AUTO 的基础上，对评分为 WARN/CRIT 的 SELECT 按独立采样率与超时追加一次 EXPLAIN ANALYZE（MySQL 8.0.18+）。
+ * </p>
+ *
  * @author linyi
  * @since 1.0.0
  */
-public class ExplainMode {
+public enum ExplainMode {
+
+    /**
+     * 传统表格格式：EXPLAIN
+     */
+    TABLE,
+
+    /**
+     * JSON 格式：EXPLAIN FORMAT=JSON
+     */
+    JSON,
+
+    /**
+     * 树形格式：EXPLAIN FORMAT=TREE（MySQL 8.0.16+）
+     */
+    TREE,
+
+    /**
+     * 实际执行并统计每个迭代器的耗时与行数：EXPLAIN ANALYZE（MySQL 8.0.18+），需显式开启
+     */
+    ANALYZE,
+
+    /**
+     * 按服务端版本自动选择
+     */
+    AUTO;
+
+    /**
+     * 解析模式配置，空或非法时返回 AUTO
+     *
+     * @param name 模式名称（忽略大小写）
+     * @return 对应模式
+     */
+    public static ExplainMode parse(String name) {
+        if (name == null || name.trim().isEmpty())
+            return AUTO;
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return AUTO;
+        }
+    }
 }
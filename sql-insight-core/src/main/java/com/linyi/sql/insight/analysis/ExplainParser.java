@@ -22,19 +22,26 @@
 
 package com.linyi.sql.insight.analysis;
 
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.linyi.sql.insight.model.PlanNode;
 import com.linyi.sql.insight.model.SqlAnalysisResult;
 import com.linyi.sql.insight.model.SqlAnalysisResultList;
 
+import java.io.IOException;
+import java.io.StringReader;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 
 /**
- * 解析 EXPLAIN 的 JSON/TABLE 结果为统一结构。
+ * 解析 EXPLAIN 的 JSON/TABLE/TREE 结果为统一结构。
+ * <p>
+ * 线程安全；表格格式的列下标映射缓存在实例上，长期持有同一实例（如 {@link ExplainExecutor}）时可复用。
+ * </p>
  *
  * @author linyi
  * @since 1.0.0
@@ -42,10 +49,18 @@ import java.util.Locale;
 public class ExplainParser {
 
     /**
-     * 解析SQL分析结果的JSON字符串，将其转换为SqlAnalysisResultList对象
+     * 最近一次表格 EXPLAIN 的列布局（同一服务器版本的列布局固定），不一致时重新解析并替换
+     */
+    private volatile ColumnLayout columnLayout;
+
+    /**
+     * 解析SQL分析结果的JSON字符串，流式构建类型化计划树并展开为SqlAnalysisResultList对象
+     * <p>
+     * 使用 {@link JsonReader} 单遍读取，不构建中间 DOM；计划中未使用的字段（如 used_columns）直接跳过。
+     * </p>
      *
      * @param json 包含SQL分析结果的JSON字符串，可能为null或空字符串
-     * @return SqlAnalysisResultList对象，包含解析出的SQL分析结果；如果输入为空则返回空列表
+     * @return SqlAnalysisResultList对象，包含解析出的SQL分析结果、查询代价与计划树；如果输入为空则返回空列表
      */
     public SqlAnalysisResultList parseJson(String json) {
 
@@ -54,15 +69,26 @@ public class ExplainParser {
         if (json == null || json.isEmpty()) {
             return list;
         }
-        try {
-            // 解析JSON根对象并根据不同的结构进行处理
-            JsonObject root = JsonParser.parseString(json).getAsJsonObject();
-            if (root.has("query_block")) {
-                // 处理query_block类型的SQL分析结果
-                traverseQueryBlock(root.getAsJsonObject("query_block"), list, null);
-            } else if (root.has("table")) {
-                // 处理table类型的SQL分析结果
-                extractFromTableObject(root.getAsJsonObject("table"), list, null);
+        try (JsonReader in = new JsonReader(new StringReader(json))) {
+            // 根对象：query_block 或 table
+            PlanNode tree = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("query_block".equals(name) && in.peek() == JsonToken.BEGIN_OBJECT) {
+                    tree = readQueryBlock(in);
+                } else if ("table".equals(name) && in.peek() == JsonToken.BEGIN_OBJECT && tree == null) {
+                    tree = new PlanNode(PlanNode.Kind.QUERY_BLOCK);
+                    tree.add(readTable(in));
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            if (tree != null) {
+                list.setPlanTree(tree);
+                list.setQueryCost(tree.getQueryCost());
+                flatten(tree, list);
             }
         } catch (Throwable ignore) {
             // 忽略解析过程中的所有异常
@@ -72,91 +98,434 @@ public class ExplainParser {
 
 
     /**
-     * 遍历查询块对象，提取SQL分析结果
+     * 读取查询块；select_id 可能出现在子节点之后，读完后回填到本块内未设置的节点
      *
-     * @param qb       查询块的JsonObject对象，包含查询的结构化信息
-     * @param list     SQL分析结果列表，用于存储提取到的分析结果
-     * @param parentId 父级查询块的标识符，用于关联嵌套查询的关系
+     * @param in 位于查询块对象开头的读取器
+     * @return 查询块节点
      */
-    private void traverseQueryBlock(JsonObject qb, SqlAnalysisResultList list, String parentId) {
-        if (qb == null)
-            return;
-
-        // 处理直接包含table的情况
-        if (qb.has("table")) {
-            JsonObject t = qb.getAsJsonObject("table");
-            extractFromTableObject(t, list, parentId);
+    private PlanNode readQueryBlock(JsonReader in) throws IOException {
+        PlanNode node = new PlanNode(PlanNode.Kind.QUERY_BLOCK);
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            switch (name) {
+                case "select_id":
+                    node.setSelectId(toInt(readString(in)));
+                    break;
+                case "message":
+                    node.setMessage(readString(in));
+                    break;
+                case "cost_info":
+                    if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                        in.skipValue();
+                        break;
+                    }
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        if ("query_cost".equals(in.nextName()))
+                            node.setQueryCost(toDouble(readString(in)));
+                        else
+                            in.skipValue();
+                    }
+                    in.endObject();
+                    break;
+                default:
+                    readMember(name, in, node);
+                    break;
+            }
         }
+        in.endObject();
+        assignSelectId(node, node.getSelectId());
+        return node;
+    }
+
 
-        // 处理嵌套循环连接的情况
-        if (qb.has("nested_loop")) {
-            for (JsonElement e : qb.getAsJsonArray("nested_loop")) {
-                if (e.isJsonObject()) {
-                    JsonObject o = e.getAsJsonObject();
-                    if (o.has("table")) {
-                        extractFromTableObject(o.getAsJsonObject("table"), list, parentId);
+    /**
+     * 读取查询块、操作或嵌套循环元素中的一个成员：表访问、连接、操作与子查询挂到父节点下，其余跳过
+     *
+     * @param name   成员名
+     * @param in     位于成员值开头的读取器
+     * @param parent 父节点
+     */
+    private void readMember(String name, JsonReader in, PlanNode parent) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.BEGIN_OBJECT) {
+            switch (name) {
+                case "table":
+                    parent.add(readTable(in));
+                    return;
+                case "query_block":
+                    parent.add(readQueryBlock(in));
+                    return;
+                case "ordering_operation":
+                    parent.add(readOperation(PlanNode.Kind.ORDERING, in));
+                    return;
+                case "grouping_operation":
+                    parent.add(readOperation(PlanNode.Kind.GROUPING, in));
+                    return;
+                case "duplicates_removal":
+                    parent.add(readOperation(PlanNode.Kind.DUPLICATES_REMOVAL, in));
+                    return;
+                case "windowing":
+                    parent.add(readOperation(PlanNode.Kind.WINDOWING, in));
+                    return;
+                case "union_result":
+                    parent.add(readUnionResult(in));
+                    return;
+                default:
+                    break;
+            }
+        } else if (token == JsonToken.BEGIN_ARRAY) {
+            if ("nested_loop".equals(name)) {
+                PlanNode loop = parent.add(new PlanNode(PlanNode.Kind.NESTED_LOOP));
+                in.beginArray();
+                while (in.hasNext()) {
+                    if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                        in.skipValue();
+                        continue;
                     }
-                    // 处理附加的子查询
-                    if (o.has("attached_subqueries")) {
-                        for (JsonElement sub : o.getAsJsonArray("attached_subqueries")) {
-                            if (sub.isJsonObject() && sub.getAsJsonObject().has("query_block")) {
-                                traverseQueryBlock(sub.getAsJsonObject().getAsJsonObject("query_block"), list,
-                                        parentId);
-                            }
-                        }
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        readMember(in.nextName(), in, loop);
                     }
+                    in.endObject();
                 }
+                in.endArray();
+                return;
+            }
+            if (name.endsWith("_subqueries")) {
+                readSubqueries(PlanNode.Kind.SUBQUERY, name, in, parent);
+                return;
             }
         }
+        in.skipValue();
+    }
 
-        // 处理排序操作的情况
-        if (qb.has("ordering_operation")) {
-            JsonObject ord = qb.getAsJsonObject("ordering_operation");
-            if (ord.has("using_filesort") && ord.get("using_filesort").getAsBoolean()) {
-                SqlAnalysisResult r = new SqlAnalysisResult();
-                r.setExtra("Using filesort");
-                list.add(r);
+
+    /**
+     * 读取排序/分组/去重/窗口操作
+     */
+    private PlanNode readOperation(PlanNode.Kind kind, JsonReader in) throws IOException {
+        PlanNode node = new PlanNode(kind);
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            switch (name) {
+                case "using_filesort":
+                    node.setUsingFilesort(readBoolean(in));
+                    break;
+                case "using_temporary_table":
+                    node.setUsingTemporaryTable(readBoolean(in));
+                    break;
+                case "cost_info":
+                    if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                        in.skipValue();
+                        break;
+                    }
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        if ("sort_cost".equals(in.nextName()))
+                            node.setSortCost(toDouble(readString(in)));
+                        else
+                            in.skipValue();
+                    }
+                    in.endObject();
+                    break;
+                default:
+                    readMember(name, in, node);
+                    break;
             }
         }
+        in.endObject();
+        return node;
     }
 
 
     /**
-     * 从JSON对象中提取表访问信息并添加到分析结果列表中
+     * 读取 UNION 结果，各分支查询块作为子节点
+     */
+    private PlanNode readUnionResult(JsonReader in) throws IOException {
+        PlanNode node = new PlanNode(PlanNode.Kind.UNION_RESULT);
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            switch (name) {
+                case "table_name":
+                    node.setTableName(readString(in));
+                    break;
+                case "access_type":
+                    node.setAccessType(readString(in));
+                    break;
+                case "using_temporary_table":
+                    node.setUsingTemporaryTable(readBoolean(in));
+                    break;
+                case "query_specifications":
+                    if (in.peek() == JsonToken.BEGIN_ARRAY)
+                        readSubqueries(PlanNode.Kind.SUBQUERY, name, in, node);
+                    else
+                        in.skipValue();
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return node;
+    }
+
+
+    /**
+     * 读取子查询数组，每个元素作为子节点挂到父节点下
+     */
+    private void readSubqueries(PlanNode.Kind kind, String type, JsonReader in, PlanNode parent) throws IOException {
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() == JsonToken.BEGIN_OBJECT)
+                parent.add(readSubquery(kind, type, in));
+            else
+                in.skipValue();
+        }
+        in.endArray();
+    }
+
+
+    /**
+     * 读取子查询（附加子查询、物化子查询、UNION 分支）
+     */
+    private PlanNode readSubquery(PlanNode.Kind kind, String type, JsonReader in) throws IOException {
+        PlanNode node = new PlanNode(kind);
+        node.setSubqueryType(type);
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            switch (name) {
+                case "dependent":
+                    node.setDependent(readBoolean(in));
+                    break;
+                case "cacheable":
+                    node.setCacheable(readBoolean(in));
+                    break;
+                case "using_temporary_table":
+                    node.setUsingTemporaryTable(readBoolean(in));
+                    break;
+                case "query_block":
+                    if (in.peek() == JsonToken.BEGIN_OBJECT)
+                        node.add(readQueryBlock(in));
+                    else
+                        in.skipValue();
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return node;
+    }
+
+
+    /**
+     * 读取表访问
      *
-     * @param t        包含表访问信息的JSON对象
-     * @param list     用于存储SQL分析结果的列表
-     * @param parentId 父节点ID（在当前实现中未使用）
+     * @param in 位于表对象开头的读取器
+     * @return 表访问节点
      */
-    private void extractFromTableObject(JsonObject t, SqlAnalysisResultList list, String parentId) {
-        if (t == null)
+    private PlanNode readTable(JsonReader in) throws IOException {
+        PlanNode node = new PlanNode(PlanNode.Kind.TABLE);
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            switch (name) {
+                case "table_name":
+                    node.setTableName(readString(in));
+                    break;
+                case "access_type":
+                    node.setAccessType(readString(in));
+                    break;
+                case "possible_keys":
+                    node.setPossibleKeys(readStrings(in));
+                    break;
+                case "key":
+                    node.setKey(readString(in));
+                    break;
+                case "used_key_parts":
+                    node.setUsedKeyParts(readStrings(in));
+                    break;
+                case "key_length":
+                    node.setKeyLength(readString(in));
+                    break;
+                case "ref":
+                    node.setRef(readStrings(in));
+                    break;
+                case "rows_examined_per_scan":
+                    node.setRowsExaminedPerScan(toLong(readString(in)));
+                    break;
+                case "rows_produced_per_join":
+                    node.setRowsProducedPerJoin(toLong(readString(in)));
+                    break;
+                case "filtered":
+                    node.setFiltered(toDouble(readString(in)));
+                    break;
+                case "using_index":
+                    node.setUsingIndex(readBoolean(in));
+                    break;
+                case "using_join_buffer":
+                    node.setUsingJoinBuffer(readString(in));
+                    break;
+                case "attached_condition":
+                    node.setAttachedCondition(readString(in));
+                    break;
+                case "using_filesort":
+                    node.setUsingFilesort(readBoolean(in));
+                    break;
+                case "using_temporary":
+                    node.setUsingTemporaryTable(readBoolean(in));
+                    break;
+                case "cost_info":
+                    readTableCost(in, node);
+                    break;
+                case "materialized_from_subquery":
+                    if (in.peek() == JsonToken.BEGIN_OBJECT)
+                        node.add(readSubquery(PlanNode.Kind.MATERIALIZED_SUBQUERY, name, in));
+                    else
+                        in.skipValue();
+                    break;
+                case "attached_subqueries":
+                    if (in.peek() == JsonToken.BEGIN_ARRAY)
+                        readSubqueries(PlanNode.Kind.SUBQUERY, name, in, node);
+                    else
+                        in.skipValue();
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return node;
+    }
+
+    private void readTableCost(JsonReader in, PlanNode node) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_OBJECT) {
+            in.skipValue();
             return;
+        }
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "read_cost":
+                    node.setReadCost(toDouble(readString(in)));
+                    break;
+                case "eval_cost":
+                    node.setEvalCost(toDouble(readString(in)));
+                    break;
+                case "prefix_cost":
+                    node.setPrefixCost(toDouble(readString(in)));
+                    break;
+                case "data_read_per_join":
+                    node.setDataReadPerJoin(readString(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+    }
+
+
+    /**
+     * 将查询块的 select_id 回填到本块内的节点（不进入子查询与嵌套查询块）
+     */
+    private static void assignSelectId(PlanNode node, Integer selectId) {
+        if (selectId == null)
+            return;
+        for (PlanNode child : node.getChildren()) {
+            PlanNode.Kind kind = child.getKind();
+            if (kind == PlanNode.Kind.QUERY_BLOCK || kind == PlanNode.Kind.SUBQUERY
+                    || kind == PlanNode.Kind.MATERIALIZED_SUBQUERY)
+                continue;
+            if (child.getSelectId() == null)
+                child.setSelectId(selectId);
+            assignSelectId(child, selectId);
+        }
+    }
+
+
+    /**
+     * 先序展开计划树：每个表访问一行（与表格格式的列对应），排序/临时表操作单独记一行 Extra
+     *
+     * @param node 计划树节点
+     * @param list 展开结果
+     */
+    static void flatten(PlanNode node, SqlAnalysisResultList list) {
+        if (node == null)
+            return;
+        String id = node.getSelectId() == null ? null : String.valueOf(node.getSelectId());
+        switch (node.getKind()) {
+            case TABLE:
+                list.add(tableRow(node, id));
+                break;
+            case ORDERING:
+            case GROUPING:
+            case DUPLICATES_REMOVAL:
+            case WINDOWING:
+                if (Boolean.TRUE.equals(node.getUsingTemporaryTable()))
+                    list.add(extraRow(id, "Using temporary"));
+                if (Boolean.TRUE.equals(node.getUsingFilesort()))
+                    list.add(extraRow(id, "Using filesort"));
+                break;
+            default:
+                break;
+        }
+        for (PlanNode child : node.getChildren()) {
+            flatten(child, list);
+        }
+    }
+
+    private static SqlAnalysisResult tableRow(PlanNode t, String id) {
         SqlAnalysisResult r = new SqlAnalysisResult();
+        r.setId(id);
+        r.setTable(t.getTableName());
+        r.setType(t.getAccessType());
+        r.setKey(t.getKey());
+        r.setKeyLen(t.getKeyLength());
+        r.setRef(join(t.getRef()));
+        r.setRows(t.getRowsExaminedPerScan());
+        r.setFiltered(t.getFiltered() == null ? null : String.format(Locale.ROOT, "%.2f", t.getFiltered()));
+        r.setPossibleKeys(join(t.getPossibleKeys()));
+        r.setCost(t.getPrefixCost());
+        r.setRowsProduced(t.getRowsProducedPerJoin());
 
-        // 提取表基本信息
-        if (t.has("table_name"))
-            r.setTable(getAsString(t, "table_name"));
-        if (t.has("access_type"))
-            r.setType(getAsString(t, "access_type"));
-        if (t.has("key"))
-            r.setKey(getAsString(t, "key"));
-        if (t.has("key_length"))
-            r.setKeyLen(getAsString(t, "key_length"));
-        if (t.has("rows_examined_per_scan"))
-            trySetRows(r, getAsString(t, "rows_examined_per_scan"));
-
-        // 构建额外信息字符串
+        // 构建额外信息字符串（与表格格式 Extra 的措辞一致）
         StringBuilder extra = new StringBuilder();
-        if (t.has("using_temporary") && t.get("using_temporary").getAsBoolean()) {
+        if (Boolean.TRUE.equals(t.getUsingIndex()))
+            appendExtra(extra, "Using index");
+        if (t.getAttachedCondition() != null)
+            appendExtra(extra, "Using where");
+        if (t.getUsingJoinBuffer() != null)
+            appendExtra(extra, "Using join buffer (" + t.getUsingJoinBuffer() + ")");
+        if (Boolean.TRUE.equals(t.getUsingTemporaryTable()))
             appendExtra(extra, "Using temporary");
-        }
-        if (t.has("using_filesort") && t.get("using_filesort").getAsBoolean()) {
+        if (Boolean.TRUE.equals(t.getUsingFilesort()))
             appendExtra(extra, "Using filesort");
-        }
         if (extra.length() > 0)
             r.setExtra(extra.toString());
+        return r;
+    }
 
-        list.add(r);
+    private static SqlAnalysisResult extraRow(String id, String extra) {
+        SqlAnalysisResult r = new SqlAnalysisResult();
+        r.setId(id);
+        r.setExtra(extra);
+        return r;
+    }
+
+    private static String join(List<String> values) {
+        if (values == null || values.isEmpty())
+            return null;
+        return String.join(",", values);
     }
 
 
@@ -175,22 +544,78 @@ public class ExplainParser {
 
 
     /**
-     * 从JsonObject中获取指定键的字符串值
-     *
-     * @param o   JsonObject对象
-     * @param key 要获取值的键名
-     * @return 如果键存在且能转换为字符串则返回对应值，否则返回null
+     * 读取标量值为字符串（数字按原文、布尔转为 true/false），null 或非标量返回null
+     */
+    private static String readString(JsonReader in) throws IOException {
+        switch (in.peek()) {
+            case STRING:
+            case NUMBER:
+                return in.nextString();
+            case BOOLEAN:
+                return String.valueOf(in.nextBoolean());
+            case NULL:
+                in.nextNull();
+                return null;
+            default:
+                in.skipValue();
+                return null;
+        }
+    }
+
+    private static Boolean readBoolean(JsonReader in) throws IOException {
+        switch (in.peek()) {
+            case BOOLEAN:
+                return in.nextBoolean();
+            case STRING:
+                return Boolean.valueOf(in.nextString());
+            case NULL:
+                in.nextNull();
+                return null;
+            default:
+                in.skipValue();
+                return null;
+        }
+    }
+
+    private static List<String> readStrings(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            in.skipValue();
+            return null;
+        }
+        List<String> out = new ArrayList<>(4);
+        in.beginArray();
+        while (in.hasNext()) {
+            String v = readString(in);
+            if (v != null)
+                out.add(v);
+        }
+        in.endArray();
+        return out;
+    }
+
+    /**
+     * 数值字段：MySQL 输出中可能为数字或数字字符串（如 "10.00"），无法解析时返回null
      */
-    private static String getAsString(JsonObject o, String key) {
+    private static Double toDouble(String v) {
+        if (v == null)
+            return null;
         try {
-            // 尝试获取指定键的值并转换为字符串
-            return o.get(key).getAsString();
-        } catch (Throwable ignore) {
-            // 发生异常时返回null
+            return Double.parseDouble(v.trim());
+        } catch (NumberFormatException ignore) {
             return null;
         }
     }
 
+    private static Long toLong(String v) {
+        Double d = toDouble(v);
+        return d == null ? null : d.longValue();
+    }
+
+    private static Integer toInt(String v) {
+        Double d = toDouble(v);
+        return d == null ? null : d.intValue();
+    }
+
 
     /**
      * 尝试设置SQL分析结果的行数
@@ -210,8 +635,143 @@ public class ExplainParser {
     }
 
 
+    /**
+     * 解析 EXPLAIN FORMAT=TREE（或 EXPLAIN ANALYZE）的文本输出。
+     * <p>
+     * 每个表访问迭代器（如 {@code Table scan on t}、{@code Index lookup on t using idx}）映射为一行，
+     * 访问方式按迭代器名换算为表格格式的 type（ALL/index/range/ref/eq_ref/const/fulltext），
+     * rows 取估算值；位于其上方的 Filter 记为 Using where，排序与临时表迭代器单独记一行 Extra，
+     * 对 {@code <temporary>}、{@code <derivedN>} 等内部临时表的访问不计为表访问。
+     * </p>
+     *
+     * @param tree 树形计划文本，可能为null
+     * @return 解析结果，无法识别的行被忽略
+     */
+    public SqlAnalysisResultList parseTree(String tree) {
+        SqlAnalysisResultList list = new SqlAnalysisResultList();
+        if (tree == null || tree.isEmpty())
+            return list;
+        int filterIndent = -1;
+        int pos = 0;
+        int len = tree.length();
+        while (pos < len) {
+            int eol = tree.indexOf('\n', pos);
+            if (eol < 0)
+                eol = len;
+            int i = pos;
+            while (i < eol && tree.charAt(i) == ' ')
+                i++;
+            int indent = i - pos;
+            if (tree.startsWith("-> ", i)) {
+                String node = tree.substring(i + 3, eol);
+                if (node.startsWith("Filter:")) {
+                    filterIndent = indent;
+                } else {
+                    SqlAnalysisResult r = treeAccess(node);
+                    if (r != null) {
+                        if (filterIndent >= 0 && indent > filterIndent)
+                            r.setExtra(r.getExtra() == null ? "Using where" : r.getExtra() + ", Using where");
+                        filterIndent = -1;
+                        list.add(r);
+                    } else if (node.startsWith("Sort") || node.contains("filesort")) {
+                        list.add(extraOnly("Using filesort"));
+                    } else if (node.contains("temporary table") || node.startsWith("Temporary table")
+                            || node.startsWith("Materialize")) {
+                        list.add(extraOnly("Using temporary"));
+                    }
+                }
+            }
+            pos = eol + 1;
+        }
+        return list;
+    }
+
+    /**
+     * 识别表访问迭代器，非表访问返回null
+     */
+    private static SqlAnalysisResult treeAccess(String node) {
+        String type;
+        String rest;
+        boolean covering = false;
+        String n = node;
+        if (n.startsWith("Single-row ")) {
+            n = n.substring("Single-row ".length());
+            type = "eq_ref";
+        } else {
+            type = null;
+        }
+        if (n.startsWith("covering ") || n.startsWith("Covering ")) {
+            covering = true;
+            n = n.substring("covering ".length());
+        }
+        if (n.startsWith("Table scan on ")) {
+            type = "ALL";
+            rest = n.substring("Table scan on ".length());
+        } else if (n.startsWith("index range scan on ") || n.startsWith("Index range scan on ")) {
+            type = "range";
+            rest = n.substring("index range scan on ".length());
+        } else if (n.startsWith("index scan on ") || n.startsWith("Index scan on ")) {
+            type = "index";
+            rest = n.substring("index scan on ".length());
+        } else if (n.startsWith("index lookup on ") || n.startsWith("Index lookup on ")) {
+            type = type == null ? "ref" : type;
+            rest = n.substring("index lookup on ".length());
+        } else if (n.startsWith("Full-text index search on ")) {
+            type = "fulltext";
+            rest = n.substring("Full-text index search on ".length());
+        } else if (n.startsWith("Constant row from ")) {
+            type = "const";
+            rest = n.substring("Constant row from ".length());
+        } else {
+            return null;
+        }
+        // <temporary>、<derived2>、<union1,2> 等内部临时表的扫描不是对业务表的全表扫描，由上方的临时表迭代器记 Extra
+        if (rest.startsWith("<"))
+            return null;
+        SqlAnalysisResult r = new SqlAnalysisResult();
+        r.setType(type);
+        r.setTable(token(rest, 0));
+        int using = rest.indexOf(" using ");
+        if (using >= 0)
+            r.setKey(token(rest, using + " using ".length()));
+        if (covering)
+            r.setExtra("Using index");
+        int rows = node.indexOf(" rows=");
+        if (rows >= 0)
+            trySetRows(r, numberAt(node, rows + " rows=".length()));
+        return r;
+    }
+
+    private static SqlAnalysisResult extraOnly(String extra) {
+        SqlAnalysisResult r = new SqlAnalysisResult();
+        r.setExtra(extra);
+        return r;
+    }
+
+    private static String token(String s, int from) {
+        int end = from;
+        while (end < s.length() && s.charAt(end) != ' ' && s.charAt(end) != '(')
+            end++;
+        return end > from ? s.substring(from, end) : null;
+    }
+
+    private static String numberAt(String s, int from) {
+        int end = from;
+        while (end < s.length()) {
+            char c = s.charAt(end);
+            if ((c < '0' || c > '9') && c != '.' && c != 'e' && c != 'E' && c != '+' && c != '-')
+                break;
+            end++;
+        }
+        return end > from ? s.substring(from, end) : null;
+    }
+
+
     /**
      * 解析ResultSet中的表分析结果，将其转换为SqlAnalysisResultList对象列表
+     * <p>
+     * 列下标每个结果集只解析一次（列签名与上次相同时直接复用），逐行只按下标读取，不再访问元数据。
+     * </p>
      *
      * @param rs 包含SQL分析结果的ResultSet对象
      * @return SqlAnalysisResultList 包含解析后的SQL分析结果列表，如果rs为null则返回空列表
@@ -221,22 +781,20 @@ public class ExplainParser {
         if (rs == null)
             return list;
         try {
-            // 获取结果集的元数据，用于确定列数和列名
-            ResultSetMetaData md = rs.getMetaData();
-            int colCount = md.getColumnCount();
+            // 解析列下标映射
+            int[] idx = columnIndexes(rs.getMetaData());
             // 遍历结果集中的每一行数据，解析并封装成SqlAnalysisResult对象
             while (rs.next()) {
                 SqlAnalysisResult r = new SqlAnalysisResult();
-                r.setId(get(rs, colCount, "id", "select_id"));
-                r.setTable(get(rs, colCount, "table"));
-                r.setType(get(rs, colCount, "type"));
-                r.setKey(get(rs, colCount, "key"));
-                r.setKeyLen(get(rs, colCount, "key_len"));
-                r.setRef(get(rs, colCount, "ref"));
-                r.setFiltered(get(rs, colCount, "filtered"));
-                r.setExtra(get(rs, colCount, "Extra", "extra"));
-                String rowsStr = get(rs, colCount, "rows");
-                trySetRows(r, rowsStr);
+                r.setId(column(rs, idx[COL_ID]));
+                r.setTable(column(rs, idx[COL_TABLE]));
+                r.setType(column(rs, idx[COL_TYPE]));
+                r.setKey(column(rs, idx[COL_KEY]));
+                r.setKeyLen(column(rs, idx[COL_KEY_LEN]));
+                r.setRef(column(rs, idx[COL_REF]));
+                r.setFiltered(column(rs, idx[COL_FILTERED]));
+                r.setExtra(column(rs, idx[COL_EXTRA]));
+                trySetRows(r, column(rs, idx[COL_ROWS]));
                 list.add(r);
             }
         } catch (SQLException ignore) {
@@ -244,31 +802,93 @@ public class ExplainParser {
         return list;
     }
 
+    private static final int COL_ID = 0;
+    private static final int COL_TABLE = 1;
+    private static final int COL_TYPE = 2;
+    private static final int COL_KEY = 3;
+    private static final int COL_KEY_LEN = 4;
+    private static final int COL_REF = 5;
+    private static final int COL_FILTERED = 6;
+    private static final int COL_EXTRA = 7;
+    private static final int COL_ROWS = 8;
 
     /**
-     * 从ResultSet中根据候选列名查找并返回对应的字符串值
+     * 各字段的候选列名（小写，按顺序匹配），下标与 COL_* 对应
+     */
+    private static final String[][] COLUMN_CANDIDATES = {
+            {"id", "select_id"},
+            {"table"},
+            {"type"},
+            {"key"},
+            {"key_len"},
+            {"ref"},
+            {"filtered"},
+            {"extra"},
+            {"rows"}
+    };
+
+    /**
+     * 获取结果集的列下标映射：每个 ResultSet 只读取一遍列名，列签名与上次相同时复用上次的映射，否则解析并替换
+     *
+     * @param md 结果集元数据
+     * @return 下标映射，按 COL_* 索引；值为 1 起始的列下标，未找到的列为 0
+     * @throws SQLException 访问元数据时发生数据库异常
+     */
+    private int[] columnIndexes(ResultSetMetaData md) throws SQLException {
+        int colCount = md.getColumnCount();
+        String[] labels = new String[colCount + 1];
+        StringBuilder sig = new StringBuilder(colCount * 8);
+        for (int i = 1; i <= colCount; i++) {
+            String label = md.getColumnLabel(i);
+            if (label == null)
+                label = md.getColumnName(i);
+            labels[i] = label == null ? "" : label.toLowerCase(Locale.ROOT);
+            sig.append(labels[i]).append(',');
+        }
+        String signature = sig.toString();
+        ColumnLayout layout = columnLayout;
+        if (layout != null && layout.signature.equals(signature))
+            return layout.indexes;
+        int[] idx = new int[COLUMN_CANDIDATES.length];
+        for (int f = 0; f < COLUMN_CANDIDATES.length; f++) {
+            idx[f] = indexOf(labels, COLUMN_CANDIDATES[f]);
+        }
+        columnLayout = new ColumnLayout(signature, idx);
+        return idx;
+    }
+
+    /**
+     * 列签名（小写列名以逗号连接）与对应的列下标映射，不可变
+     */
+    private static final class ColumnLayout {
+        final String signature;
+        final int[] indexes;
+
+        ColumnLayout(String signature, int[] indexes) {
+            this.signature = signature;
+            this.indexes = indexes;
+        }
+    }
+
+    /**
+     * 按候选列名顺序查找第一个匹配的列下标
      *
-     * @param rs         ResultSet对象，用于获取查询结果
-     * @param colCount   列的数量，限制搜索范围
-     * @param candidates 候选列名数组，按顺序进行匹配查找
-     * @return 找到的第一个匹配列的字符串值，如果未找到则返回null
-     * @throws SQLException 当访问ResultSet元数据或获取字符串值时发生数据库异常
+     * @param labels     小写列名，下标 1 起始
+     * @param candidates 候选列名
+     * @return 列下标，未找到返回 0
      */
-    private String get(ResultSet rs, int colCount, String... candidates) throws SQLException {
-        // 遍历所有候选列名
+    private static int indexOf(String[] labels, String[] candidates) {
         for (String c : candidates) {
-            // 在指定列数范围内查找匹配的列
-            for (int i = 1; i <= colCount; i++) {
-                String label = rs.getMetaData().getColumnLabel(i);
-                if (label == null)
-                    label = rs.getMetaData().getColumnName(i);
-                // 比较列标签或列名是否与候选名称匹配（忽略大小写）
-                if (label != null && label.toLowerCase(Locale.ROOT).equals(c.toLowerCase(Locale.ROOT))) {
-                    return rs.getString(i);
-                }
+            for (int i = 1; i < labels.length; i++) {
+                if (c.equals(labels[i]))
+                    return i;
             }
         }
-        return null;
+        return 0;
+    }
+
+    private static String column(ResultSet rs, int index) throws SQLException {
+        return index > 0 ? rs.getString(index) : null;
     }
 
 }
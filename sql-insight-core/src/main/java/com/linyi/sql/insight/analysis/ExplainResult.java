@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.linyi.sql.insight.analysis;
+
+import com.linyi.sql.insight.model.SqlAnalysisResultList;
+
+/**
+ * 单次 EXPLAIN 的结果：原始计划文本、解析后的统一结构与实际使用的格式。
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+public final class ExplainResult {
+
+    /**
+     * 原始计划文本（JSON/TREE 格式时为 EXPLAIN 的输出，表格格式时为null）
+     */
+    private final String rawPlan;
+
+    /**
+     * 解析后的执行计划
+     */
+    private final SqlAnalysisResultList plan;
+
+    /**
+     * 实际使用的 EXPLAIN 格式，EXPLAIN 失败时为null
+     */
+    private final ExplainMode format;
+
+    public ExplainResult(String rawPlan, SqlAnalysisResultList plan, ExplainMode format) {
+        this.rawPlan = rawPlan;
+        this.plan = plan == null ? new SqlAnalysisResultList() : plan;
+        this.format = format;
+    }
+
+    /**
+     * 创建一个空结果（未执行或执行失败）
+     *
+     * @return 空的 EXPLAIN 结果
+     */
+    public static ExplainResult empty() {
+        return new ExplainResult(null, null, null);
+    }
+
+    public String getRawPlan() {
+        return rawPlan;
+    }
+
+    public SqlAnalysisResultList getPlan() {
+        return plan;
+    }
+
+    public ExplainMode getFormat() {
+        return format;
+    }
+}
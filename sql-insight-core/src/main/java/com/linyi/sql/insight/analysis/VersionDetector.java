@@ -36,6 +36,9 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class VersionDetector {
     private static final Map<String, Boolean> CACHE_IS_MYSQL8 = new ConcurrentHashMap<>();
+    private static final Map<String, int[]> CACHE_MYSQL_VERSION = new ConcurrentHashMap<>();
+
+    private static final int[] NOT_MYSQL = new int[]{0, 0, 0};
 
     /**
      * 检查MySQL数据库版本是否为8.0或更高版本
@@ -61,6 +64,72 @@ public class VersionDetector {
     }
 
 
+    /**
+     * 判断服务端是否支持指定的 EXPLAIN 格式：TABLE 总是支持，JSON 需 MySQL 8.0+（与 {@link #isMySQL8OrAbove} 一致），
+     * TREE 需 8.0.16+，ANALYZE 需 8.0.18+；AUTO 视为支持
+     *
+     * @param connection 数据库连接对象
+     * @param mode       EXPLAIN 格式
+     * @return 支持返回true
+     */
+    public boolean supports(Connection connection, ExplainMode mode) {
+        if (mode == null || mode == ExplainMode.TABLE || mode == ExplainMode.AUTO)
+            return true;
+        int[] v = mysqlVersion(connection);
+        switch (mode) {
+            case JSON:
+                return v[0] >= 8;
+            case TREE:
+                return atLeast(v, 8, 0, 16);
+            case ANALYZE:
+                return atLeast(v, 8, 0, 18);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 获取 MySQL 服务端版本（按连接 URL + 用户缓存）
+     *
+     * @param connection 数据库连接对象
+     * @return [主, 次, 修订]，非 MySQL 或探测失败时全为 0
+     */
+    public int[] mysqlVersion(Connection connection) {
+        String key = cacheKey(connection);
+        int[] cached = key == null ? null : CACHE_MYSQL_VERSION.get(key);
+        if (cached != null)
+            return cached;
+        int[] result = probeMySQLVersion(connection);
+        if (key != null) {
+            CACHE_MYSQL_VERSION.put(key, result);
+        }
+        return result;
+    }
+
+    private static boolean atLeast(int[] v, int major, int minor, int patch) {
+        if (v[0] != major)
+            return v[0] > major;
+        if (v[1] != minor)
+            return v[1] > minor;
+        return v[2] >= patch;
+    }
+
+    private int[] probeMySQLVersion(Connection connection) {
+        if (connection == null)
+            return NOT_MYSQL;
+        try {
+            DatabaseMetaData md = connection.getMetaData();
+            String product = md.getDatabaseProductName();
+            // MariaDB 不支持 FORMAT=TREE/EXPLAIN ANALYZE 的 MySQL 语义，按非 MySQL 处理
+            if (product == null || !product.toLowerCase().contains("mysql"))
+                return NOT_MYSQL;
+            return parseVersion(md.getDatabaseProductVersion());
+        } catch (SQLException ignore) {
+            return NOT_MYSQL;
+        }
+    }
+
+
     /**
      * 检测MySQL数据库版本是否为8.0或更高版本
      *
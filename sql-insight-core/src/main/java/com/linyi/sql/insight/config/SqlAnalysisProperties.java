@@ -61,7 +61,7 @@ public class SqlAnalysisProperties {
     private boolean asyncEnabled = false;
 
     /**
-     * 异步线程池大小
+     * 异步线程池大小（VIRTUAL 执行器模式下为并发上限）
      */
     private int asyncPoolSize = 4;
 
@@ -95,6 +95,152 @@ public class SqlAnalysisProperties {
      */
     private int rewriteMaxLimit = 0;
 
+    /**
+     * 是否启用异步分析（EXPLAIN 移出业务线程，使用独立分析数据源）
+     */
+    private boolean asyncAnalysisEnabled = false;
+
+    /**
+     * 异步分析队列容量（队列满时丢弃）
+     */
+    private int analysisQueueCapacity = 1000;
+
+    /**
+     * 异步分析线程数
+     */
+    private int analysisWorkerThreads = 2;
+
+    /**
+     * 是否启用执行计划/评分缓存
+     */
+    private boolean planCacheEnabled = false;
+
+    /**
+     * 执行计划/评分缓存最大条目数（LRU 淘汰）
+     */
+    private int planCacheMaxSize = 1024;
+
+    /**
+     * 执行计划/评分缓存过期时间（毫秒），<=0 表示不过期
+     */
+    private long planCacheTtlMs = 600_000L;
+
+    /**
+     * onlyCheckOnce 去重窗口最大条目数（固定内存上限，约每条 16 字节）
+     */
+    private int dedupMaxEntries = 65536;
+
+    /**
+     * 全局 EXPLAIN 预算（次/秒），<=0 表示不限制
+     */
+    private double explainBudgetPerSecond = 0;
+
+    /**
+     * 单个 sqlId 的 EXPLAIN 预算（次/秒），<=0 表示不限制
+     */
+    private double explainBudgetPerSqlIdPerSecond = 0;
+
+    /**
+     * 同时进行中的分析（EXPLAIN）数上限，<=0 表示不限制
+     */
+    private int maxConcurrentAnalyses = 0;
+
+    /**
+     * 采样模式：FIXED（固定采样率）/ ADAPTIVE（按 sqlId 频率与分析开销自适应）/ LATENCY（延迟偏向）
+     * <p>
+     * LATENCY：执行耗时超过 slowThresholdMs 或超过所属指纹运行 p95 的执行必定分析；
+     * 指纹观测不足 20 次（p95 预热期）时也必定分析；其余按 samplingRate 采样。
+     * </p>
+     */
+    private String samplingMode = "FIXED";
+
+    /**
+     * ADAPTIVE 模式下的目标开销百分比（分析耗时占业务SQL耗时的比例，1 表示 1%）
+     */
+    private double targetOverheadPercent = 1.0;
+
+    /**
+     * LATENCY 采样模式下的慢SQL阈值（毫秒），超过即必定分析，<=0 表示仅按指纹 p95 判断
+     */
+    private long slowThresholdMs = 1000L;
+
+    /**
+     * 敏感列名（大小写不敏感），对应的字面量在输出的 SQL 中被替换为 '****'
+     */
+    private java.util.List<String> sensitiveColumns = new java.util.ArrayList<>(
+            java.util.Arrays.asList("password", "token", "mobile", "id_card", "email"));
+
+    /**
+     * 是否输出 [SqlInsight-FULL] 完整记录日志（经环形缓冲区异步写出）
+     */
+    private boolean fullLogEnabled = true;
+
+    /**
+     * 完整记录日志的采样率（0~1），独立于分析采样
+     */
+    private double fullLogSamplingRate = 1.0;
+
+    /**
+     * 单条完整记录的最大字符数，超出截断，<=0 表示不限制
+     */
+    private int fullLogMaxChars = 65536;
+
+    /**
+     * 完整记录日志环形缓冲区容量，满时丢弃并计数
+     */
+    private int fullLogBufferSize = 4096;
+
+    /**
+     * 完整记录日志的最低评分等级（OK/WARN/CRIT），为空表示全部输出
+     */
+    private String fullLogMinLevel;
+
+    /**
+     * 异步输出队列容量（超出后按溢出策略处理，不阻塞业务线程）
+     */
+    private int asyncQueueCapacity = 1000;
+
+    /**
+     * 异步输出队列溢出策略：DROP_NEWEST/DROP_OLDEST/SAMPLE_DOWN/COALESCE
+     */
+    private String asyncOverflowPolicy = "DROP_NEWEST";
+
+    /**
+     * 分析/输出执行器模式：PLATFORM（固定线程池）/VIRTUAL（虚拟线程 + 信号量，JDK 21+）/AUTO（支持时使用虚拟线程）
+     */
+    private String executorMode = "PLATFORM";
+
+    /**
+     * 基数误估告警阈值：估算行数与实际行数相差的倍数（q-error），按指纹 EWMA 持续超过时告警，<=1 表示不告警
+     */
+    private double misestimateThreshold = 10.0;
+
+    /**
+     * 是否按指纹 + sqlId 记录业务SQL执行耗时直方图
+     */
+    private boolean latencyHistogramEnabled = true;
+
+    /**
+     * 执行耗时直方图最多跟踪的指纹 + sqlId 数（每个约 4KB），超出部分合并计入溢出直方图
+     */
+    private int latencyHistogramMaxKeys = 1024;
+
+    /**
+     * EXPLAIN 模式：TABLE/JSON/TREE/ANALYZE/AUTO，AUTO 按服务端版本选择（MySQL 8+ 为 JSON），
+     * ANALYZE 在 AUTO 基础上对 WARN/CRIT 的 SELECT 采样执行 EXPLAIN ANALYZE（会真实执行查询，需显式开启）
+     */
+    private String explainMode = "AUTO";
+
+    /**
+     * EXPLAIN ANALYZE 采样率（0~1），仅 ANALYZE 模式生效
+     */
+    private double explainAnalyzeSamplingRate = 0.01;
+
+    /**
+     * EXPLAIN ANALYZE 查询超时（毫秒，按秒向上取整）
+     */
+    private long explainAnalyzeTimeoutMs = 2000L;
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -198,4 +344,228 @@ public class SqlAnalysisProperties {
     public void setRewriteMaxLimit(int rewriteMaxLimit) {
         this.rewriteMaxLimit = rewriteMaxLimit;
     }
+
+    public boolean isAsyncAnalysisEnabled() {
+        return asyncAnalysisEnabled;
+    }
+
+    public void setAsyncAnalysisEnabled(boolean asyncAnalysisEnabled) {
+        this.asyncAnalysisEnabled = asyncAnalysisEnabled;
+    }
+
+    public int getAnalysisQueueCapacity() {
+        return analysisQueueCapacity;
+    }
+
+    public void setAnalysisQueueCapacity(int analysisQueueCapacity) {
+        this.analysisQueueCapacity = analysisQueueCapacity;
+    }
+
+    public int getAnalysisWorkerThreads() {
+        return analysisWorkerThreads;
+    }
+
+    public void setAnalysisWorkerThreads(int analysisWorkerThreads) {
+        this.analysisWorkerThreads = analysisWorkerThreads;
+    }
+
+    public boolean isPlanCacheEnabled() {
+        return planCacheEnabled;
+    }
+
+    public void setPlanCacheEnabled(boolean planCacheEnabled) {
+        this.planCacheEnabled = planCacheEnabled;
+    }
+
+    public int getPlanCacheMaxSize() {
+        return planCacheMaxSize;
+    }
+
+    public void setPlanCacheMaxSize(int planCacheMaxSize) {
+        this.planCacheMaxSize = planCacheMaxSize;
+    }
+
+    public long getPlanCacheTtlMs() {
+        return planCacheTtlMs;
+    }
+
+    public void setPlanCacheTtlMs(long planCacheTtlMs) {
+        this.planCacheTtlMs = planCacheTtlMs;
+    }
+
+    public int getDedupMaxEntries() {
+        return dedupMaxEntries;
+    }
+
+    public void setDedupMaxEntries(int dedupMaxEntries) {
+        this.dedupMaxEntries = dedupMaxEntries;
+    }
+
+    public double getExplainBudgetPerSecond() {
+        return explainBudgetPerSecond;
+    }
+
+    public void setExplainBudgetPerSecond(double explainBudgetPerSecond) {
+        this.explainBudgetPerSecond = explainBudgetPerSecond;
+    }
+
+    public double getExplainBudgetPerSqlIdPerSecond() {
+        return explainBudgetPerSqlIdPerSecond;
+    }
+
+    public void setExplainBudgetPerSqlIdPerSecond(double explainBudgetPerSqlIdPerSecond) {
+        this.explainBudgetPerSqlIdPerSecond = explainBudgetPerSqlIdPerSecond;
+    }
+
+    public int getMaxConcurrentAnalyses() {
+        return maxConcurrentAnalyses;
+    }
+
+    public void setMaxConcurrentAnalyses(int maxConcurrentAnalyses) {
+        this.maxConcurrentAnalyses = maxConcurrentAnalyses;
+    }
+
+    public String getSamplingMode() {
+        return samplingMode;
+    }
+
+    public void setSamplingMode(String samplingMode) {
+        this.samplingMode = samplingMode;
+    }
+
+    public double getTargetOverheadPercent() {
+        return targetOverheadPercent;
+    }
+
+    public void setTargetOverheadPercent(double targetOverheadPercent) {
+        this.targetOverheadPercent = targetOverheadPercent;
+    }
+
+    public long getSlowThresholdMs() {
+        return slowThresholdMs;
+    }
+
+    public void setSlowThresholdMs(long slowThresholdMs) {
+        this.slowThresholdMs = slowThresholdMs;
+    }
+
+    public java.util.List<String> getSensitiveColumns() {
+        return sensitiveColumns;
+    }
+
+    public void setSensitiveColumns(java.util.List<String> sensitiveColumns) {
+        this.sensitiveColumns = sensitiveColumns;
+    }
+
+    public boolean isFullLogEnabled() {
+        return fullLogEnabled;
+    }
+
+    public void setFullLogEnabled(boolean fullLogEnabled) {
+        this.fullLogEnabled = fullLogEnabled;
+    }
+
+    public double getFullLogSamplingRate() {
+        return fullLogSamplingRate;
+    }
+
+    public void setFullLogSamplingRate(double fullLogSamplingRate) {
+        this.fullLogSamplingRate = fullLogSamplingRate;
+    }
+
+    public int getFullLogMaxChars() {
+        return fullLogMaxChars;
+    }
+
+    public void setFullLogMaxChars(int fullLogMaxChars) {
+        this.fullLogMaxChars = fullLogMaxChars;
+    }
+
+    public int getFullLogBufferSize() {
+        return fullLogBufferSize;
+    }
+
+    public void setFullLogBufferSize(int fullLogBufferSize) {
+        this.fullLogBufferSize = fullLogBufferSize;
+    }
+
+    public String getFullLogMinLevel() {
+        return fullLogMinLevel;
+    }
+
+    public void setFullLogMinLevel(String fullLogMinLevel) {
+        this.fullLogMinLevel = fullLogMinLevel;
+    }
+
+    public int getAsyncQueueCapacity() {
+        return asyncQueueCapacity;
+    }
+
+    public void setAsyncQueueCapacity(int asyncQueueCapacity) {
+        this.asyncQueueCapacity = asyncQueueCapacity;
+    }
+
+    public String getAsyncOverflowPolicy() {
+        return asyncOverflowPolicy;
+    }
+
+    public void setAsyncOverflowPolicy(String asyncOverflowPolicy) {
+        this.asyncOverflowPolicy = asyncOverflowPolicy;
+    }
+
+    public String getExecutorMode() {
+        return executorMode;
+    }
+
+    public void setExecutorMode(String executorMode) {
+        this.executorMode = executorMode;
+    }
+
+    public double getMisestimateThreshold() {
+        return misestimateThreshold;
+    }
+
+    public void setMisestimateThreshold(double misestimateThreshold) {
+        this.misestimateThreshold = misestimateThreshold;
+    }
+
+    public boolean isLatencyHistogramEnabled() {
+        return latencyHistogramEnabled;
+    }
+
+    public void setLatencyHistogramEnabled(boolean latencyHistogramEnabled) {
+        this.latencyHistogramEnabled = latencyHistogramEnabled;
+    }
+
+    public int getLatencyHistogramMaxKeys() {
+        return latencyHistogramMaxKeys;
+    }
+
+    public void setLatencyHistogramMaxKeys(int latencyHistogramMaxKeys) {
+        this.latencyHistogramMaxKeys = latencyHistogramMaxKeys;
+    }
+
+    public String getExplainMode() {
+        return explainMode;
+    }
+
+    public void setExplainMode(String explainMode) {
+        this.explainMode = explainMode;
+    }
+
+    public double getExplainAnalyzeSamplingRate() {
+        return explainAnalyzeSamplingRate;
+    }
+
+    public void setExplainAnalyzeSamplingRate(double explainAnalyzeSamplingRate) {
+        this.explainAnalyzeSamplingRate = explainAnalyzeSamplingRate;
+    }
+
+    public long getExplainAnalyzeTimeoutMs() {
+        return explainAnalyzeTimeoutMs;
+    }
+
+    public void setExplainAnalyzeTimeoutMs(long explainAnalyzeTimeoutMs) {
+        this.explainAnalyzeTimeoutMs = explainAnalyzeTimeoutMs;
+    }
 }
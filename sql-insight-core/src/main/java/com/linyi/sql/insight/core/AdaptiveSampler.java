@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.linyi.sql.insight.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 开销自适应采样器：按 sqlId 统计执行频率，并根据分析开销（分析耗时 / 业务耗时）动态调整采样率。
+ * <p>
+ * 单个 sqlId 的采样率为 {@code min(maxRate, k / execRate)}，其中 execRate 为该 sqlId 每秒执行次数（EWMA），
+ * k 为“每个 sqlId 每秒期望分析次数”。低频 SQL 的采样率接近上限，热点 SQL 被按频率压低。
+ * 每个 1 秒窗口结束时按 {@code clamp(target / overhead, 0.5, 2)} 调整 k，使总体开销趋近目标百分比。
+ * </p>
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+public class AdaptiveSampler {
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final double EWMA_ALPHA = 0.3;
+    private static final double MIN_K = 0.001;
+    private static final double MAX_K = 1000.0;
+    private static final double MIN_FACTOR = 0.5;
+    private static final double MAX_FACTOR = 2.0;
+
+    /**
+     * 单独统计的 sqlId 上限，超出后共用一个统计槽，避免 sqlId 无界增长
+     */
+    private static final int MAX_TRACKED_IDS = 4096;
+
+    private final double targetOverhead;
+    private final double maxRate;
+
+    private final Map<String, RateState> states = new ConcurrentHashMap<>();
+    private final RateState overflow = new RateState(System.nanoTime());
+
+    private final LongAdder bizNanos = new LongAdder();
+    private final LongAdder analysisNanos = new LongAdder();
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+
+    private volatile double k = 1.0;
+    private volatile double lastOverhead = 0.0;
+
+    /**
+     * @param targetOverheadPercent 目标开销百分比（如 1 表示分析耗时不超过业务耗时的 1%）
+     * @param maxRate               单个 sqlId 的采样率上限（0~1）
+     */
+    public AdaptiveSampler(double targetOverheadPercent, double maxRate) {
+        this.targetOverhead = Math.max(targetOverheadPercent, 0.0001) / 100.0;
+        this.maxRate = Math.max(0.0, Math.min(1.0, maxRate));
+    }
+
+    /**
+     * 记录一次执行并判断是否采样
+     *
+     * @param sqlId SQL标识符
+     * @return true表示采样通过
+     */
+    public boolean sample(String sqlId) {
+        long now = System.nanoTime();
+        rollWindow(now);
+        RateState state = stateOf(sqlId, now);
+        state.count.increment();
+        state.roll(now);
+        double execRate = state.rate;
+        double rate = execRate <= k ? maxRate : Math.min(maxRate, k / execRate);
+        if (rate >= 1.0)
+            return true;
+        if (rate <= 0.0)
+            return false;
+        return ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    /**
+     * 记录业务SQL执行耗时
+     *
+     * @param nanos 执行耗时（纳秒）
+     */
+    public void recordExecution(long nanos) {
+        if (nanos > 0)
+            bizNanos.add(nanos);
+    }
+
+    /**
+     * 记录分析（EXPLAIN + 评分 + 输出）耗时
+     *
+     * @param nanos 分析耗时（纳秒）
+     */
+    public void recordAnalysis(long nanos) {
+        if (nanos > 0)
+            analysisNanos.add(nanos);
+    }
+
+    /**
+     * @return 当前每个 sqlId 每秒期望分析次数
+     */
+    public double getK() {
+        return k;
+    }
+
+    /**
+     * @return 上一窗口的分析开销比例（分析耗时 / 业务耗时）
+     */
+    public double getLastOverhead() {
+        return lastOverhead;
+    }
+
+    private RateState stateOf(String sqlId, long now) {
+        String key = sqlId == null ? "" : sqlId;
+        RateState state = states.get(key);
+        if (state != null)
+            return state;
+        if (states.size() >= MAX_TRACKED_IDS)
+            return overflow;
+        return states.computeIfAbsent(key, x -> new RateState(now));
+    }
+
+    /**
+     * 窗口结束时由一个线程（CAS 胜出者）根据开销反馈调整 k
+     */
+    private void rollWindow(long now) {
+        long start = windowStart.get();
+        if (now - start < WINDOW_NANOS || !windowStart.compareAndSet(start, now))
+            return;
+        long biz = bizNanos.sumThenReset();
+        long ana = analysisNanos.sumThenReset();
+        if (biz <= 0)
+            return;
+        double overhead = (double) ana / biz;
+        lastOverhead = overhead;
+        double factor = overhead <= 0 ? MAX_FACTOR : Math.max(MIN_FACTOR, Math.min(MAX_FACTOR, targetOverhead / overhead));
+        k = Math.max(MIN_K, Math.min(MAX_K, k * factor));
+    }
+
+    /**
+     * 单个 sqlId 的执行频率统计
+     */
+    private static final class RateState {
+        final LongAdder count = new LongAdder();
+        final AtomicLong windowStart;
+        volatile double rate;
+
+        RateState(long now) {
+            this.windowStart = new AtomicLong(now);
+        }
+
+        void roll(long now) {
+            long start = windowStart.get();
+            long elapsed = now - start;
+            if (elapsed < WINDOW_NANOS || !windowStart.compareAndSet(start, now))
+                return;
+            double current = count.sumThenReset() * (double) WINDOW_NANOS / elapsed;
+            double prev = rate;
+            rate = prev == 0 ? current : prev + EWMA_ALPHA * (current - prev);
+        }
+    }
+}
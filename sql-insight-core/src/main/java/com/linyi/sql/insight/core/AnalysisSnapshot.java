@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.linyi.sql.insight.core;
+
+/**
+ * 异步分析模式下由拦截器采集的不可变快照：只包含后续 EXPLAIN 所需的信息，不持有 JDBC 资源。
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+public final class AnalysisSnapshot {
+
+    /**
+     * SQL ID
+     */
+    private final String sqlId;
+
+    /**
+     * 脱敏后的 SQL
+     */
+    private final String sql;
+
+    /**
+     * SQL 指纹（十六进制）
+     */
+    private final String fingerprint;
+
+    /**
+     * 已填充参数、可直接 EXPLAIN 的 SQL
+     */
+    private final String explainSql;
+
+    /**
+     * 开始时间（毫秒时间戳）
+     */
+    private final long startTime;
+
+    /**
+     * 业务执行耗时（毫秒）
+     */
+    private final long bizCostMs;
+
+    /**
+     * 返回/影响行数，-1 表示未知
+     */
+    private final long rowCount;
+
+    public AnalysisSnapshot(String sqlId, String sql, String fingerprint, String explainSql, long startTime,
+            long bizCostMs) {
+        this(sqlId, sql, fingerprint, explainSql, startTime, bizCostMs, -1L);
+    }
+
+    public AnalysisSnapshot(String sqlId, String sql, String fingerprint, String explainSql, long startTime,
+            long bizCostMs, long rowCount) {
+        this.sqlId = sqlId;
+        this.sql = sql;
+        this.fingerprint = fingerprint;
+        this.explainSql = explainSql;
+        this.startTime = startTime;
+        this.bizCostMs = bizCostMs;
+        this.rowCount = rowCount;
+    }
+
+    public String getSqlId() {
+        return sqlId;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public String getExplainSql() {
+        return explainSql;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getBizCostMs() {
+        return bizCostMs;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+}
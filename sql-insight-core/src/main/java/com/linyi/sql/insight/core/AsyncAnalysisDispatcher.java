@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.linyi.sql.insight.core;
+
+import com.linyi.sql.insight.util.LogLimiterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 异步分析调度器：拦截器仅将 {@link AnalysisSnapshot} 放入有界队列，
+ * 由专用分析线程消费，并从独立配置的分析 DataSource 借用连接执行 EXPLAIN。
+ * 队列满时直接丢弃（计数），保证业务线程不阻塞、不访问 JDBC。
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+public class AsyncAnalysisDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncAnalysisDispatcher.class);
+
+    /**
+     * 分析处理器：在分析线程上使用借用的连接完成 EXPLAIN/评分/输出。
+     */
+    public interface Handler {
+        void analyze(Connection connection, AnalysisSnapshot snapshot) throws Exception;
+    }
+
+    private final DataSource dataSource;
+    private final BlockingQueue<AnalysisSnapshot> queue;
+    private final Handler handler;
+    private final Thread[] workers;
+    private final ThreadFactory threadFactory;
+    private final LogLimiterUtils limiter = new LogLimiterUtils(5000);
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile boolean running;
+
+    public AsyncAnalysisDispatcher(DataSource dataSource, int queueCapacity, int workerThreads, Handler handler) {
+        this(dataSource, queueCapacity, workerThreads, handler, null);
+    }
+
+    /**
+     * @param threadFactory 分析线程工厂（如虚拟线程工厂），为null时使用守护平台线程
+     */
+    public AsyncAnalysisDispatcher(DataSource dataSource, int queueCapacity, int workerThreads, Handler handler,
+                                   ThreadFactory threadFactory) {
+        this.dataSource = dataSource;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.handler = handler;
+        this.workers = new Thread[Math.max(1, workerThreads)];
+        this.threadFactory = threadFactory;
+    }
+
+    /**
+     * 启动分析线程（守护线程或线程工厂创建的线程），重复调用无副作用
+     */
+    public synchronized void start() {
+        if (running)
+            return;
+        running = true;
+        for (int i = 0; i < workers.length; i++) {
+            Thread t;
+            if (threadFactory != null) {
+                t = threadFactory.newThread(this::runLoop);
+            } else {
+                t = new Thread(this::runLoop, "sql-insight-analysis-" + i);
+                t.setDaemon(true);
+            }
+            workers[i] = t;
+            t.start();
+        }
+    }
+
+    /**
+     * 提交分析快照（非阻塞）
+     *
+     * @param snapshot 分析快照
+     * @return true表示入队成功，false表示队列已满或调度器未运行而被丢弃
+     */
+    public boolean submit(AnalysisSnapshot snapshot) {
+        if (snapshot == null)
+            return false;
+        if (!running || !queue.offer(snapshot)) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        submitted.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * 停止分析线程，队列中剩余的快照将被丢弃
+     */
+    public synchronized void shutdown() {
+        if (!running)
+            return;
+        running = false;
+        for (Thread t : workers) {
+            if (t != null)
+                t.interrupt();
+        }
+        dropped.addAndGet(queue.size());
+        queue.clear();
+    }
+
+    /**
+     * 分析线程主循环：取出快照并借用分析连接执行
+     */
+    private void runLoop() {
+        while (running) {
+            AnalysisSnapshot snapshot;
+            try {
+                snapshot = queue.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (snapshot == null)
+                continue;
+            try (Connection conn = dataSource.getConnection()) {
+                handler.analyze(conn, snapshot);
+            } catch (Throwable e) {
+                failed.incrementAndGet();
+                if (limiter.allow(e.getClass().getName())) {
+                    log.warn("[SqlInsight] async analysis failed: sqlId={}, ex={}", snapshot.getSqlId(), e.toString());
+                }
+            }
+        }
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.linyi.sql.insight.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 组合重写策略：按顺序依次应用多个 {@link SqlRewriteStrategy}，前一个的输出作为后一个的输入。
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+public class CompositeSqlRewriteStrategy implements SqlRewriteStrategy {
+
+    private final SqlRewriteStrategy[] strategies;
+
+    public CompositeSqlRewriteStrategy(List<? extends SqlRewriteStrategy> strategies) {
+        List<SqlRewriteStrategy> list = new ArrayList<>();
+        if (strategies != null) {
+            for (SqlRewriteStrategy s : strategies) {
+                if (s != null)
+                    list.add(s);
+            }
+        }
+        this.strategies = list.toArray(new SqlRewriteStrategy[0]);
+    }
+
+    /**
+     * 组合多个策略；仅有一个时直接返回该策略，没有时返回null
+     *
+     * @param strategies 策略列表
+     * @return 组合后的策略
+     */
+    public static SqlRewriteStrategy of(List<? extends SqlRewriteStrategy> strategies) {
+        CompositeSqlRewriteStrategy composite = new CompositeSqlRewriteStrategy(strategies);
+        if (composite.strategies.length == 0)
+            return null;
+        if (composite.strategies.length == 1)
+            return composite.strategies[0];
+        return composite;
+    }
+
+    @Override
+    public String rewrite(String sqlId, String sql) {
+        String current = sql;
+        for (SqlRewriteStrategy s : strategies) {
+            String next = s.rewrite(sqlId, current);
+            if (next != null)
+                current = next;
+        }
+        return current;
+    }
+
+    public List<SqlRewriteStrategy> getStrategies() {
+        List<SqlRewriteStrategy> list = new ArrayList<>(strategies.length);
+        Collections.addAll(list, strategies);
+        return list;
+    }
+}
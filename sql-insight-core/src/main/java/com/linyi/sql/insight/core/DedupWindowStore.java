@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.linyi.sql.insight.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * onlyCheckOnce 去重窗口存储：固定容量、分段加锁、原始类型数组实现，内存上限在构造时即确定
+ * （每个条目 16 字节），不随不同 SQL 形态的数量增长。
+ * <p>
+ * 每个分段是一张开放寻址表，键为 64 位组合指纹，值为上次检查时间。插入时在探测窗口内
+ * 优先复用空槽，其次复用已过期的槽（惰性过期），都没有时淘汰窗口内最久未检查的条目。
+ * </p>
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+public class DedupWindowStore {
+
+    /**
+     * 每次查找/插入的最大探测长度
+     */
+    private static final int PROBE_LIMIT = 8;
+
+    /**
+     * 空槽标记（键为0时映射为1）
+     */
+    private static final long EMPTY = 0L;
+
+    /**
+     * 条目数硬上限（约 1GB 内存），防止误配置
+     */
+    private static final int MAX_ENTRIES = 1 << 26;
+
+    private final Segment[] segments;
+    private final int segmentShift;
+    private final int capacity;
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    /**
+     * @param maxEntries  最大条目数（向上取整为2的幂）
+     * @param concurrency 分段数（向上取整为2的幂）
+     */
+    public DedupWindowStore(int maxEntries, int concurrency) {
+        int segCount = ceilPowerOfTwo(Math.max(1, Math.min(concurrency, 256)));
+        int entries = Math.max(1, Math.min(maxEntries, MAX_ENTRIES));
+        int perSegment = ceilPowerOfTwo(Math.max(PROBE_LIMIT, entries / segCount));
+        this.segments = new Segment[segCount];
+        for (int i = 0; i < segCount; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+        this.segmentShift = 64 - Integer.numberOfTrailingZeros(segCount);
+        this.capacity = perSegment * segCount;
+    }
+
+    /**
+     * 判断键在时间窗口内是否首次出现，首次出现（或已超过窗口）时记录当前时间
+     *
+     * @param key        组合指纹
+     * @param now        当前时间（毫秒）
+     * @param intervalMs 去重窗口（毫秒）
+     * @return true表示非重复（应分析），false表示窗口内重复
+     */
+    public boolean tryAcquire(long key, long now, long intervalMs) {
+        if (key == EMPTY)
+            key = 1L;
+        Segment seg = segments.length == 1 ? segments[0] : segments[(int) (key >>> segmentShift)];
+        synchronized (seg) {
+            long[] keys = seg.keys;
+            long[] stamps = seg.stamps;
+            int mask = keys.length - 1;
+            int idx = (int) key & mask;
+            int expiredSlot = -1;
+            int oldestSlot = idx;
+            long oldestStamp = Long.MAX_VALUE;
+            for (int p = 0; p < PROBE_LIMIT; p++) {
+                int i = (idx + p) & mask;
+                long k = keys[i];
+                if (k == key) {
+                    if (now - stamps[i] >= intervalMs) {
+                        stamps[i] = now;
+                        return true;
+                    }
+                    return false;
+                }
+                if (k == EMPTY) {
+                    // 槽位只会被覆盖、不会被清空，遇到空槽说明键不在表中
+                    keys[i] = key;
+                    stamps[i] = now;
+                    seg.size++;
+                    return true;
+                }
+                if (expiredSlot < 0 && now - stamps[i] >= intervalMs) {
+                    expiredSlot = i;
+                }
+                if (stamps[i] < oldestStamp) {
+                    oldestStamp = stamps[i];
+                    oldestSlot = i;
+                }
+            }
+            int slot;
+            if (expiredSlot >= 0) {
+                slot = expiredSlot;
+                expirations.incrementAndGet();
+            } else {
+                slot = oldestSlot;
+                evictions.incrementAndGet();
+            }
+            keys[slot] = key;
+            stamps[slot] = now;
+            return true;
+        }
+    }
+
+    /**
+     * 撤销键的检查记录（如后续流控拒绝了本次分析），使其下次出现时不被视为重复
+     *
+     * @param key 组合指纹
+     */
+    public void reset(long key) {
+        if (key == EMPTY)
+            key = 1L;
+        Segment seg = segments.length == 1 ? segments[0] : segments[(int) (key >>> segmentShift)];
+        synchronized (seg) {
+            long[] keys = seg.keys;
+            int mask = keys.length - 1;
+            int idx = (int) key & mask;
+            for (int p = 0; p < PROBE_LIMIT; p++) {
+                int i = (idx + p) & mask;
+                if (keys[i] == key) {
+                    seg.stamps[i] = Long.MIN_VALUE / 2;
+                    return;
+                }
+                if (keys[i] == EMPTY)
+                    return;
+            }
+        }
+    }
+
+    /**
+     * @return 当前已占用的条目数
+     */
+    public int size() {
+        int total = 0;
+        for (Segment seg : segments) {
+            synchronized (seg) {
+                total += seg.size;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return 最大条目数（内存上限约为 capacity * 16 字节）
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return 因探测窗口已满而被淘汰的未过期条目数
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * @return 被复用的已过期条目数
+     */
+    public long getExpirationCount() {
+        return expirations.get();
+    }
+
+    private static int ceilPowerOfTwo(int v) {
+        int n = Integer.highestOneBit(v);
+        return n == v ? v : n << 1;
+    }
+
+    /**
+     * 分段：开放寻址表
+     */
+    private static final class Segment {
+        final long[] keys;
+        final long[] stamps;
+        int size;
+
+        Segment(int capacity) {
+            this.keys = new long[capacity];
+            this.stamps = new long[capacity];
+        }
+    }
+}
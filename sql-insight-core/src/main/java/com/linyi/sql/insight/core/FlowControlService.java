@@ -23,13 +23,27 @@
 package com.linyi.sql.insight.core;
 
 import com.linyi.sql.insight.config.SqlAnalysisProperties;
+import com.linyi.sql.insight.extract.SqlFingerprinter;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * 基础流控：采样 + onlyCheckOnce 去重（时间窗口）。
+ * 基础流控：采样 + onlyCheckOnce 去重（时间窗口，固定容量存储）+ EXPLAIN 预算。
+ * <p>
+ * 预算包括全局与按 sqlId 的每秒 EXPLAIN 次数（无锁令牌桶）以及同时进行中的分析数上限，
+ * 无论业务 QPS 多高，分析器对数据库带来的额外负载都有确定的上限。预算仅在计划缓存未命中、
+ * 真正执行 EXPLAIN 前扣减（见 {@link #tryBeginExplain}）。各类拒绝均计数。
+ * </p>
+ * <p>
+ * 采样模式 {@code samplingMode=ADAPTIVE} 时改用 {@link AdaptiveSampler}：按 sqlId 频率与实测分析开销动态调整采样率，
+ * 此时 samplingRate 作为单个 sqlId 的采样率上限。
+ * {@code samplingMode=LATENCY} 时改用 {@link LatencySampler}：慢 SQL（超过阈值或指纹 p95）必采，
+ * 其余按 samplingRate 采样；该模式依赖执行后的实测耗时。
+ * </p>
  *
  * @author linyi
  * @since 1.0.0
@@ -37,10 +51,70 @@ import java.util.concurrent.ThreadLocalRandom;
 public class FlowControlService {
 
     private final SqlAnalysisProperties properties;
-    private final Map<String, Long> lastCheckTimeByKey = new ConcurrentHashMap<>();
+    private final DedupWindowStore dedupStore;
+    private final TokenBucket globalBudget;
+    private final Map<String, TokenBucket> sqlIdBudgets = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AdaptiveSampler adaptiveSampler;
+    private final LatencySampler latencySampler;
+
+    // 拒绝计数
+    private final AtomicLong sampledOut = new AtomicLong();
+    private final AtomicLong duplicated = new AtomicLong();
+    private final AtomicLong globalBudgetRejected = new AtomicLong();
+    private final AtomicLong sqlIdBudgetRejected = new AtomicLong();
+    private final AtomicLong concurrencyRejected = new AtomicLong();
 
     public FlowControlService(SqlAnalysisProperties properties) {
         this.properties = properties;
+        this.dedupStore = new DedupWindowStore(properties.getDedupMaxEntries(),
+                Runtime.getRuntime().availableProcessors() * 4);
+        double budget = properties.getExplainBudgetPerSecond();
+        this.globalBudget = budget > 0 ? TokenBucket.perSecond(budget) : null;
+        this.adaptiveSampler = "ADAPTIVE".equalsIgnoreCase(properties.getSamplingMode())
+                ? new AdaptiveSampler(properties.getTargetOverheadPercent(), properties.getSamplingRate())
+                : null;
+        this.latencySampler = "LATENCY".equalsIgnoreCase(properties.getSamplingMode())
+                ? new LatencySampler(properties.getSlowThresholdMs(), properties.getSamplingRate())
+                : null;
+    }
+
+    public DedupWindowStore getDedupStore() {
+        return dedupStore;
+    }
+
+    /**
+     * @return 自适应采样器，非 ADAPTIVE 模式时为null
+     */
+    public AdaptiveSampler getAdaptiveSampler() {
+        return adaptiveSampler;
+    }
+
+    /**
+     * @return 延迟偏向采样器，非 LATENCY 模式时为null
+     */
+    public LatencySampler getLatencySampler() {
+        return latencySampler;
+    }
+
+    /**
+     * 上报一次业务SQL执行耗时（用于自适应采样的开销计算）
+     *
+     * @param nanos 执行耗时（纳秒）
+     */
+    public void recordExecution(long nanos) {
+        if (adaptiveSampler != null)
+            adaptiveSampler.recordExecution(nanos);
+    }
+
+    /**
+     * 上报一次分析耗时（用于自适应采样的开销计算）
+     *
+     * @param nanos 分析耗时（纳秒）
+     */
+    public void recordAnalysis(long nanos) {
+        if (adaptiveSampler != null)
+            adaptiveSampler.recordAnalysis(nanos);
     }
 
     /**
@@ -51,26 +125,168 @@ public class FlowControlService {
      * @return true表示应该分析该SQL，false表示不应该分析
      */
     public boolean shouldAnalyze(String sqlId, String sql) {
+        return shouldAnalyze(sqlId, SqlFingerprinter.fingerprint(sql));
+    }
+
+    /**
+     * 判断是否应该分析指定的SQL
+     *
+     * @param sqlId       SQL的唯一标识符
+     * @param fingerprint SQL指纹（见 {@link SqlFingerprinter}）
+     * @return true表示应该分析该SQL，false表示不应该分析
+     */
+    public boolean shouldAnalyze(String sqlId, long fingerprint) {
+        return shouldAnalyze(sqlId, fingerprint, -1L);
+    }
+
+    /**
+     * 判断是否应该分析指定的SQL（执行后调用，LATENCY 模式按实测耗时决定采样）
+     *
+     * @param sqlId       SQL的唯一标识符
+     * @param fingerprint SQL指纹
+     * @param execNanos   本次执行耗时（纳秒），<0 表示未知
+     * @return true表示应该分析该SQL，false表示不应该分析
+     */
+    public boolean shouldAnalyze(String sqlId, long fingerprint, long execNanos) {
         // 检查采样是否通过
-        if (!samplingPass()) {
+        if (!samplingPass(sqlId, fingerprint, execNanos)) {
+            sampledOut.incrementAndGet();
             return false;
         }
 
         // 如果配置为只检查一次，则检查在指定时间间隔内是否重复
         if (properties.isOnlyCheckOnce()) {
-            return notDuplicateWithinInterval(sqlId, sql, properties.getCheckIntervalMs());
+            long dedupKey = SqlFingerprinter.combine(fingerprint, sqlId);
+            if (!notDuplicateWithinInterval(dedupKey, properties.getCheckIntervalMs())) {
+                duplicated.incrementAndGet();
+                return false;
+            }
         }
+        return true;
+    }
 
+
+    /**
+     * 开始一次 EXPLAIN（计划缓存未命中、即将真正执行 EXPLAIN 时调用，缓存命中不消耗预算）：
+     * 先申请并发名额，再扣减预算；成功后必须调用 {@link #endAnalysis()} 归还名额
+     * <p>
+     * 被并发上限或预算拒绝时不占用名额、不消耗令牌，并撤销去重记录，下次出现时仍可分析。
+     * </p>
+     *
+     * @param sqlId       SQL的唯一标识符
+     * @param fingerprint SQL指纹
+     * @return true表示可以执行 EXPLAIN，false表示被并发上限或预算拒绝
+     */
+    public boolean tryBeginExplain(String sqlId, long fingerprint) {
+        if (tryBeginAnalysis()) {
+            if (budgetPass(sqlId))
+                return true;
+            endAnalysis();
+        }
+        if (properties.isOnlyCheckOnce()) {
+            dedupStore.reset(SqlFingerprinter.combine(fingerprint, sqlId));
+        }
+        return false;
+    }
+
+
+    /**
+     * 申请一个分析并发名额（在实际执行 EXPLAIN 前调用），成功后必须调用 {@link #endAnalysis()} 归还
+     *
+     * @return true表示获得名额，false表示并发已达上限
+     */
+    public boolean tryBeginAnalysis() {
+        int max = properties.getMaxConcurrentAnalyses();
+        if (max <= 0) {
+            inFlight.incrementAndGet();
+            return true;
+        }
+        while (true) {
+            int cur = inFlight.get();
+            if (cur >= max) {
+                concurrencyRejected.incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(cur, cur + 1))
+                return true;
+        }
+    }
+
+
+    /**
+     * 归还分析并发名额
+     */
+    public void endAnalysis() {
+        inFlight.decrementAndGet();
+    }
+
+
+    /**
+     * 检查 EXPLAIN 预算（先全局，再按 sqlId；sqlId 预算拒绝时归还已取得的全局令牌）
+     *
+     * @param sqlId SQL标识符
+     * @return true表示预算内，false表示超出预算
+     */
+    private boolean budgetPass(String sqlId) {
+        if (globalBudget != null && !globalBudget.tryAcquire()) {
+            globalBudgetRejected.incrementAndGet();
+            return false;
+        }
+        double perSqlId = properties.getExplainBudgetPerSqlIdPerSecond();
+        if (perSqlId > 0) {
+            TokenBucket bucket = sqlIdBudgets.computeIfAbsent(sqlId == null ? "" : sqlId,
+                    k -> TokenBucket.perSecond(perSqlId));
+            if (!bucket.tryAcquire()) {
+                if (globalBudget != null) {
+                    globalBudget.refund();
+                }
+                sqlIdBudgetRejected.incrementAndGet();
+                return false;
+            }
+        }
         return true;
     }
 
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    public long getSampledOutCount() {
+        return sampledOut.get();
+    }
+
+    public long getDuplicatedCount() {
+        return duplicated.get();
+    }
+
+    public long getGlobalBudgetRejectedCount() {
+        return globalBudgetRejected.get();
+    }
+
+    public long getSqlIdBudgetRejectedCount() {
+        return sqlIdBudgetRejected.get();
+    }
+
+    public long getConcurrencyRejectedCount() {
+        return concurrencyRejected.get();
+    }
+
 
     /**
      * 执行采样判断，根据配置的采样率决定是否通过采样
      *
+     * @param sqlId       SQL标识符（自适应模式按其统计频率）
+     * @param fingerprint SQL指纹（延迟偏向模式按其统计 p95）
+     * @param execNanos   本次执行耗时（纳秒），<0 表示未知
      * @return true表示通过采样，false表示未通过采样
      */
-    private boolean samplingPass() {
+    private boolean samplingPass(String sqlId, long fingerprint, long execNanos) {
+        // 自适应模式：按 sqlId 频率与开销反馈采样
+        if (adaptiveSampler != null)
+            return adaptiveSampler.sample(sqlId);
+        // 延迟偏向模式：慢 SQL 必采
+        if (latencySampler != null)
+            return latencySampler.sample(fingerprint, execNanos);
         // get采样率
         double rate = properties.getSamplingRate();
         // 采样率大于等于1时， always pass（总是通过）
@@ -87,37 +303,13 @@ public class FlowControlService {
     /**
      * 检查SQL在指定时间间隔内是否为非重复执行
      *
-     * @param sqlId      SQL标识符，用于区分不同的SQL语句
-     * @param sql        SQL语句内容
+     * @param key        去重键：sqlId混入SQL指纹（同一查询形态取值相同）
      * @param intervalMs 时间间隔（毫秒），用于判断是否为重复执行
      * @return 如果在指定时间间隔内没有重复执行则返回true，否则返回false
      */
-    private boolean notDuplicateWithinInterval(String sqlId, String sql, long intervalMs) {
-        // TODO 2025/10/30  内存泄漏风险 无清理机制 内存无限增长（改进建议：添加LRU淘汰机制 定期清理过期数据 使用WeakHashMap）
-        // 构造唯一键值：sqlId和sql内容的哈希值组合
-        String key = (sqlId == null ? "" : sqlId) + "#" + safeHash(sql);
-        long now = System.currentTimeMillis();
-        // 记录当前时间并获取上次检查时间
-        Long last = lastCheckTimeByKey.put(key, now);
-        if (last == null)
-            return true;
-        // 判断距离上次执行的时间间隔是否超过指定阈值
-        return now - last >= intervalMs;
-    }
-
-
-    /**
-     * 安全地计算字符串的哈希值并返回十六进制表示
-     *
-     * @param s 输入的字符串，可以为null
-     * @return 字符串哈希值的十六进制表示，如果输入为null则返回"0"
-     */
-    private String safeHash(String s) {
-        // 处理空值情况，避免空指针异常
-        if (s == null)
-            return "0";
-        // 将字符串的哈希码转换为十六进制字符串
-        return Integer.toHexString(s.hashCode());
+    private boolean notDuplicateWithinInterval(long key, long intervalMs) {
+        // 固定容量存储：首次出现或距离上次检查超过阈值时返回true并记录当前时间
+        return dedupStore.tryAcquire(key, System.currentTimeMillis(), intervalMs);
     }
 
 }
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.linyi.sql.insight.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁、固定内存的对数-线性延迟直方图（HdrHistogram 风格）。
+ * <p>
+ * 以微秒为单位记录：每个 2 的幂区间再线性划分为 16 个子桶，相对误差不超过 1/16；
+ * 超过约 19 小时的值计入最后一个桶。记录只做一次原子自增，总数与最大值在快照时由桶计算得到。
+ * </p>
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+
+    /**
+     * 可区分的最大值：2^36 微秒
+     */
+    private static final int MAX_EXPONENT = 36;
+
+    static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BITS + 1) * SUB_COUNT + SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * 记录一次耗时
+     *
+     * @param nanos 耗时（纳秒），负数忽略
+     */
+    public void record(long nanos) {
+        if (nanos < 0)
+            return;
+        counts.incrementAndGet(index(nanos / 1000L));
+    }
+
+    /**
+     * @return 当前计数的快照（不影响后续记录）
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new Snapshot(copy);
+    }
+
+    /**
+     * 取快照并清零，快照与清零之间的记录不会丢失
+     *
+     * @return 清零前的计数快照
+     */
+    public Snapshot snapshotAndReset() {
+        long[] copy = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.getAndSet(i, 0L);
+        }
+        return new Snapshot(copy);
+    }
+
+    /**
+     * 清零所有计数
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0L);
+        }
+    }
+
+    static int index(long micros) {
+        if (micros < SUB_COUNT)
+            return (int) micros;
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT)
+            return BUCKET_COUNT - 1;
+        int shift = exponent - SUB_BITS;
+        return (shift + 1) * SUB_COUNT + (int) (micros >>> shift) - SUB_COUNT;
+    }
+
+    /**
+     * 桶的上界（微秒，含）
+     */
+    static long upperBound(int index) {
+        if (index < SUB_COUNT)
+            return index;
+        int shift = index / SUB_COUNT - 1;
+        long sub = index % SUB_COUNT + SUB_COUNT;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * 不可变的直方图快照，可合并
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long total;
+
+        private Snapshot(long[] counts) {
+            this.counts = counts;
+            long sum = 0;
+            for (long c : counts) {
+                sum += c;
+            }
+            this.total = sum;
+        }
+
+        /**
+         * @return 空快照
+         */
+        public static Snapshot empty() {
+            return new Snapshot(new long[BUCKET_COUNT]);
+        }
+
+        /**
+         * 合并另一个快照，返回新快照
+         *
+         * @param other 另一个快照，为null时返回自身
+         * @return 合并结果
+         */
+        public Snapshot merge(Snapshot other) {
+            if (other == null || other.total == 0)
+                return this;
+            long[] merged = new long[BUCKET_COUNT];
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                merged[i] = counts[i] + other.counts[i];
+            }
+            return new Snapshot(merged);
+        }
+
+        /**
+         * 减去较早的快照，得到两次快照之间的增量（各桶下限为 0）
+         *
+         * @param base 较早的快照，为null时返回自身
+         * @return 增量快照
+         */
+        public Snapshot minus(Snapshot base) {
+            if (base == null || base.total == 0)
+                return this;
+            long[] delta = new long[BUCKET_COUNT];
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                delta[i] = Math.max(0L, counts[i] - base.counts[i]);
+            }
+            return new Snapshot(delta);
+        }
+
+        public long getCount() {
+            return total;
+        }
+
+        /**
+         * 计算分位值
+         *
+         * @param quantile 分位（0~1）
+         * @return 分位值（毫秒，桶上界），无数据时为 0
+         */
+        public double percentileMs(double quantile) {
+            if (total == 0)
+                return 0.0;
+            long rank = Math.max(1L, (long) Math.ceil(Math.min(1.0, Math.max(0.0, quantile)) * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += counts[i];
+                if (seen >= rank)
+                    return upperBound(i) / 1000.0;
+            }
+            return getMaxMs();
+        }
+
+        /**
+         * @return 最大值所在桶的上界（毫秒），无数据时为 0
+         */
+        public double getMaxMs() {
+            for (int i = BUCKET_COUNT - 1; i >= 0; i--) {
+                if (counts[i] != 0)
+                    return upperBound(i) / 1000.0;
+            }
+            return 0.0;
+        }
+    }
+}
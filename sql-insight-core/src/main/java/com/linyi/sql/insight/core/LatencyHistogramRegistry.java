@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.linyi.sql.insight.core;
+
+import com.linyi.sql.insight.extract.SqlFingerprinter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按 SQL 指纹 + sqlId 维护的执行耗时直方图集合。
+ * <p>
+ * 跟踪的键数有上限，超出后新的键统一计入溢出直方图（sqlId 为 {@value #OVERFLOW_KEY}），总内存固定。
+ * 汇总快照按固定窗口滚动：每个窗口结束时记下累计快照，Gauge 读到的是上一个完整窗口内的增量，
+ * 而不是启动以来的全部执行。
+ * </p>
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+public class LatencyHistogramRegistry {
+
+    public static final String OVERFLOW_KEY = "_other";
+
+    /**
+     * 汇总窗口默认长度：60 秒
+     */
+    public static final long DEFAULT_WINDOW_MILLIS = 60_000L;
+
+    private final int maxKeys;
+    private final long windowNanos;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Entry overflow = new Entry(OVERFLOW_KEY, null);
+
+    // 上次滚动时的累计快照、上一个完整窗口的增量（尚无完整窗口时为null）、上次滚动时间
+    private LatencyHistogram.Snapshot windowBase = LatencyHistogram.Snapshot.empty();
+    private LatencyHistogram.Snapshot windowRecent;
+    private long rotatedAt = System.nanoTime();
+
+    /**
+     * @param maxKeys 最多跟踪的指纹 + sqlId 组合数
+     */
+    public LatencyHistogramRegistry(int maxKeys) {
+        this(maxKeys, DEFAULT_WINDOW_MILLIS);
+    }
+
+    /**
+     * @param maxKeys      最多跟踪的指纹 + sqlId 组合数
+     * @param windowMillis 汇总窗口长度（毫秒）
+     */
+    public LatencyHistogramRegistry(int maxKeys, long windowMillis) {
+        this.maxKeys = Math.max(1, maxKeys);
+        this.windowNanos = Math.max(1L, windowMillis) * 1_000_000L;
+    }
+
+    /**
+     * 记录一次执行耗时
+     *
+     * @param sqlId       SQL标识符
+     * @param fingerprint SQL指纹
+     * @param nanos       执行耗时（纳秒）
+     */
+    public void record(String sqlId, long fingerprint, long nanos) {
+        long key = SqlFingerprinter.combine(fingerprint, sqlId);
+        Entry e = entries.get(key);
+        if (e == null) {
+            if (entries.size() >= maxKeys) {
+                e = overflow;
+            } else {
+                e = entries.computeIfAbsent(key, k -> new Entry(sqlId, SqlFingerprinter.toHex(fingerprint)));
+            }
+        }
+        e.histogram.record(nanos);
+    }
+
+    /**
+     * 各键的分位汇总
+     *
+     * @param limit 返回条数上限，按 p99 降序，<=0 表示不限
+     * @return 汇总列表
+     */
+    public List<Summary> summaries(int limit) {
+        List<Summary> list = new ArrayList<>(entries.size() + 1);
+        for (Entry e : entries.values()) {
+            LatencyHistogram.Snapshot s = e.histogram.snapshot();
+            if (s.getCount() > 0)
+                list.add(new Summary(e.sqlId, e.fingerprint, s));
+        }
+        LatencyHistogram.Snapshot o = overflow.histogram.snapshot();
+        if (o.getCount() > 0)
+            list.add(new Summary(overflow.sqlId, null, o));
+        list.sort(Comparator.comparingDouble(Summary::getP99).reversed());
+        return limit > 0 && list.size() > limit ? new ArrayList<>(list.subList(0, limit)) : list;
+    }
+
+    /**
+     * 最近一个完整窗口内所有键合并后的快照；第一个窗口结束前返回当前窗口已记录的部分。
+     * <p>
+     * 窗口在读取时惰性滚动，两次读取间隔超过一个窗口时，增量覆盖自上次滚动以来的全部执行。
+     * </p>
+     *
+     * @return 窗口快照
+     */
+    public synchronized LatencyHistogram.Snapshot recent() {
+        long now = System.nanoTime();
+        if (now - rotatedAt >= windowNanos) {
+            LatencyHistogram.Snapshot total = merged();
+            windowRecent = total.minus(windowBase);
+            windowBase = total;
+            rotatedAt = now;
+        } else if (windowRecent == null) {
+            return merged().minus(windowBase);
+        }
+        return windowRecent;
+    }
+
+    /**
+     * 清零所有直方图并移除已跟踪的键
+     */
+    public void reset() {
+        entries.clear();
+        overflow.histogram.reset();
+        synchronized (this) {
+            windowBase = LatencyHistogram.Snapshot.empty();
+            windowRecent = null;
+            rotatedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * @return 当前跟踪的键数
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return 所有键自启动（或上次 reset）以来的累计合并快照
+     */
+    private LatencyHistogram.Snapshot merged() {
+        LatencyHistogram.Snapshot merged = overflow.histogram.snapshot();
+        for (Entry e : entries.values()) {
+            merged = merged.merge(e.histogram.snapshot());
+        }
+        return merged;
+    }
+
+    private static final class Entry {
+        final String sqlId;
+        final String fingerprint;
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        Entry(String sqlId, String fingerprint) {
+            this.sqlId = sqlId;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    /**
+     * 单个键的分位汇总（毫秒）
+     */
+    public static final class Summary {
+        private final String sqlId;
+        private final String fingerprint;
+        private final long count;
+        private final double p50;
+        private final double p95;
+        private final double p99;
+        private final double max;
+
+        Summary(String sqlId, String fingerprint, LatencyHistogram.Snapshot s) {
+            this.sqlId = sqlId;
+            this.fingerprint = fingerprint;
+            this.count = s.getCount();
+            this.p50 = s.percentileMs(0.50);
+            this.p95 = s.percentileMs(0.95);
+            this.p99 = s.percentileMs(0.99);
+            this.max = s.getMaxMs();
+        }
+
+        public String getSqlId() {
+            return sqlId;
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getP50() {
+            return p50;
+        }
+
+        public double getP95() {
+            return p95;
+        }
+
+        public double getP99() {
+            return p99;
+        }
+
+        public double getMax() {
+            return max;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.linyi.sql.insight.core;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 延迟偏向采样器：慢 SQL 必采，熟悉的快 SQL 以低概率采样。
+ * <p>
+ * 满足以下任一条件时必定采样：
+ * <ul>
+ *     <li>本次执行耗时超过 {@code slowThresholdMs}</li>
+ *     <li>本次执行耗时超过该 SQL 指纹的运行 p95（frugal streaming 估计，每个指纹仅 O(1) 状态）</li>
+ *     <li>该指纹观测次数不足，p95 尚未稳定</li>
+ * </ul>
+ * 其余执行按基础采样率采样。
+ * </p>
+ * <p>
+ * 估计值存放在与 {@link DedupWindowStore} 相同结构的固定容量分段开放寻址表中：探测窗口已满时淘汰窗口内
+ * 最久未出现的指纹，因此长期运行、SQL 形态不断变化的应用中新指纹仍能获得 p95 估计，内存上限不变。
+ * </p>
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+public class LatencySampler {
+
+    private static final double QUANTILE = 0.95;
+
+    /**
+     * 估计值稳定前的最少观测次数
+     */
+    private static final int WARMUP_SAMPLES = 20;
+
+    /**
+     * 单次调整步长：当前估计值的 1/32，至少 1 微秒
+     */
+    private static final int STEP_SHIFT = 5;
+    private static final long MIN_STEP_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+
+    /**
+     * 默认跟踪的指纹数上限
+     */
+    public static final int DEFAULT_MAX_TRACKED = 8192;
+
+    /**
+     * 每次查找/插入的最大探测长度
+     */
+    private static final int PROBE_LIMIT = 8;
+
+    /**
+     * 空槽标记（指纹为0时映射为1）
+     */
+    private static final long EMPTY = 0L;
+
+    private final long slowThresholdNanos;
+    private final double baseRate;
+    private final Segment[] segments;
+    private final int segmentShift;
+
+    private final AtomicLong slowForced = new AtomicLong();
+    private final AtomicLong tailForced = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param slowThresholdMs 慢SQL阈值（毫秒），<=0 表示不启用固定阈值
+     * @param baseRate        快 SQL 的基础采样率（0~1）
+     */
+    public LatencySampler(long slowThresholdMs, double baseRate) {
+        this(slowThresholdMs, baseRate, DEFAULT_MAX_TRACKED, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    /**
+     * @param slowThresholdMs 慢SQL阈值（毫秒），<=0 表示不启用固定阈值
+     * @param baseRate        快 SQL 的基础采样率（0~1）
+     * @param maxTracked      跟踪的指纹数上限（向上取整为2的幂）
+     * @param concurrency     分段数（向上取整为2的幂）
+     */
+    public LatencySampler(long slowThresholdMs, double baseRate, int maxTracked, int concurrency) {
+        this.slowThresholdNanos = slowThresholdMs > 0 ? TimeUnit.MILLISECONDS.toNanos(slowThresholdMs) : Long.MAX_VALUE;
+        this.baseRate = Math.max(0.0, Math.min(1.0, baseRate));
+        int segCount = ceilPowerOfTwo(Math.max(1, Math.min(concurrency, 256)));
+        int perSegment = ceilPowerOfTwo(Math.max(PROBE_LIMIT, Math.max(1, maxTracked) / segCount));
+        this.segments = new Segment[segCount];
+        for (int i = 0; i < segCount; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+        this.segmentShift = 64 - Integer.numberOfTrailingZeros(segCount);
+    }
+
+    /**
+     * 根据本次执行耗时判断是否采样，并更新该指纹的 p95 估计
+     *
+     * @param fingerprint SQL指纹
+     * @param execNanos   本次执行耗时（纳秒），<0 表示未知
+     * @return true表示采样通过
+     */
+    public boolean sample(long fingerprint, long execNanos) {
+        if (execNanos < 0)
+            return randomPass();
+        if (fingerprint == EMPTY)
+            fingerprint = 1L;
+        Segment seg = segments.length == 1 ? segments[0] : segments[(int) (fingerprint >>> segmentShift)];
+        long estimate;
+        boolean warm;
+        synchronized (seg) {
+            int i = seg.find(fingerprint);
+            if (i < 0) {
+                seg.insert(fingerprint, execNanos);
+                estimate = execNanos;
+                warm = false;
+            } else {
+                estimate = seg.estimates[i];
+                warm = seg.counts[i] >= WARMUP_SAMPLES;
+                seg.update(i, execNanos);
+            }
+        }
+        if (execNanos >= slowThresholdNanos) {
+            slowForced.incrementAndGet();
+            return true;
+        }
+        if (!warm)
+            return true;
+        if (execNanos > estimate) {
+            tailForced.incrementAndGet();
+            return true;
+        }
+        return randomPass();
+    }
+
+    /**
+     * @return 因超过固定阈值而必采的次数
+     */
+    public long getSlowForcedCount() {
+        return slowForced.get();
+    }
+
+    /**
+     * @return 因超过指纹 p95 而必采的次数
+     */
+    public long getTailForcedCount() {
+        return tailForced.get();
+    }
+
+    /**
+     * @return 因探测窗口已满而被淘汰的指纹数
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * @return 当前跟踪的指纹数
+     */
+    public int getTrackedCount() {
+        int total = 0;
+        for (Segment seg : segments) {
+            synchronized (seg) {
+                total += seg.size;
+            }
+        }
+        return total;
+    }
+
+    private boolean randomPass() {
+        if (baseRate >= 1.0)
+            return true;
+        if (baseRate <= 0.0)
+            return false;
+        return ThreadLocalRandom.current().nextDouble() < baseRate;
+    }
+
+    private static int ceilPowerOfTwo(int v) {
+        int n = Integer.highestOneBit(v);
+        return n == v ? v : n << 1;
+    }
+
+    /**
+     * 分段：开放寻址表，按指纹保存 frugal streaming 分位数估计。
+     * <p>
+     * Frugal streaming：观测值高于估计时以概率 q 上调，低于时以概率 1-q 下调。
+     * 最近出现时间使用分段内的递增序号，淘汰时选探测窗口内序号最小的槽。
+     * </p>
+     */
+    private final class Segment {
+        final long[] keys;
+        final long[] estimates;
+        final int[] counts;
+        final long[] lastSeen;
+        long tick;
+        int size;
+
+        Segment(int capacity) {
+            this.keys = new long[capacity];
+            this.estimates = new long[capacity];
+            this.counts = new int[capacity];
+            this.lastSeen = new long[capacity];
+        }
+
+        int find(long key) {
+            int mask = keys.length - 1;
+            int idx = (int) key & mask;
+            for (int p = 0; p < PROBE_LIMIT; p++) {
+                int i = (idx + p) & mask;
+                if (keys[i] == key) {
+                    lastSeen[i] = ++tick;
+                    return i;
+                }
+                // 槽位只会被覆盖、不会被清空，遇到空槽说明键不在表中
+                if (keys[i] == EMPTY)
+                    return -1;
+            }
+            return -1;
+        }
+
+        void insert(long key, long initial) {
+            int mask = keys.length - 1;
+            int idx = (int) key & mask;
+            int slot = idx;
+            long oldest = Long.MAX_VALUE;
+            for (int p = 0; p < PROBE_LIMIT; p++) {
+                int i = (idx + p) & mask;
+                if (keys[i] == EMPTY) {
+                    slot = i;
+                    size++;
+                    oldest = -1;
+                    break;
+                }
+                if (lastSeen[i] < oldest) {
+                    oldest = lastSeen[i];
+                    slot = i;
+                }
+            }
+            if (oldest >= 0)
+                evictions.incrementAndGet();
+            keys[slot] = key;
+            estimates[slot] = initial;
+            counts[slot] = 1;
+            lastSeen[slot] = ++tick;
+        }
+
+        void update(int i, long x) {
+            long m = estimates[i];
+            long step = Math.max(MIN_STEP_NANOS, m >> STEP_SHIFT);
+            double r = ThreadLocalRandom.current().nextDouble();
+            if (x > m && r < QUANTILE) {
+                estimates[i] = Math.min(x, m + step);
+            } else if (x < m && r < 1 - QUANTILE) {
+                estimates[i] = Math.max(x, m - step);
+            }
+            if (counts[i] < WARMUP_SAMPLES)
+                counts[i]++;
+        }
+    }
+}
@@ -22,25 +22,24 @@
 
 package com.linyi.sql.insight.core;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * 将 SQL 中的 LIMIT 上限强制收敛至配置的最大值，避免意外大查询。
- * 仅对简单形式的 "... limit N" 生效，不处理 offset 形式。
+ * <p>
+ * 单次扫描：跳过字符串字面量、引用标识符与注释，识别 {@code limit N}、{@code limit offset, N}
+ * 与 {@code limit N offset M}，仅替换行数部分；不需修改时返回原对象，不产生额外分配。
+ * </p>
  *
  * @author linyi
  * @since 1.0.0
  */
 public class LimitCapSqlRewriteStrategy implements SqlRewriteStrategy {
 
-    // limit 匹配
-    private static final Pattern LIMIT_NUM = Pattern.compile("(?i)\\blimit\\s+(\\d+)\\b");
-
     private final int maxLimit;
+    private final String maxLimitText;
 
     public LimitCapSqlRewriteStrategy(int maxLimit) {
         this.maxLimit = Math.max(1, maxLimit);
+        this.maxLimitText = String.valueOf(this.maxLimit);
     }
 
     /**
@@ -54,28 +53,132 @@ public class LimitCapSqlRewriteStrategy implements SqlRewriteStrategy {
     public String rewrite(String sqlId, String sql) {
         if (sql == null)
             return null;
-        Matcher m = LIMIT_NUM.matcher(sql);
-        StringBuffer sb = new StringBuffer();
-        boolean changed = false;
-
-        // 查找并替换超出最大限制的LIMIT值
-        while (m.find()) {
-            try {
-                int v = Integer.parseInt(m.group(1));
-                if (v > maxLimit) {
-                    changed = true;
-                    m.appendReplacement(sb, m.group(0).replaceFirst("\\d+", String.valueOf(maxLimit)));
+        int len = sql.length();
+        StringBuilder sb = null;
+        int copied = 0;
+        int i = 0;
+        while (i < len) {
+            char c = sql.charAt(i);
+            // 跳过字符串字面量与引用标识符
+            if (c == '\'' || c == '"' || c == '`') {
+                i = skipQuoted(sql, i, c);
+                continue;
+            }
+            // 跳过注释
+            if (c == '-' && i + 1 < len && sql.charAt(i + 1) == '-' || c == '#') {
+                while (i < len && sql.charAt(i) != '\n')
+                    i++;
+                continue;
+            }
+            if (c == '/' && i + 1 < len && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? len : end + 2;
+                continue;
+            }
+            if ((c == 'l' || c == 'L') && isKeyword(sql, i, "limit")) {
+                int p = skipSpaces(sql, i + 5);
+                int numStart = p;
+                int numEnd = skipDigits(sql, p);
+                if (numEnd > numStart && !isIdentChar(sql, numEnd)) {
+                    // limit offset, N 形式：行数为逗号后的数字
+                    int q = skipSpaces(sql, numEnd);
+                    if (q < len && sql.charAt(q) == ',') {
+                        int s2 = skipSpaces(sql, q + 1);
+                        int e2 = skipDigits(sql, s2);
+                        if (e2 > s2 && !isIdentChar(sql, e2)) {
+                            numStart = s2;
+                            numEnd = e2;
+                        }
+                    }
+                    if (exceeds(sql, numStart, numEnd)) {
+                        if (sb == null)
+                            sb = new StringBuilder(len);
+                        sb.append(sql, copied, numStart).append(maxLimitText);
+                        copied = numEnd;
+                    }
+                    i = numEnd;
+                    continue;
                 }
-            } catch (Exception ignore) {
+                i += 5;
+                continue;
+            }
+            // 跳过整个标识符，避免匹配到 xxxlimit 这样的片段
+            if (isIdentChar(c)) {
+                while (i < len && isIdentChar(sql.charAt(i)))
+                    i++;
+                continue;
             }
+            i++;
         }
+        if (sb == null)
+            return sql;
+        sb.append(sql, copied, len);
+        return sb.toString();
+    }
+
+    /**
+     * 判断数字是否超过上限（超长数字直接视为超过）
+     */
+    private boolean exceeds(String sql, int start, int end) {
+        while (start < end - 1 && sql.charAt(start) == '0')
+            start++;
+        if (end - start > 9)
+            return true;
+        int v = 0;
+        for (int i = start; i < end; i++)
+            v = v * 10 + (sql.charAt(i) - '0');
+        return v > maxLimit;
+    }
 
-        // 如果有修改，则返回修改后的SQL语句
-        if (changed) {
-            m.appendTail(sb);
-            return sb.toString();
+    private static boolean isKeyword(String sql, int i, String kw) {
+        int n = kw.length();
+        if (i + n > sql.length() || !sql.regionMatches(true, i, kw, 0, n))
+            return false;
+        return (i == 0 || !isIdentChar(sql.charAt(i - 1))) && !isIdentChar(sql, i + n);
+    }
+
+    private static int skipQuoted(String sql, int i, char quote) {
+        int len = sql.length();
+        i++;
+        while (i < len) {
+            char c = sql.charAt(i);
+            if (c == '\\' && quote != '`') {
+                i += 2;
+                continue;
+            }
+            if (c == quote) {
+                // 连续两个引号表示转义
+                if (i + 1 < len && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
         }
-        return sql;
+        return len;
+    }
+
+    private static int skipSpaces(String sql, int i) {
+        int len = sql.length();
+        while (i < len && Character.isWhitespace(sql.charAt(i)))
+            i++;
+        return i;
+    }
+
+    private static int skipDigits(String sql, int i) {
+        int len = sql.length();
+        while (i < len && sql.charAt(i) >= '0' && sql.charAt(i) <= '9')
+            i++;
+        return i;
+    }
+
+    private static boolean isIdentChar(String sql, int i) {
+        return i < sql.length() && isIdentChar(sql.charAt(i));
+    }
+
+    private static boolean isIdentChar(char c) {
+        return c == '_' || c == '$' || Character.isLetterOrDigit(c);
     }
 
 }
@@ -22,11 +22,19 @@
 
 package com.linyi.sql.insight.core;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
 
+import com.linyi.sql.insight.out.AsyncFullLogWriter;
+import com.linyi.sql.insight.out.AsyncOutService;
 import com.linyi.sql.insight.util.AppConstants;
 
 /**
@@ -40,6 +48,8 @@ public class MetricsRecorder {
     // 允许为 null
     private final MeterRegistry registry;
 
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
     public MetricsRecorder(MeterRegistry registry) {
         this.registry = registry;
     }
@@ -87,11 +97,181 @@ public class MetricsRecorder {
         if (registry == null)
             return;
 
-        // 构建并注册耗时监控指标，记录SQL执行时间
-        Timer.builder(AppConstants.METRIC_DURATION)
-                .tags("app", safe(app), "sqlId", safe(sqlId))
-                .register(registry)
-                .record(nanos, TimeUnit.NANOSECONDS);
+        // 按 app + sqlId 复用已注册的 Timer，避免每次调用重新构建
+        String key = safe(app) + '\u0000' + safe(sqlId);
+        Timer timer = timers.get(key);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(key, k -> Timer.builder(AppConstants.METRIC_DURATION)
+                    .tags("app", safe(app), "sqlId", safe(sqlId))
+                    .register(registry));
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+
+    /**
+     * 注册一个按需取值的 Gauge 指标（如缓存大小、命中数、队列深度等）
+     *
+     * @param name     指标名称
+     * @param supplier 指标取值函数
+     * @param tags     标签键值对
+     */
+    public void gauge(String name, Supplier<Number> supplier, String... tags) {
+        // 如果注册表为空，则直接返回不进行注册
+        if (registry == null || supplier == null)
+            return;
+        Gauge.builder(name, supplier).tags(tags).register(registry);
+    }
+
+
+    /**
+     * 注册一个按需取值的单调计数指标（如命中数、丢弃数、拒绝数），以 Counter 导出以便 rate() 计算
+     * <p>
+     * Micrometer 对 obj 只持有弱引用，须传入生命周期与应用一致的组件本身，而不是临时 lambda。
+     * </p>
+     *
+     * @param name  指标名称
+     * @param obj   计数来源对象
+     * @param count 计数取值函数
+     * @param tags  标签键值对
+     */
+    public <T> void counter(String name, T obj, ToDoubleFunction<T> count, String... tags) {
+        // 如果注册表为空，则直接返回不进行注册
+        if (registry == null || obj == null || count == null)
+            return;
+        FunctionCounter.builder(name, obj, count).tags(tags).register(registry);
+    }
+
+
+    /**
+     * 注册执行计划/评分缓存的指标
+     *
+     * @param cache 执行计划/评分缓存，为null时忽略
+     */
+    public void bindPlanCache(PlanScoreCache cache) {
+        if (cache == null)
+            return;
+        gauge(AppConstants.METRIC_PLAN_CACHE_SIZE, cache::size);
+        counter(AppConstants.METRIC_PLAN_CACHE_HITS, cache, PlanScoreCache::getHitCount);
+        counter(AppConstants.METRIC_PLAN_CACHE_MISSES, cache, PlanScoreCache::getMissCount);
+        counter(AppConstants.METRIC_PLAN_CACHE_EVICTIONS, cache, PlanScoreCache::getEvictionCount);
+    }
+
+
+    /**
+     * 注册 onlyCheckOnce 去重存储的指标
+     *
+     * @param store 去重存储，为null时忽略
+     */
+    public void bindDedupStore(DedupWindowStore store) {
+        if (store == null)
+            return;
+        gauge(AppConstants.METRIC_DEDUP_SIZE, store::size);
+        counter(AppConstants.METRIC_DEDUP_EVICTIONS, store, DedupWindowStore::getEvictionCount);
+        counter(AppConstants.METRIC_DEDUP_EXPIRATIONS, store, DedupWindowStore::getExpirationCount);
+    }
+
+
+    /**
+     * 注册流控的拒绝计数与进行中分析数指标
+     *
+     * @param flow 流控服务，为null时忽略
+     */
+    public void bindFlowControl(FlowControlService flow) {
+        if (flow == null)
+            return;
+        bindDedupStore(flow.getDedupStore());
+        gauge(AppConstants.METRIC_FLOW_IN_FLIGHT, flow::getInFlightCount);
+        counter(AppConstants.METRIC_FLOW_REJECTED, flow, FlowControlService::getSampledOutCount, "reason", "sampling");
+        counter(AppConstants.METRIC_FLOW_REJECTED, flow, FlowControlService::getDuplicatedCount, "reason", "duplicate");
+        counter(AppConstants.METRIC_FLOW_REJECTED, flow, FlowControlService::getGlobalBudgetRejectedCount, "reason", "global_budget");
+        counter(AppConstants.METRIC_FLOW_REJECTED, flow, FlowControlService::getSqlIdBudgetRejectedCount, "reason", "sqlid_budget");
+        counter(AppConstants.METRIC_FLOW_REJECTED, flow, FlowControlService::getConcurrencyRejectedCount, "reason", "concurrency");
+        AdaptiveSampler sampler = flow.getAdaptiveSampler();
+        if (sampler != null) {
+            gauge(AppConstants.METRIC_SAMPLING_K, sampler::getK);
+            gauge(AppConstants.METRIC_SAMPLING_OVERHEAD, sampler::getLastOverhead);
+        }
+        LatencySampler latency = flow.getLatencySampler();
+        if (latency != null) {
+            counter(AppConstants.METRIC_SAMPLING_FORCED, latency, LatencySampler::getSlowForcedCount, "reason", "slow");
+            counter(AppConstants.METRIC_SAMPLING_FORCED, latency, LatencySampler::getTailForcedCount, "reason", "p95");
+            gauge(AppConstants.METRIC_SAMPLING_TRACKED, latency::getTrackedCount);
+            counter(AppConstants.METRIC_SAMPLING_TRACKED_EVICTIONS, latency, LatencySampler::getEvictionCount);
+        }
+    }
+
+
+    /**
+     * 注册 [SqlInsight-FULL] 异步日志的队列与丢弃指标
+     *
+     * @param writer 异步日志输出，为null时忽略
+     */
+    public void bindFullLogWriter(AsyncFullLogWriter writer) {
+        if (writer == null)
+            return;
+        gauge(AppConstants.METRIC_FULL_LOG_QUEUE, writer::getQueueSize);
+        counter(AppConstants.METRIC_FULL_LOG_DROPPED, writer, AsyncFullLogWriter::getDroppedCount);
+    }
+
+
+    /**
+     * 注册异步输出的队列深度、丢弃、合并与执行器拒绝指标
+     *
+     * @param out 异步输出，为null时忽略
+     */
+    public void bindAsyncOut(AsyncOutService out) {
+        if (out == null)
+            return;
+        gauge(AppConstants.METRIC_OUT_QUEUE, out::getQueueSize);
+        counter(AppConstants.METRIC_OUT_DROPPED, out, AsyncOutService::getDroppedCount, "reason", "overflow");
+        counter(AppConstants.METRIC_OUT_DROPPED, out, AsyncOutService::getCoalescedCount, "reason", "coalesced");
+        counter(AppConstants.METRIC_OUT_REJECTED, out, AsyncOutService::getRejectedCount);
+    }
+
+
+    /**
+     * 注册异步分析调度器的队列深度、提交、丢弃与失败指标
+     *
+     * @param dispatcher 异步分析调度器，为null时忽略
+     */
+    public void bindAnalysisDispatcher(AsyncAnalysisDispatcher dispatcher) {
+        if (dispatcher == null)
+            return;
+        gauge(AppConstants.METRIC_ANALYSIS_QUEUE, dispatcher::getQueueSize);
+        counter(AppConstants.METRIC_ANALYSIS_SUBMITTED, dispatcher, AsyncAnalysisDispatcher::getSubmittedCount);
+        counter(AppConstants.METRIC_ANALYSIS_DROPPED, dispatcher, AsyncAnalysisDispatcher::getDroppedCount);
+        counter(AppConstants.METRIC_ANALYSIS_FAILED, dispatcher, AsyncAnalysisDispatcher::getFailedCount);
+    }
+
+
+    /**
+     * 注册基数误估检测指标
+     *
+     * @param tracker 误估跟踪器，为null时忽略
+     */
+    public void bindMisestimate(MisestimateTracker tracker) {
+        if (tracker == null)
+            return;
+        gauge(AppConstants.METRIC_MISESTIMATE_PERSISTENT, tracker::getPersistentCount);
+        counter(AppConstants.METRIC_MISESTIMATE_OBSERVED, tracker, MisestimateTracker::getObservedCount);
+        counter(AppConstants.METRIC_MISESTIMATE_FLAGGED, tracker, MisestimateTracker::getFlaggedCount);
+    }
+
+
+    /**
+     * 注册执行耗时直方图的汇总分位指标（所有指纹合并，取最近一个完整窗口）
+     *
+     * @param histograms 直方图集合，为null时忽略
+     */
+    public void bindLatencyHistograms(LatencyHistogramRegistry histograms) {
+        if (histograms == null)
+            return;
+        gauge(AppConstants.METRIC_EXEC_LATENCY, () -> histograms.recent().percentileMs(0.50), "quantile", "0.5");
+        gauge(AppConstants.METRIC_EXEC_LATENCY, () -> histograms.recent().percentileMs(0.95), "quantile", "0.95");
+        gauge(AppConstants.METRIC_EXEC_LATENCY, () -> histograms.recent().percentileMs(0.99), "quantile", "0.99");
+        gauge(AppConstants.METRIC_EXEC_LATENCY, () -> histograms.recent().getMaxMs(), "quantile", "max");
+        gauge(AppConstants.METRIC_LATENCY_TRACKED, histograms::size);
     }
 
 
@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.linyi.sql.insight.core;
+
+import com.linyi.sql.insight.model.PlanNode;
+import com.linyi.sql.insight.model.SqlAnalysisResult;
+import com.linyi.sql.insight.model.SqlAnalysisResultList;
+import com.linyi.sql.insight.util.LogLimiterUtils;
+import com.linyi.sql.insight.util.SqlLengthTruncatorUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基数误估检测：对比 EXPLAIN 估算的产出行数与业务 SQL 实际返回/影响的行数。
+ * <p>
+ * 只有结果行数等于连接输出行数的简单 SELECT/UPDATE 才可比较（见 {@link #isComparable}）：
+ * 含聚合、GROUP BY、DISTINCT、UNION、LIMIT 的语句返回行数不是基数，不参与统计。
+ * </p>
+ * <p>
+ * 每个 SQL 指纹仅维护 O(1) 状态：q-error（max(估算,实际)/min(估算,实际)）取对数后的 EWMA。
+ * 观测次数达到下限且 EWMA 超过阈值时视为持续误估（统计信息过期或计划退化的早期信号），按指纹限频告警。
+ * 跟踪的指纹数有上限，超出后新指纹只计算单次比值、不累计。
+ * </p>
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+public class MisestimateTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(MisestimateTracker.class);
+
+    private static final double ALPHA = 0.2;
+
+    /**
+     * 判定持续误估前的最少观测次数
+     */
+    private static final int MIN_SAMPLES = 5;
+
+    private static final int MAX_TRACKED = 8192;
+
+    private static final double LN2 = Math.log(2);
+
+    private final double thresholdLog2;
+    private final Map<String, Stat> stats = new ConcurrentHashMap<>();
+    private final AtomicLong observed = new AtomicLong();
+    private final AtomicLong flagged = new AtomicLong();
+    private final LogLimiterUtils limiter = new LogLimiterUtils(60_000);
+
+    /**
+     * @param threshold q-error 阈值（如 10 表示估算与实际相差 10 倍），<=1 表示不告警
+     */
+    public MisestimateTracker(double threshold) {
+        this.thresholdLog2 = threshold > 1 ? log2(threshold) : Double.MAX_VALUE;
+    }
+
+    /**
+     * 由执行计划估算产出行数：JSON 格式取最外层 SELECT（首个 id）最后一张表的 rows_produced_per_join（连接最终输出），
+     * 其它格式取该 SELECT 各表 rows × filtered% 的乘积（嵌套循环连接的输出估计）。
+     * 派生表/联合结果等无实际表的行不参与计算。
+     *
+     * @param plan 执行计划
+     * @return 估算行数，无法估算时返回 -1
+     */
+    public static long estimateRows(SqlAnalysisResultList plan) {
+        List<SqlAnalysisResult> rows = plan == null ? null : plan.getResults();
+        if (rows == null || rows.isEmpty())
+            return -1L;
+        String outerId = rows.get(0).getId();
+        double estimate = 1.0;
+        boolean any = false;
+        Long produced = null;
+        for (SqlAnalysisResult r : rows) {
+            if (outerId != null && !outerId.equals(r.getId()))
+                continue;
+            Long n = r.getRows();
+            if (n == null || isSynthetic(r.getTable()))
+                continue;
+            estimate *= Math.max(0L, n) * filteredRatio(r.getFiltered());
+            produced = r.getRowsProduced();
+            any = true;
+        }
+        if (!any)
+            return -1L;
+        if (produced != null)
+            return Math.max(0L, produced);
+        return estimate >= Long.MAX_VALUE ? Long.MAX_VALUE : Math.round(estimate);
+    }
+
+    /**
+     * 判断语句的实际行数能否与连接输出估算比较：仅限简单 SELECT/UPDATE，
+     * 不含聚合函数、GROUP BY、HAVING、DISTINCT、UNION、LIMIT（引号与注释内的文本不计），
+     * 且计划中没有分组、去重、窗口与联合节点；被截断的 SQL 无法判断，视为不可比较。
+     *
+     * @param sql  EXPLAIN 使用的 SQL
+     * @param plan 执行计划
+     * @return true表示可比较
+     */
+    public static boolean isComparable(String sql, SqlAnalysisResultList plan) {
+        if (sql == null || sql.endsWith(SqlLengthTruncatorUtils.TRUNCATED_SUFFIX))
+            return false;
+        if (plan != null && plan.getPlanTree() != null && hasNonCardinalNode(plan.getPlanTree()))
+            return false;
+        int len = sql.length();
+        boolean first = true;
+        int i = 0;
+        while (i < len) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"' || c == '`') {
+                i = skipQuoted(sql, i, c);
+            } else if (c == '/' && i + 1 < len && sql.charAt(i + 1) == '*') {
+                int close = sql.indexOf("*/", i + 2);
+                i = close < 0 ? len : close + 2;
+            } else if (c == '#' || c == '-' && i + 1 < len && sql.charAt(i + 1) == '-') {
+                int nl = sql.indexOf('\n', i);
+                i = nl < 0 ? len : nl + 1;
+            } else if (Character.isLetter(c) || c == '_') {
+                int end = i + 1;
+                while (end < len && (Character.isLetterOrDigit(sql.charAt(end)) || sql.charAt(end) == '_'))
+                    end++;
+                String word = sql.substring(i, end).toLowerCase(Locale.ROOT);
+                if (first) {
+                    if (!"select".equals(word) && !"update".equals(word))
+                        return false;
+                    first = false;
+                } else if (NON_CARDINAL_KEYWORDS.contains(word)) {
+                    return false;
+                } else if (AGGREGATE_FUNCTIONS.contains(word)) {
+                    int p = end;
+                    while (p < len && Character.isWhitespace(sql.charAt(p)))
+                        p++;
+                    if (p < len && sql.charAt(p) == '(')
+                        return false;
+                }
+                i = end;
+            } else {
+                i++;
+            }
+        }
+        return !first;
+    }
+
+    private static final Set<String> NON_CARDINAL_KEYWORDS = new HashSet<>(
+            Arrays.asList("limit", "group", "having", "distinct", "distinctrow", "union"));
+
+    private static final Set<String> AGGREGATE_FUNCTIONS = new HashSet<>(Arrays.asList(
+            "count", "sum", "avg", "min", "max", "group_concat", "json_arrayagg", "json_objectagg",
+            "bit_and", "bit_or", "bit_xor", "std", "stddev", "stddev_pop", "stddev_samp",
+            "var_pop", "var_samp", "variance"));
+
+    private static boolean hasNonCardinalNode(PlanNode node) {
+        switch (node.getKind()) {
+            case GROUPING:
+            case DUPLICATES_REMOVAL:
+            case WINDOWING:
+            case UNION_RESULT:
+                return true;
+            default:
+                break;
+        }
+        for (PlanNode child : node.getChildren()) {
+            if (hasNonCardinalNode(child))
+                return true;
+        }
+        return false;
+    }
+
+    private static int skipQuoted(String sql, int start, char quote) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (c == '\\' && quote != '`') {
+                i += 2;
+                continue;
+            }
+            if (c == quote) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return sql.length();
+    }
+
+    /**
+     * 记录一次观测
+     *
+     * @param fingerprint SQL指纹
+     * @param sqlId       SQL标识符（仅用于告警日志）
+     * @param estimated   估算行数
+     * @param actual      实际行数
+     * @return 实际/估算比值（均按至少 1 行计算），任一为负时返回 null
+     */
+    public Double observe(String fingerprint, String sqlId, long estimated, long actual) {
+        if (estimated < 0 || actual < 0)
+            return null;
+        observed.incrementAndGet();
+        double est = Math.max(1L, estimated);
+        double act = Math.max(1L, actual);
+        double ratio = act / est;
+        if (fingerprint == null)
+            return ratio;
+        Stat s = stats.get(fingerprint);
+        if (s == null) {
+            if (stats.size() >= MAX_TRACKED)
+                return ratio;
+            s = stats.computeIfAbsent(fingerprint, k -> new Stat());
+        }
+        double ewma = s.update(Math.abs(log2(ratio)));
+        if (s.count >= MIN_SAMPLES && ewma >= thresholdLog2) {
+            flagged.incrementAndGet();
+            if (limiter.allow(fingerprint)) {
+                log.warn("[SqlInsight] persistent cardinality misestimate: sqlId={}, fingerprint={}, estimated={}, actual={}, q-error~{}",
+                        sqlId, fingerprint, estimated, actual, Math.round(Math.pow(2, ewma)));
+            }
+        }
+        return ratio;
+    }
+
+    /**
+     * @return 当前处于持续误估状态的指纹数
+     */
+    public int getPersistentCount() {
+        int n = 0;
+        for (Stat s : stats.values()) {
+            if (s.count >= MIN_SAMPLES && s.ewma >= thresholdLog2)
+                n++;
+        }
+        return n;
+    }
+
+    /**
+     * @return 参与比较的观测次数
+     */
+    public long getObservedCount() {
+        return observed.get();
+    }
+
+    /**
+     * @return 命中持续误估的观测次数
+     */
+    public long getFlaggedCount() {
+        return flagged.get();
+    }
+
+    /**
+     * @return 当前跟踪的指纹数
+     */
+    public int getTrackedCount() {
+        return stats.size();
+    }
+
+    private static boolean isSynthetic(String table) {
+        return table == null || table.isEmpty() || table.charAt(0) == '<';
+    }
+
+    private static double filteredRatio(String filtered) {
+        if (filtered == null || filtered.isEmpty())
+            return 1.0;
+        try {
+            double f = Double.parseDouble(filtered.trim());
+            return f > 0 && f <= 100 ? f / 100.0 : 1.0;
+        } catch (NumberFormatException e) {
+            return 1.0;
+        }
+    }
+
+    private static double log2(double x) {
+        return Math.log(x) / LN2;
+    }
+
+    /**
+     * 单个指纹的 log2(q-error) EWMA；并发更新不加锁，偶发的丢失更新只影响平滑速度
+     */
+    private static final class Stat {
+        volatile double ewma;
+        volatile int count;
+
+        double update(double x) {
+            double next = count == 0 ? x : ewma + ALPHA * (x - ewma);
+            ewma = next;
+            if (count < MIN_SAMPLES)
+                count++;
+            return next;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.linyi.sql.insight.core;
+
+import com.linyi.sql.insight.analysis.ExplainResult;
+import com.linyi.sql.insight.model.SqlScoreResult;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 执行计划与评分缓存：按“数据源 + SQL 指纹”缓存 EXPLAIN 结果与评分，
+ * 采用容量上限的 LRU 淘汰并支持 TTL 过期，命中时跳过 EXPLAIN 与规则评估。
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+public class PlanScoreCache {
+
+    private final int maxSize;
+    private final long ttlMs;
+    private final Map<String, CachedPlan> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public PlanScoreCache(int maxSize, long ttlMs) {
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlMs = Math.max(0, ttlMs);
+        this.entries = new LinkedHashMap<String, CachedPlan>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPlan> eldest) {
+                if (size() > PlanScoreCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 生成缓存键
+     *
+     * @param dataSourceKey 数据源标识（如 url|user）
+     * @param sqlKey        SQL 指纹
+     * @return 缓存键
+     */
+    public static String key(String dataSourceKey, String sqlKey) {
+        return (dataSourceKey == null ? "" : dataSourceKey) + "|" + (sqlKey == null ? "" : sqlKey);
+    }
+
+    /**
+     * 查询缓存，过期条目视为未命中并移除
+     *
+     * @param key 缓存键
+     * @return 命中的缓存条目，未命中返回null
+     */
+    public CachedPlan get(String key) {
+        long now = System.currentTimeMillis();
+        CachedPlan e;
+        synchronized (entries) {
+            e = entries.get(key);
+            if (e != null && ttlMs > 0 && now - e.createdAt >= ttlMs) {
+                entries.remove(key);
+                evictions.incrementAndGet();
+                e = null;
+            }
+        }
+        if (e == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return e;
+    }
+
+    /**
+     * 写入缓存，超出容量时淘汰最久未访问的条目
+     *
+     * @param key       缓存键
+     * @param explained EXPLAIN 结果
+     * @param score     评分结果
+     */
+    public void put(String key, ExplainResult explained, SqlScoreResult score) {
+        if (explained == null || explained.getFormat() == null)
+            return; // EXPLAIN 失败的结果不缓存
+        CachedPlan e = new CachedPlan(explained, score, System.currentTimeMillis());
+        synchronized (entries) {
+            entries.put(key, e);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * 缓存条目（不可变）
+     */
+    public static final class CachedPlan {
+        private final ExplainResult explained;
+        private final SqlScoreResult score;
+        private final long createdAt;
+
+        CachedPlan(ExplainResult explained, SqlScoreResult score, long createdAt) {
+            this.explained = explained;
+            this.score = score;
+            this.createdAt = createdAt;
+        }
+
+        public ExplainResult getExplained() {
+            return explained;
+        }
+
+        public SqlScoreResult getScore() {
+            return score;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+    }
+}
@@ -22,12 +22,17 @@
 
 package com.linyi.sql.insight.core;
 
+import org.apache.ibatis.mapping.BoundSql;
+
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * SQL 分析上下文。
- * 
+ * <p>
+ * 由拦截器在 prepare 阶段创建，暂存到执行阶段（query/update/batch），用于把实测执行耗时与行数关联到同一条分析记录。
+ * </p>
+ *
  * @author linyi
  * @since 1.0.0
  */
@@ -41,7 +46,16 @@ public class SqlAnalysisContext {
 
     /** 开始时间（纳秒） */
     private long startNanos;
-    
+
+    /** SQL 指纹 */
+    private long fingerprint;
+
+    /** 绑定 SQL（执行后提取参数） */
+    private BoundSql boundSql;
+
+    /** 创建该上下文的 StatementHandler，执行阶段按身份匹配 */
+    private Object statementHandler;
+
     /** 属性 */
     private final Map<String, Object> attributes = new HashMap<>();
 
@@ -69,6 +83,30 @@ public class SqlAnalysisContext {
         this.startNanos = startNanos;
     }
 
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(long fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public BoundSql getBoundSql() {
+        return boundSql;
+    }
+
+    public void setBoundSql(BoundSql boundSql) {
+        this.boundSql = boundSql;
+    }
+
+    public Object getStatementHandler() {
+        return statementHandler;
+    }
+
+    public void setStatementHandler(Object statementHandler) {
+        this.statementHandler = statementHandler;
+    }
+
     public Map<String, Object> getAttributes() {
         return attributes;
     }
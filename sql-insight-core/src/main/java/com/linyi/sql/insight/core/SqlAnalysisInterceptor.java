@@ -29,71 +29,155 @@ import org.apache.ibatis.plugin.Intercepts;
 import org.apache.ibatis.plugin.Invocation;
 import org.apache.ibatis.plugin.Plugin;
 import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayDeque;
 import java.util.Properties;
 
+import com.linyi.sql.insight.extract.SensitiveFieldMasker;
+import com.linyi.sql.insight.extract.SqlExtractResult;
 import com.linyi.sql.insight.extract.SqlExtractor;
+import com.linyi.sql.insight.extract.SqlFingerprinter;
 import com.linyi.sql.insight.analysis.ExplainExecutor;
+import com.linyi.sql.insight.analysis.ExplainMode;
+import com.linyi.sql.insight.analysis.ExplainResult;
 import com.linyi.sql.insight.model.SqlAnalysisResultList;
 import com.linyi.sql.insight.model.SqlScoreResult;
+import com.linyi.sql.insight.out.AsyncFullLogWriter;
+import com.linyi.sql.insight.out.AsyncOutService;
 import com.linyi.sql.insight.out.LogOutService;
 import com.linyi.sql.insight.out.SqlScoreResultOutService;
 import com.linyi.sql.insight.score.DefaultScoreService;
 import com.linyi.sql.insight.score.ScoreService;
-import org.apache.ibatis.mapping.MappedStatement;
-import org.apache.ibatis.reflection.MetaObject;
-import org.apache.ibatis.reflection.SystemMetaObject;
 import com.linyi.sql.insight.config.SqlAnalysisProperties;
 import com.linyi.sql.insight.model.SqlInsightLogDto;
-import com.google.gson.Gson;
-import java.sql.ResultSet;
 import com.linyi.sql.insight.core.ApplicationContextProvider;
 import com.linyi.sql.insight.core.SqlInsightLogEvent;
+import com.linyi.sql.insight.util.JsonCodec;
 
 /**
- * 最小可运行的 MyBatis 拦截器骨架：
- * - 拦截 StatementHandler#prepare，提取最终 SQL 并打印日志
- * - 后续在此处编排提取/EXPLAIN/规则/评分/输出
+ * SQL 分析 MyBatis 拦截器：
+ * - 拦截 StatementHandler#prepare，完成重写、过滤与指纹计算并暂存上下文
+ * - 拦截 StatementHandler#query/update，计量真实执行耗时与行数
+ * - 拦截 StatementHandler#queryCursor/batch 仅为消费暂存的上下文：游标执行后流式结果集仍占用连接、
+ *   batch 只是加入批次，均不计时也不分析
+ * - 在执行后编排提取/EXPLAIN/规则/评分/输出
  *
  * @author linyi
  * @since 1.0.0
  */
 @Intercepts({
-        @Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class, Integer.class })
+        @Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class, Integer.class }),
+        @Signature(type = StatementHandler.class, method = "query", args = { Statement.class, ResultHandler.class }),
+        @Signature(type = StatementHandler.class, method = "queryCursor", args = { Statement.class }),
+        @Signature(type = StatementHandler.class, method = "update", args = { Statement.class }),
+        @Signature(type = StatementHandler.class, method = "batch", args = { Statement.class })
 })
 public class SqlAnalysisInterceptor implements Interceptor {
 
     private static final Logger log = LoggerFactory.getLogger(SqlAnalysisInterceptor.class);
 
-    private final SqlExtractor sqlExtractor = new SqlExtractor();
-    private final ExplainExecutor explainExecutor = new ExplainExecutor();
+    /**
+     * BoundSql.sql 字段句柄（重写时回写），仅初始化一次
+     */
+    private static final java.lang.reflect.Field BOUND_SQL_FIELD = boundSqlField();
+
+    /**
+     * 每线程暂存的 prepare 上下文上限（正常情况下不超过嵌套查询深度）
+     */
+    private static final int MAX_PENDING_CONTEXTS = 16;
+
+    private final ThreadLocal<PendingContexts> pendingContexts = ThreadLocal.withInitial(PendingContexts::new);
+
+    private final SqlExtractor sqlExtractor;
+    private final ExplainExecutor explainExecutor;
     private ScoreService scoreService;
     private SqlScoreResultOutService outService = new LogOutService();
     private final SqlAnalysisProperties properties;
     private final FlowControlService flowControlService;
+    private final SqlFilterMatcher filterMatcher;
     private MetricsRecorder metricsRecorder;
-    private SqlRewriteStrategy sqlRewriteStrategy;
+    private volatile SqlRewriteStrategy sqlRewriteStrategy;
+    private volatile AsyncAnalysisDispatcher analysisDispatcher;
+    private final PlanScoreCache planCache;
+    private final AsyncFullLogWriter fullLogWriter;
+    private final MisestimateTracker misestimateTracker;
+    private final LatencyHistogramRegistry latencyHistograms;
 
     public SqlAnalysisInterceptor(SqlAnalysisProperties properties) {
         this.properties = properties;
+        this.sqlExtractor = new SqlExtractor(new SensitiveFieldMasker(properties.getSensitiveColumns()));
         this.flowControlService = new FlowControlService(properties);
+        this.filterMatcher = new SqlFilterMatcher(properties);
+        this.explainExecutor = new ExplainExecutor(ExplainMode.parse(properties.getExplainMode()));
+        this.misestimateTracker = new MisestimateTracker(properties.getMisestimateThreshold());
+        this.latencyHistograms = properties.isLatencyHistogramEnabled()
+                ? new LatencyHistogramRegistry(properties.getLatencyHistogramMaxKeys())
+                : null;
+        this.planCache = properties.isPlanCacheEnabled()
+                ? new PlanScoreCache(properties.getPlanCacheMaxSize(), properties.getPlanCacheTtlMs())
+                : null;
+        if (properties.isFullLogEnabled()) {
+            this.fullLogWriter = new AsyncFullLogWriter(log, properties.getFullLogBufferSize(),
+                    properties.getFullLogSamplingRate(), properties.getFullLogMaxChars(),
+                    AsyncFullLogWriter.parseLevel(properties.getFullLogMinLevel()));
+            this.fullLogWriter.start();
+        } else {
+            this.fullLogWriter = null;
+        }
     }
 
     public void setOutService(SqlScoreResultOutService outService, java.util.concurrent.Executor executor) {
         if (outService == null)
             return;
         if (properties.isAsyncEnabled() && executor != null) {
-            this.outService = outService.async(executor);
+            this.outService = new AsyncOutService(outService, executor, properties.getAsyncQueueCapacity(),
+                    properties.getAsyncPoolSize(), AsyncOutService.OverflowPolicy.parse(properties.getAsyncOverflowPolicy()));
+            if (metricsRecorder != null) {
+                metricsRecorder.bindAsyncOut((AsyncOutService) this.outService);
+            }
         } else {
             this.outService = outService;
         }
     }
 
+    /**
+     * 按当前配置重新编译 SQL 类型与 sqlId 过滤器（修改过滤相关配置后调用）
+     */
+    public void refreshFilters() {
+        filterMatcher.refresh();
+    }
+
     public void setMetricsRecorder(MetricsRecorder metricsRecorder) {
         this.metricsRecorder = metricsRecorder;
+        if (metricsRecorder != null) {
+            metricsRecorder.bindPlanCache(planCache);
+            metricsRecorder.bindFlowControl(flowControlService);
+            metricsRecorder.bindFullLogWriter(fullLogWriter);
+            metricsRecorder.bindMisestimate(misestimateTracker);
+            metricsRecorder.bindLatencyHistograms(latencyHistograms);
+            metricsRecorder.bindAnalysisDispatcher(analysisDispatcher);
+            if (outService instanceof AsyncOutService) {
+                metricsRecorder.bindAsyncOut((AsyncOutService) outService);
+            }
+        }
+    }
+
+    public LatencyHistogramRegistry getLatencyHistograms() {
+        return latencyHistograms;
+    }
+
+    public AsyncFullLogWriter getFullLogWriter() {
+        return fullLogWriter;
+    }
+
+    public PlanScoreCache getPlanCache() {
+        return planCache;
     }
 
     public void setScoreService(ScoreService scoreService) {
@@ -104,13 +188,49 @@ public class SqlAnalysisInterceptor implements Interceptor {
         this.sqlRewriteStrategy = sqlRewriteStrategy;
     }
 
+    /**
+     * 启用异步分析模式：EXPLAIN 从业务线程移至专用分析线程，并使用独立的分析 DataSource。
+     *
+     * @param analysisDataSource 分析专用数据源，为null时保持同步模式
+     */
+    public void enableAsyncAnalysis(DataSource analysisDataSource) {
+        if (analysisDataSource == null)
+            return;
+        AsyncAnalysisDispatcher dispatcher = new AsyncAnalysisDispatcher(analysisDataSource,
+                properties.getAnalysisQueueCapacity(), properties.getAnalysisWorkerThreads(), this::analyzeSnapshot,
+                SqlInsightExecutors.threadFactory(properties.getExecutorMode(), "sql-insight-analysis-"));
+        dispatcher.start();
+        this.analysisDispatcher = dispatcher;
+        if (metricsRecorder != null) {
+            metricsRecorder.bindAnalysisDispatcher(dispatcher);
+        }
+    }
+
+    public AsyncAnalysisDispatcher getAnalysisDispatcher() {
+        return analysisDispatcher;
+    }
+
+    /**
+     * 关闭异步分析线程（由容器销毁时调用）
+     */
+    public void shutdown() {
+        AsyncAnalysisDispatcher dispatcher = this.analysisDispatcher;
+        this.analysisDispatcher = null;
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+        if (fullLogWriter != null) {
+            fullLogWriter.shutdown();
+        }
+    }
+
     /**
      * 拦截 MyBatis 的 SQL 执行过程，用于分析 SQL 语句并进行性能评估。
      * <p>
      * 主要功能包括：
      * <p>
-     * 1. 提取并清洗 SQL 语句；
-     * 2. 可选地重写 SQL；
+     * 1. prepare 阶段：可选地重写 SQL，过滤 SQL 类型与 sqlId，计算指纹并暂存分析上下文；
+     * 2. query/update 阶段：计量真实执行耗时与行数，经流控后提取 SQL（queryCursor/batch 不分析）；
      * 3. 对符合条件的 SELECT/UPDATE/DELETE 语句执行 EXPLAIN 分析；
      * 4. 根据规则评分并将结果发布；
      * 5. 记录指标信息（如耗时、成功与否等）。
@@ -125,264 +245,444 @@ public class SqlAnalysisInterceptor implements Interceptor {
         Object target = invocation.getTarget();
 
         // 仅拦截 StatementHandler
-        if (target instanceof StatementHandler) {
-
-            // 获取 StatementHandler
-            StatementHandler statementHandler = (StatementHandler) target;
-            long start = System.nanoTime();
-            String sqlId = null;
-            // 获取 SQL ID
-            BoundSql boundSql = statementHandler.getBoundSql();
-            // 获取 SQL
-            String sql = sqlExtractor.extractAndSanitize(boundSql, properties.getMaxSqlLength());
-
-            // SQL 重写（若启用）
-            if (sql != null && sqlRewriteStrategy != null) {
+        if (!(target instanceof StatementHandler)) {
+            return invocation.proceed();
+        }
+        String method = invocation.getMethod().getName();
+        if ("prepare".equals(method)) {
+            return prepare(invocation, (StatementHandler) target);
+        }
+        // 最外层执行返回时清空暂存的上下文：未执行的语句不应在池化线程上持有 BoundSql 与参数对象
+        PendingContexts pending = pendingContexts.get();
+        pending.depth++;
+        try {
+            return execute(invocation, target, method, pending);
+        } finally {
+            if (--pending.depth == 0) {
+                pending.stack.clear();
+            }
+        }
+    }
+
+    /**
+     * prepare 阶段：重写与过滤，入选的语句在预编译成功后暂存上下文，等待执行阶段计时
+     */
+    private Object prepare(Invocation invocation, StatementHandler statementHandler) throws Throwable {
+        long start = System.nanoTime();
+        String sqlId = null;
+        // 获取 SQL ID
+        BoundSql boundSql = statementHandler.getBoundSql();
+        String rawSql = boundSql == null ? null : boundSql.getSql();
+        boolean sqlIdResolved = false;
+
+        // SQL 重写（若启用）：作用于原始SQL，指纹在重写后计算
+        SqlRewriteStrategy rewriteStrategy = this.sqlRewriteStrategy;
+        if (rawSql != null && rewriteStrategy != null) {
+            sqlId = SqlIdResolver.resolve(statementHandler);
+            sqlIdResolved = true;
+            String newSql = rewrite(rewriteStrategy, sqlId, rawSql);
+            if (newSql != rawSql && !newSql.equals(rawSql) && BOUND_SQL_FIELD != null) {
                 try {
-                    String newSql = sqlRewriteStrategy.rewrite(null, sql);
-                    if (newSql != null && !newSql.equals(sql)) {
-                        java.lang.reflect.Field f = BoundSql.class.getDeclaredField("sql");
-                        f.setAccessible(true);
-                        f.set(boundSql, newSql);
-                        sql = newSql;
-                    }
+                    BOUND_SQL_FIELD.set(boundSql, newSql);
+                    rawSql = newSql;
                 } catch (Throwable ignore) {
                 }
             }
+        }
 
-            if (sql != null) {
-                log.debug("[SqlInsight] intercepted SQL: {}", sql);
+        if (rawSql == null) {
+            return invocation.proceed();
+        }
 
-                // 获取SQL前缀以判断类型
-                String head = sql.length() > 12 ? sql.substring(0, 12) : sql;
-                String headTrim = head.trim().toLowerCase();
+        // 类型过滤：预编译前缀树直接匹配原始SQL，不分配对象
+        int typeFlags = filterMatcher.matchType(rawSql);
 
-                // 过滤不需要处理的SQL类型
-                if (!passTypeFilter(headTrim)) {
-                    return invocation.proceed();
-                }
+        // 过滤不需要处理的SQL类型，且仅 select/update/delete 需要执行EXPLAIN分析
+        if (!SqlFilterMatcher.passType(typeFlags) || !SqlFilterMatcher.isExplainable(typeFlags)) {
+            return invocation.proceed();
+        }
 
-                // 判断是否需要执行EXPLAIN分析
-                boolean shouldExplain = headTrim.startsWith("select") || headTrim.startsWith("update")
-                        || headTrim.startsWith("delete");
+        if (!sqlIdResolved) {
+            sqlId = SqlIdResolver.resolve(statementHandler);
+        }
 
-                if (shouldExplain) {
-                    sqlId = resolveSqlId(statementHandler);
+        // ID黑白名单过滤
+        if (!filterMatcher.passSqlId(sqlId)) {
+            return invocation.proceed();
+        }
 
-                    // ID白名单过滤
-                    if (!passIdList(sqlId)) {
-                        return invocation.proceed();
-                    }
+        // SQL指纹：去重、缓存与输出共用同一查询形态标识
+        long fingerprint = SqlFingerprinter.fingerprint(rawSql);
 
-                    // 流控检查：决定是否跳过分析
-                    if (!flowControlService.shouldAnalyze(sqlId, sql)) {
-                        Object ret = invocation.proceed();
-                        if (metricsRecorder != null) {
-                            metricsRecorder.recordDuration(null, sqlId, System.nanoTime() - start);
-                        }
-                        return ret;
-                    }
+        Object statement = invocation.proceed();
 
-                    // 获取数据库连接以便执行EXPLAIN
-                    Object[] args = invocation.getArgs();
-                    Connection conn = (args != null && args.length > 0 && args[0] instanceof Connection)
-                            ? (Connection) args[0]
-                            : null;
-
-                    // --- 封装Dto ---
-                    SqlInsightLogDto dto = new SqlInsightLogDto();
-                    dto.startTime = System.currentTimeMillis();
-                    dto.sqlId = sqlId;
-                    dto.sql = sql;
-
-                    long bizStart = System.nanoTime();
-                    Object ret = null;
-                    Throwable bizEx = null;
-                    try {
-                        ret = invocation.proceed();
-                    } catch (Throwable e) {
-                        bizEx = e;
-                        throw e;
-                    } finally {
-                        dto.bizCostMs = (System.nanoTime() - bizStart) / 1_000_000L;
-                    }
-                    long anaStart = System.nanoTime();
-
-                    if (conn != null) {
-                        try {
-                            java.sql.DatabaseMetaData meta = conn.getMetaData();
-                            dto.dbProductName = meta == null ? null : meta.getDatabaseProductName();
-                            dto.dbVersion = meta == null ? null : meta.getDatabaseProductVersion();
-                        } catch (Throwable e) {
-                        }
-                        String explainSql = sqlExtractor.extractForExplain(boundSql, properties.getMaxSqlLength());
-                        dto.explainSql = explainSql;
-                        // 拿EXPLAIN JSON与表格plan
-                        String explainJson = null;
-                        SqlAnalysisResultList plan = null;
-                        try {
-                            java.sql.Statement explainStmt = conn.createStatement();
-                            try (ResultSet rs = explainStmt.executeQuery("EXPLAIN FORMAT=JSON " + explainSql)) {
-                                if (rs.next()) {
-                                    explainJson = rs.getString(1);
-                                }
-                            }
-                        } catch (Throwable e) {
-                        }
-                        if (explainJson != null) {
-                            dto.explainJson = explainJson;
-                        }
-                        plan = explainExecutor.explain(conn, explainSql != null ? explainSql : sql);
-                        dto.explainRows = plan != null ? plan.getResults() : null;
-                        // 评分
-                        SqlScoreResult scoreResult = ensureScoreService().score(plan);
-                        dto.scoreResult = scoreResult;
-                        // 标准通道原逻辑
-                        if (log.isDebugEnabled()) {
-                            log.debug("[SqlInsight] explain sql: {}", explainSql);
-                            log.debug("[SqlInsight] explain entries: {}", plan == null ? 0 : plan.getResults().size());
-                        }
-
-                        // 发往 outService 保证兼容原有通道
-                        outService.publish(scoreResult, sqlId, sql, plan);
-                        // 新增: 存入UI内存与SSE
-                        // 在分析流程末尾仅发布事件，不直接操作store或sse
-                        try {
-                            ApplicationContextProvider.get().publishEvent(new SqlInsightLogEvent(this, dto));
-                        } catch (Throwable ignore) {
-                        }
-                    }
-                    dto.costMs = (System.nanoTime() - start) / 1_000_000L;
+        SqlAnalysisContext context = new SqlAnalysisContext();
+        context.setSqlId(sqlId);
+        context.setSql(rawSql);
+        context.setStartNanos(start);
+        context.setFingerprint(fingerprint);
+        context.setBoundSql(boundSql);
+        context.setStatementHandler(statementHandler);
+        pushContext(context);
+        return statement;
+    }
 
-                    // --- 输出一份完整json ---
-                    log.info("[SqlInsight-FULL] {}", new Gson().toJson(dto));
-                    // 通过Spring事件广播全量分析dto
-                    return ret;
-                }
+    /**
+     * 执行阶段：计量真实执行耗时与行数，流控通过后提取 SQL 并分析
+     */
+    private Object execute(Invocation invocation, Object target, String method, PendingContexts pending)
+            throws Throwable {
+        SqlAnalysisContext context = takeContext(pending.stack, target);
+        // queryCursor 返回时流式结果集仍打开，同一连接上无法再执行 EXPLAIN；batch 仅加入批次，耗时无意义
+        if (context == null || !"query".equals(method) && !"update".equals(method)) {
+            return invocation.proceed();
+        }
+        String sqlId = context.getSqlId();
+
+        // 先执行业务SQL并计时：流控（LATENCY 采样）依赖实测耗时
+        long startTime = System.currentTimeMillis();
+        long bizStart = System.nanoTime();
+        Object ret;
+        long bizNanos;
+        try {
+            ret = invocation.proceed();
+        } finally {
+            bizNanos = System.nanoTime() - bizStart;
+            flowControlService.recordExecution(bizNanos);
+            if (latencyHistograms != null) {
+                latencyHistograms.record(sqlId, context.getFingerprint(), bizNanos);
+            }
+        }
+        Object[] args = invocation.getArgs();
+        long rowCount = rowCount(method, args, ret);
+
+        // 流控检查：决定是否跳过分析
+        if (!flowControlService.shouldAnalyze(sqlId, context.getFingerprint(), bizNanos)) {
+            if (metricsRecorder != null) {
+                metricsRecorder.recordDuration(null, sqlId, System.nanoTime() - context.getStartNanos());
+            }
+            return ret;
+        }
+
+        // 提取 SQL（仅对入选的 SQL 执行）：各阶段惰性计算，首次读取 EXPLAIN 视图时一次扫描同时渲染输出视图
+        SqlExtractResult extracted = sqlExtractor.extract(context.getBoundSql(), properties.getMaxSqlLength());
+        if (extracted == null) {
+            return ret;
+        }
+        AsyncAnalysisDispatcher dispatcher = this.analysisDispatcher;
+        Connection conn = dispatcher == null ? conn(args) : null;
+        String sql = null;
+        // 同步模式且启用计划缓存时，是否需要 EXPLAIN 视图取决于缓存是否命中，输出视图推迟到 analyze 中渲染
+        if (conn == null || planCache == null) {
+            // 确定需要 EXPLAIN 视图（异步模式，或同步且无计划缓存）时先读取它，一次扫描渲染两种视图
+            if (dispatcher != null || conn != null) {
+                extracted.getExplainSql();
             }
+            sql = extracted.getTruncatedSql();
+            log.debug("[SqlInsight] intercepted SQL: {}", sql);
+        }
 
-            // TODO 预留：后续 1) SQL 类型过滤 2) 执行 EXPLAIN 并解析 3) 规则评分与输出
+        // --- 封装Dto ---
+        SqlInsightLogDto dto = new SqlInsightLogDto();
+        dto.startTime = startTime;
+        dto.sqlId = sqlId;
+        dto.sql = sql;
+        dto.fingerprint = SqlFingerprinter.toHex(context.getFingerprint());
+        dto.bizCostMs = bizNanos / 1_000_000L;
+        dto.rowCount = rowCount;
+
+        // 异步分析模式：业务线程仅采集快照并入队，不发起任何 JDBC 调用（参数在返回后可能变化，需立即渲染）
+        if (dispatcher != null) {
+            dispatcher.submit(new AnalysisSnapshot(sqlId, sql, dto.fingerprint, extracted.getExplainSql(),
+                    dto.startTime, dto.bizCostMs, dto.rowCount));
+            return ret;
         }
 
-        return invocation.proceed();
+        // 使用业务语句所在连接执行EXPLAIN（同一事务视图）
+        analyze(conn, dto, context.getFingerprint(), extracted);
+        return ret;
     }
 
     /**
-     * 创建代理对象的方法
-     *
-     * @param target 被代理的目标对象
-     * @return 返回包装后的代理对象
+     * 业务语句所在的连接，无法获取时返回null
      */
-    @Override
-    public Object plugin(Object target) {
-        // 使用Plugin工具类创建代理对象，将目标对象和当前拦截器进行包装
-        return Plugin.wrap(target, this);
+    private static Connection conn(Object[] args) {
+        if (args != null && args.length > 0 && args[0] instanceof Statement) {
+            try {
+                return ((Statement) args[0]).getConnection();
+            } catch (Throwable e) {
+                log.debug("[SqlInsight] cannot obtain connection from statement: {}", e.toString());
+            }
+        }
+        return null;
     }
 
-    @Override
-    public void setProperties(Properties properties) {
-        // 预留：可通过 MyBatis 插件属性传递开关等
+    /**
+     * 业务SQL返回/影响的行数：query 为结果列表大小（自定义 ResultHandler 时未知），update 为影响行数，其余未知
+     */
+    private static long rowCount(String method, Object[] args, Object ret) {
+        if ("update".equals(method)) {
+            return ret instanceof Number ? ((Number) ret).longValue() : -1L;
+        }
+        if ("query".equals(method) && args != null && args.length > 1 && args[1] == null) {
+            return ret instanceof java.util.Collection ? ((java.util.Collection<?>) ret).size() : -1L;
+        }
+        return -1L;
     }
 
     /**
-     * 解析SQL ID
-     *
-     * @param statementHandler Statement处理器对象
-     * @return 返回解析到的SQL ID，如果解析失败则返回null
+     * 暂存 prepare 阶段的上下文；嵌套查询会在外层执行期间再次 prepare，因此按栈保存，并限制深度防止未执行的语句堆积
      */
-    private String resolveSqlId(StatementHandler statementHandler) {
-        try {
-            // 通过MetaObject反射获取MappedStatement对象
-            MetaObject metaObject = SystemMetaObject.forObject(statementHandler);
-            Object msObj = metaObject.getValue("delegate.mappedStatement");
-            if (msObj instanceof MappedStatement) {
-                return ((MappedStatement) msObj).getId();
+    private void pushContext(SqlAnalysisContext context) {
+        ArrayDeque<SqlAnalysisContext> stack = pendingContexts.get().stack;
+        if (stack.size() >= MAX_PENDING_CONTEXTS) {
+            stack.pollLast();
+        }
+        stack.addFirst(context);
+    }
+
+    /**
+     * 取出与 StatementHandler 对应的上下文；其上方（更晚 prepare 却未执行）的上下文视为失效一并丢弃
+     */
+    private static SqlAnalysisContext takeContext(ArrayDeque<SqlAnalysisContext> stack, Object statementHandler) {
+        if (stack.isEmpty()) {
+            return null;
+        }
+        boolean found = false;
+        for (SqlAnalysisContext c : stack) {
+            if (c.getStatementHandler() == statementHandler) {
+                found = true;
+                break;
+            }
+        }
+        if (!found) {
+            return null;
+        }
+        SqlAnalysisContext c;
+        while ((c = stack.pollFirst()) != null) {
+            if (c.getStatementHandler() == statementHandler) {
+                return c;
             }
-        } catch (Throwable ignore) {
-            // 忽略异常情况，返回null
         }
         return null;
     }
 
     /**
-     * 检查SQL语句类型是否通过过滤器
+     * 对已执行的 SQL 进行 EXPLAIN、评分并输出结果。
+     * <p>
+     * 同步模式下在业务线程上使用业务连接执行；异步模式下由分析线程使用分析 DataSource 的连接执行。
+     * </p>
      *
-     * @param headLower SQL语句头部的小写形式
-     * @return 如果通过过滤器返回true，否则返回false
+     * @param conn        用于执行 EXPLAIN 的连接，为null时仅输出基础信息
+     * @param dto         分析记录（已包含 sqlId 与业务耗时；SQL 为null时从 extracted 渲染）
+     * @param fingerprint SQL指纹（并发/预算拒绝时撤销去重记录；随结果传给输出）
+     * @param extracted   惰性提取结果，dto 中没有 SQL/EXPLAIN SQL 时从中渲染（缓存未命中时一次扫描渲染两种视图），可为null
      */
-    private boolean passTypeFilter(String headLower) {
-        // 检查是否在拒绝列表中
-        java.util.List<String> deny = properties.getDenySqlTypes();
-        if (deny != null) {
-            for (String t : deny) {
-                if (startsWithIgnoreCase(headLower, t))
-                    return false;
+    private void analyze(Connection conn, SqlInsightLogDto dto, long fingerprint, SqlExtractResult extracted) {
+        long anaStart = System.nanoTime();
+        String sqlId = dto.sqlId;
+        String sql = dto.sql;
+        if (conn != null) {
+            String dataSourceKey = null;
+            try {
+                java.sql.DatabaseMetaData meta = conn.getMetaData();
+                dto.dbProductName = meta == null ? null : meta.getDatabaseProductName();
+                dto.dbVersion = meta == null ? null : meta.getDatabaseProductVersion();
+                dataSourceKey = meta == null ? null : meta.getURL() + "|" + meta.getUserName();
+            } catch (Throwable e) {
+            }
+            String explainSql = dto.explainSql;
+            // 缓存命中时跳过 EXPLAIN 与规则评估
+            String cacheKey = planCache == null ? null : PlanScoreCache.key(dataSourceKey, dto.fingerprint);
+            PlanScoreCache.CachedPlan cached = cacheKey == null ? null : planCache.get(cacheKey);
+            ExplainResult explained;
+            SqlScoreResult scoreResult;
+            if (cached != null) {
+                explained = cached.getExplained();
+                scoreResult = cached.getScore();
+                dto.planCacheHit = true;
+            } else {
+                // 并发上限与 EXPLAIN 预算：仅缓存未命中、真正执行 EXPLAIN 时申请，拒绝时撤销去重记录
+                if (!flowControlService.tryBeginExplain(sqlId, fingerprint)) {
+                    log.debug("[SqlInsight] analysis skipped, concurrency limit or explain budget reached: sqlId={}", sqlId);
+                    return;
+                }
+                if (explainSql == null && extracted != null) {
+                    explainSql = extracted.getExplainSql();
+                }
+                try {
+                    // 单次 EXPLAIN：同时拿到原始计划文本与解析后的plan
+                    explained = explainExecutor.explain(conn, explainSql != null ? explainSql : sql);
+                    // 评分
+                    scoreResult = ensureScoreService().score(explained.getPlan());
+                } finally {
+                    flowControlService.endAnalysis();
+                }
+                if (cacheKey != null) {
+                    planCache.put(cacheKey, explained, scoreResult);
+                }
+            }
+            // 推迟渲染的输出视图：缓存未命中时已随 EXPLAIN 视图一并渲染
+            if (sql == null && extracted != null) {
+                sql = extracted.getTruncatedSql();
+                dto.sql = sql;
+                log.debug("[SqlInsight] intercepted SQL: {}", sql);
+            }
+            SqlAnalysisResultList plan = explained.getPlan();
+            // EXPLAIN ANALYZE（显式开启）：真实执行查询，仅对评分为 WARN/CRIT 的只读 SELECT 按独立采样率执行
+            if (explainExecutor.getMode() == ExplainMode.ANALYZE && isWorst(scoreResult) && sampleExplainAnalyze()) {
+                if (explainSql == null && extracted != null) {
+                    explainSql = extracted.getExplainSql();
+                }
+                if (isReadOnlySelect(explainSql) && flowControlService.tryBeginAnalysis()) {
+                    try {
+                        String analyzed = explainExecutor.explainAnalyze(conn, explainSql,
+                                properties.getExplainAnalyzeTimeoutMs());
+                        dto.explainAnalyze = analyzed == null ? null : sqlExtractor.mask(analyzed);
+                    } finally {
+                        flowControlService.endAnalysis();
+                    }
+                }
+            }
+            // EXPLAIN SQL 含真实参数值，输出前脱敏
+            dto.explainSql = explainSql == null ? null : sqlExtractor.mask(explainSql);
+            dto.explainJson = explained.getFormat() == ExplainMode.JSON ? sqlExtractor.maskJson(explained.getRawPlan()) : null;
+            dto.explainTree = explained.getFormat() == ExplainMode.TREE && explained.getRawPlan() != null
+                    ? sqlExtractor.mask(explained.getRawPlan())
+                    : null;
+            dto.explainRows = plan.getResults();
+            dto.queryCost = plan.getQueryCost();
+            dto.scoreResult = scoreResult;
+            // 基数误估：估算产出行数 vs 实际行数，按指纹累计（仅限行数即基数的简单语句）
+            if (dto.rowCount >= 0 && MisestimateTracker.isComparable(explainSql != null ? explainSql : sql, plan)) {
+                long estimatedRows = MisestimateTracker.estimateRows(plan);
+                if (estimatedRows >= 0) {
+                    dto.estimatedRows = estimatedRows;
+                    dto.misestimateRatio = misestimateTracker.observe(dto.fingerprint, sqlId, estimatedRows,
+                            dto.rowCount);
+                }
+            }
+            // 标准通道原逻辑
+            if (log.isDebugEnabled()) {
+                log.debug("[SqlInsight] explain sql: {}", dto.explainSql);
+                log.debug("[SqlInsight] explain format: {}, entries: {}, cacheHit: {}", explained.getFormat(),
+                        plan.getResults().size(), dto.planCacheHit);
+            }
+
+            // 评分结果与计划行只编码一次，日志/HTTP/完整日志各通道直接嵌入（缓存命中时沿用已有编码）
+            JsonCodec.preEncode(scoreResult);
+            JsonCodec.preEncode(plan);
+            // 发往 outService 保证兼容原有通道
+            outService.publish(scoreResult, sqlId, sql, plan, fingerprint);
+            // 新增: 存入UI内存与SSE
+            // 在分析流程末尾仅发布事件，不直接操作store或sse
+            try {
+                ApplicationContextProvider.get().publishEvent(new SqlInsightLogEvent(this, dto));
+            } catch (Throwable ignore) {
             }
         }
+        long anaNanos = System.nanoTime() - anaStart;
+        flowControlService.recordAnalysis(anaNanos);
+        dto.costMs = dto.bizCostMs + anaNanos / 1_000_000L;
 
-        // 检查是否在允许列表中
-        java.util.List<String> allow = properties.getAllowSqlTypes();
-        if (allow == null || allow.isEmpty())
-            return true;
-        for (String t : allow) {
-            if (startsWithIgnoreCase(headLower, t))
-                return true;
+        // --- 输出一份完整json（异步、采样、限长） ---
+        if (fullLogWriter != null) {
+            fullLogWriter.submit(dto);
         }
-        return false;
+    }
+
+    private static boolean isWorst(SqlScoreResult scoreResult) {
+        return scoreResult != null && scoreResult.getLevel() != null
+                && scoreResult.getLevel() != com.linyi.sql.insight.model.AnalysisLevel.OK;
+    }
+
+    private boolean sampleExplainAnalyze() {
+        double rate = properties.getExplainAnalyzeSamplingRate();
+        return rate > 0 && (rate >= 1.0 || java.util.concurrent.ThreadLocalRandom.current().nextDouble() < rate);
     }
 
     /**
-     * 检查SQL ID是否通过黑白名单过滤
-     *
-     * @param sqlId 待检查的SQL ID
-     * @return true表示通过过滤，false表示被过滤掉
+     * EXPLAIN ANALYZE 会真实执行语句：仅允许以 SELECT 开头且不加锁的查询
      */
-    private boolean passIdList(String sqlId) {
-        if (sqlId == null)
-            return true;
-
-        // 检查黑名单过滤
-        java.util.List<String> black = properties.getBlacklistSqlIdContains();
-        if (black != null) {
-            for (String k : black) {
-                if (k != null && !k.isEmpty() && sqlId.contains(k))
-                    return false;
-            }
-        }
+    private static boolean isReadOnlySelect(String sql) {
+        if (sql == null)
+            return false;
+        String s = sql.trim();
+        if (!s.regionMatches(true, 0, "select", 0, 6))
+            return false;
+        String upper = s.toUpperCase(java.util.Locale.ROOT);
+        return !upper.contains(" FOR UPDATE") && !upper.contains(" FOR SHARE")
+                && !upper.contains(" LOCK IN SHARE MODE") && !upper.contains(" INTO ");
+    }
 
-        // 检查白名单过滤
-        java.util.List<String> white = properties.getWhitelistSqlIdContains();
-        if (white != null && !white.isEmpty()) {
-            for (String k : white) {
-                if (k != null && !k.isEmpty() && sqlId.contains(k))
-                    return true;
-            }
-            return false; // 有白名单但未命中
+    /**
+     * 异步分析线程的处理入口：将快照还原为分析记录后执行分析
+     *
+     * @param conn     从分析 DataSource 借用的连接
+     * @param snapshot 拦截器采集的快照
+     */
+    private void analyzeSnapshot(Connection conn, AnalysisSnapshot snapshot) {
+        SqlInsightLogDto dto = new SqlInsightLogDto();
+        dto.startTime = snapshot.getStartTime();
+        dto.sqlId = snapshot.getSqlId();
+        dto.sql = snapshot.getSql();
+        dto.fingerprint = snapshot.getFingerprint();
+        dto.explainSql = snapshot.getExplainSql();
+        dto.bizCostMs = snapshot.getBizCostMs();
+        dto.rowCount = snapshot.getRowCount();
+        long fingerprint = 0L;
+        try {
+            fingerprint = Long.parseUnsignedLong(snapshot.getFingerprint(), 16);
+        } catch (RuntimeException ignore) {
         }
-        return true;
+        analyze(conn, dto, fingerprint, null);
     }
 
     /**
-     * 判断字符串是否以指定类型开头（忽略大小写）
+     * 创建代理对象的方法
      *
-     * @param headLower 已经转换为小写的头部字符串
-     * @param type      要匹配的类型字符串
-     * @return 如果headLower以type开头（忽略大小写）则返回true，否则返回false
+     * @param target 被代理的目标对象
+     * @return 返回包装后的代理对象
      */
-    private boolean startsWithIgnoreCase(String headLower, String type) {
-        // 检查type参数是否为null
-        if (type == null)
-            return false;
+    @Override
+    public Object plugin(Object target) {
+        // 使用Plugin工具类创建代理对象，将目标对象和当前拦截器进行包装
+        return Plugin.wrap(target, this);
+    }
 
-        // 将type字符串去除空格并转换为小写
-        String t = type.trim().toLowerCase();
+    @Override
+    public void setProperties(Properties properties) {
+        // 预留：可通过 MyBatis 插件属性传递开关等
+    }
 
-        // 检查处理后的字符串是否为空
-        if (t.isEmpty())
-            return false;
+    /**
+     * 执行 SQL 重写，策略异常或返回null时保留原SQL
+     *
+     * @param strategy 重写策略
+     * @param sqlId    SQL标识符
+     * @param rawSql   原始SQL
+     * @return 重写后的SQL（未修改时为原对象）
+     */
+    private String rewrite(SqlRewriteStrategy strategy, String sqlId, String rawSql) {
+        String newSql;
+        try {
+            newSql = strategy.rewrite(sqlId, rawSql);
+        } catch (Throwable e) {
+            log.debug("[SqlInsight] rewrite failed: sqlId={}, err={}", sqlId, e.toString());
+            newSql = null;
+        }
+        return newSql == null ? rawSql : newSql;
+    }
 
-        // 判断headLower是否以处理后的字符串开头
-        return headLower.startsWith(t);
+    private static java.lang.reflect.Field boundSqlField() {
+        try {
+            java.lang.reflect.Field f = BoundSql.class.getDeclaredField("sql");
+            f.setAccessible(true);
+            return f;
+        } catch (Throwable e) {
+            log.warn("[SqlInsight] BoundSql.sql is not accessible, SQL rewrite disabled: {}", e.toString());
+            return null;
+        }
     }
 
     /**
@@ -402,4 +702,11 @@ public class SqlAnalysisInterceptor implements Interceptor {
         return this.scoreService;
     }
 
+    /**
+     * 每线程的 prepare 上下文栈与执行嵌套深度
+     */
+    private static final class PendingContexts {
+        final ArrayDeque<SqlAnalysisContext> stack = new ArrayDeque<>();
+        int depth;
+    }
 }
@@ -0,0 +1,408 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.linyi.sql.insight.core;
+
+import com.linyi.sql.insight.config.SqlAnalysisProperties;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * 预编译的 SQL 类型过滤与 sqlId 黑白名单匹配器。
+ * <p>
+ * 配置在启动时（及调用 {@link #refresh()} 时）编译一次：
+ * <ul>
+ *     <li>SQL 类型 allow/deny 列表与可 EXPLAIN 的语句关键字编译为 ASCII 关键字前缀树，
+ *     跳过前导空白后按小写逐字符匹配，一次遍历得到全部标记；连续空白（含换行、制表符）视为单个空格，
+ *     多词类型（如 {@code insert into}）不受 SQL 排版影响</li>
+ *     <li>sqlId 黑白名单编译为 Aho-Corasick 自动机（稠密转移表），对 sqlId 单次扫描完成所有包含判断</li>
+ * </ul>
+ * 匹配过程只读不可变数组，不产生任何对象分配。
+ * </p>
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+public class SqlFilterMatcher {
+
+    /**
+     * 类型匹配结果标记：命中 deny 列表
+     */
+    public static final int TYPE_DENY = 1;
+    /**
+     * 类型匹配结果标记：命中 allow 列表（未配置 allow 列表时总是置位）
+     */
+    public static final int TYPE_ALLOW = 2;
+    /**
+     * 类型匹配结果标记：可执行 EXPLAIN 的语句（select/update/delete）
+     */
+    public static final int TYPE_EXPLAINABLE = 4;
+
+    private static final int ID_BLACK = 1;
+    private static final int ID_WHITE = 2;
+
+    private static final String[] EXPLAINABLE_TYPES = {"select", "update", "delete"};
+
+    private final SqlAnalysisProperties properties;
+    private volatile Compiled compiled;
+
+    public SqlFilterMatcher(SqlAnalysisProperties properties) {
+        this.properties = properties;
+        refresh();
+    }
+
+    /**
+     * 按当前配置重新编译过滤器（配置变更后调用）
+     */
+    public void refresh() {
+        this.compiled = new Compiled(
+                KeywordTrie.build(properties.getDenySqlTypes(), properties.getAllowSqlTypes()),
+                AhoCorasick.build(properties.getBlacklistSqlIdContains(), properties.getWhitelistSqlIdContains()));
+    }
+
+    /**
+     * 匹配 SQL 语句类型
+     *
+     * @param sql 原始 SQL
+     * @return 标记位组合（{@link #TYPE_DENY} / {@link #TYPE_ALLOW} / {@link #TYPE_EXPLAINABLE}）
+     */
+    public int matchType(String sql) {
+        return compiled.types.match(sql);
+    }
+
+    /**
+     * @param typeFlags {@link #matchType(String)} 的返回值
+     * @return true表示通过类型过滤
+     */
+    public static boolean passType(int typeFlags) {
+        return (typeFlags & TYPE_DENY) == 0 && (typeFlags & TYPE_ALLOW) != 0;
+    }
+
+    /**
+     * @param typeFlags {@link #matchType(String)} 的返回值
+     * @return true表示需要执行 EXPLAIN 分析
+     */
+    public static boolean isExplainable(int typeFlags) {
+        return (typeFlags & TYPE_EXPLAINABLE) != 0;
+    }
+
+    /**
+     * 检查SQL ID是否通过黑白名单过滤（包含匹配，区分大小写）
+     *
+     * @param sqlId 待检查的SQL ID，为null时总是通过
+     * @return true表示通过过滤，false表示被过滤掉
+     */
+    public boolean passSqlId(String sqlId) {
+        if (sqlId == null)
+            return true;
+        AhoCorasick ids = compiled.ids;
+        int hits = ids.match(sqlId);
+        if ((hits & ID_BLACK) != 0)
+            return false;
+        return !ids.hasWhitelist || (hits & ID_WHITE) != 0;
+    }
+
+    private static final class Compiled {
+        final KeywordTrie types;
+        final AhoCorasick ids;
+
+        Compiled(KeywordTrie types, AhoCorasick ids) {
+            this.types = types;
+            this.ids = ids;
+        }
+    }
+
+    /**
+     * ASCII 关键字前缀树：节点 i 的子节点存放在 {@code next[i * 128 + c]}，0 表示无子节点
+     */
+    private static final class KeywordTrie {
+        private static final int ALPHABET = 128;
+
+        final int[] next;
+        final int[] flags;
+        /**
+         * 未配置 allow 列表时，所有语句视为命中 allow
+         */
+        final int baseFlags;
+
+        private KeywordTrie(int[] next, int[] flags, int baseFlags) {
+            this.next = next;
+            this.flags = flags;
+            this.baseFlags = baseFlags;
+        }
+
+        static KeywordTrie build(List<String> deny, List<String> allow) {
+            List<int[]> children = new ArrayList<>();
+            List<Integer> flagList = new ArrayList<>();
+            children.add(new int[ALPHABET]);
+            flagList.add(0);
+            boolean hasAllow = false;
+            if (deny != null) {
+                for (String t : deny)
+                    insert(children, flagList, t, TYPE_DENY);
+            }
+            if (allow != null) {
+                for (String t : allow)
+                    hasAllow |= insert(children, flagList, t, TYPE_ALLOW);
+            }
+            for (String t : EXPLAINABLE_TYPES)
+                insert(children, flagList, t, TYPE_EXPLAINABLE);
+
+            int n = children.size();
+            int[] next = new int[n * ALPHABET];
+            int[] flags = new int[n];
+            for (int i = 0; i < n; i++) {
+                System.arraycopy(children.get(i), 0, next, i * ALPHABET, ALPHABET);
+                flags[i] = flagList.get(i);
+            }
+            return new KeywordTrie(next, flags, hasAllow ? 0 : TYPE_ALLOW);
+        }
+
+        private static boolean insert(List<int[]> children, List<Integer> flagList, String keyword, int flag) {
+            if (keyword == null)
+                return false;
+            String k = keyword.trim().toLowerCase();
+            if (k.isEmpty())
+                return false;
+            int node = 0;
+            for (int i = 0; i < k.length(); i++) {
+                char c = k.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    // 连续空白折叠为单个空格
+                    while (i + 1 < k.length() && Character.isWhitespace(k.charAt(i + 1)))
+                        i++;
+                    c = ' ';
+                }
+                if (c >= ALPHABET)
+                    return false; // 非 ASCII 关键字无法匹配任何 SQL 关键字，忽略
+                int child = children.get(node)[c];
+                if (child == 0) {
+                    child = children.size();
+                    children.add(new int[ALPHABET]);
+                    flagList.add(0);
+                    children.get(node)[c] = child;
+                }
+                node = child;
+            }
+            flagList.set(node, flagList.get(node) | flag);
+            return true;
+        }
+
+        int match(String sql) {
+            int result = baseFlags;
+            if (sql == null)
+                return result;
+            int len = sql.length();
+            int i = 0;
+            while (i < len && Character.isWhitespace(sql.charAt(i)))
+                i++;
+            int node = 0;
+            for (; i < len; i++) {
+                char c = sql.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    // 连续空白折叠为单个空格，与关键字中的分隔一致
+                    while (i + 1 < len && Character.isWhitespace(sql.charAt(i + 1)))
+                        i++;
+                    c = ' ';
+                } else if (c >= ALPHABET) {
+                    break;
+                } else if (c >= 'A' && c <= 'Z') {
+                    c += 'a' - 'A';
+                }
+                node = next[node * ALPHABET + c];
+                if (node == 0)
+                    break;
+                result |= flags[node];
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Aho-Corasick 自动机：字母表压缩为模式串中出现过的字符，转移表为稠密 DFA，
+     * 未出现在模式中的字符映射为类别 0（回到根节点）
+     */
+    private static final class AhoCorasick {
+
+        /**
+         * ASCII 字符的类别映射
+         */
+        final int[] asciiClass;
+        /**
+         * 非 ASCII 模式字符（有序），类别为 {@code asciiClassCount + 下标}
+         */
+        final char[] extraChars;
+        final int extraBase;
+        final int alphabet;
+        final int[] delta;
+        final int[] output;
+        final boolean hasWhitelist;
+        final boolean empty;
+
+        private AhoCorasick(int[] asciiClass, char[] extraChars, int extraBase, int alphabet, int[] delta,
+                            int[] output, boolean hasWhitelist, boolean empty) {
+            this.asciiClass = asciiClass;
+            this.extraChars = extraChars;
+            this.extraBase = extraBase;
+            this.alphabet = alphabet;
+            this.delta = delta;
+            this.output = output;
+            this.hasWhitelist = hasWhitelist;
+            this.empty = empty;
+        }
+
+        static AhoCorasick build(List<String> black, List<String> white) {
+            List<String> patterns = new ArrayList<>();
+            List<Integer> kinds = new ArrayList<>();
+            collect(black, ID_BLACK, patterns, kinds);
+            boolean hasWhite = collect(white, ID_WHITE, patterns, kinds);
+
+            // 压缩字母表
+            TreeSet<Character> chars = new TreeSet<>();
+            for (String p : patterns)
+                for (int i = 0; i < p.length(); i++)
+                    chars.add(p.charAt(i));
+            int[] asciiClass = new int[128];
+            List<Character> extra = new ArrayList<>();
+            int cls = 1;
+            for (char c : chars) {
+                if (c < 128)
+                    asciiClass[c] = cls++;
+                else
+                    extra.add(c);
+            }
+            int extraBase = cls;
+            char[] extraChars = new char[extra.size()];
+            for (int i = 0; i < extraChars.length; i++)
+                extraChars[i] = extra.get(i);
+            int alphabet = extraBase + extraChars.length;
+
+            // 构建 goto 函数
+            List<int[]> gotoTable = new ArrayList<>();
+            List<Integer> outList = new ArrayList<>();
+            gotoTable.add(filled(alphabet));
+            outList.add(0);
+            for (int p = 0; p < patterns.size(); p++) {
+                String pat = patterns.get(p);
+                int node = 0;
+                for (int i = 0; i < pat.length(); i++) {
+                    int c = classOf(pat.charAt(i), asciiClass, extraChars, extraBase);
+                    int child = gotoTable.get(node)[c];
+                    if (child < 0) {
+                        child = gotoTable.size();
+                        gotoTable.add(filled(alphabet));
+                        outList.add(0);
+                        gotoTable.get(node)[c] = child;
+                    }
+                    node = child;
+                }
+                outList.set(node, outList.get(node) | kinds.get(p));
+            }
+
+            // BFS 计算失败链接并补全为 DFA
+            int n = gotoTable.size();
+            int[] delta = new int[n * alphabet];
+            int[] output = new int[n];
+            int[] fail = new int[n];
+            for (int i = 0; i < n; i++)
+                output[i] = outList.get(i);
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            int[] root = gotoTable.get(0);
+            for (int c = 0; c < alphabet; c++) {
+                int child = root[c];
+                if (child < 0) {
+                    delta[c] = 0;
+                } else {
+                    delta[c] = child;
+                    fail[child] = 0;
+                    queue.add(child);
+                }
+            }
+            delta[0] = 0; // 类别 0 始终回到根节点
+            while (!queue.isEmpty()) {
+                int s = queue.poll();
+                output[s] |= output[fail[s]];
+                int[] g = gotoTable.get(s);
+                for (int c = 0; c < alphabet; c++) {
+                    int child = c == 0 ? -1 : g[c];
+                    if (child < 0) {
+                        delta[s * alphabet + c] = delta[fail[s] * alphabet + c];
+                    } else {
+                        delta[s * alphabet + c] = child;
+                        fail[child] = delta[fail[s] * alphabet + c];
+                        queue.add(child);
+                    }
+                }
+            }
+            return new AhoCorasick(asciiClass, extraChars, extraBase, alphabet, delta, output, hasWhite,
+                    patterns.isEmpty());
+        }
+
+        private static boolean collect(List<String> src, int kind, List<String> patterns, List<Integer> kinds) {
+            boolean any = false;
+            if (src == null)
+                return false;
+            for (String k : src) {
+                if (k != null && !k.isEmpty()) {
+                    patterns.add(k);
+                    kinds.add(kind);
+                    any = true;
+                }
+            }
+            return any;
+        }
+
+        private static int[] filled(int size) {
+            int[] a = new int[size];
+            Arrays.fill(a, -1);
+            return a;
+        }
+
+        private static int classOf(char c, int[] asciiClass, char[] extraChars, int extraBase) {
+            if (c < 128)
+                return asciiClass[c];
+            int idx = Arrays.binarySearch(extraChars, c);
+            return idx < 0 ? 0 : extraBase + idx;
+        }
+
+        /**
+         * @return 命中的模式种类标记（{@link #ID_BLACK} / {@link #ID_WHITE}）
+         */
+        int match(String text) {
+            if (empty)
+                return 0;
+            int state = 0;
+            int hits = 0;
+            for (int i = 0, len = text.length(); i < len; i++) {
+                state = delta[state * alphabet + classOf(text.charAt(i), asciiClass, extraChars, extraBase)];
+                hits |= output[state];
+                if ((hits & ID_BLACK) != 0)
+                    return hits;
+            }
+            return hits;
+        }
+    }
+}
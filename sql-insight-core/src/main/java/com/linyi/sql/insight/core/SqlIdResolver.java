@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.linyi.sql.insight.core;
+
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+
+/**
+ * sqlId 解析器：按 StatementHandler 具体类缓存字段访问路径，解析只需若干次字段读取。
+ * <p>
+ * 支持的路径：
+ * <ul>
+ *     <li>类中声明了 {@code MappedStatement mappedStatement} 字段（如 BaseStatementHandler 子类）：直接读取</li>
+ *     <li>类中声明了 {@code StatementHandler delegate} 字段（如 RoutingStatementHandler）：读取后继续解析</li>
+ *     <li>被其它插件包装的 JDK 代理：取出 {@link Plugin} 内的 target 后继续解析</li>
+ * </ul>
+ * 以上均不满足时回退为 MetaObject 反射。
+ * </p>
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+public final class SqlIdResolver {
+
+    private static final int MAX_DEPTH = 8;
+
+    private static final Field PLUGIN_TARGET = findField(Plugin.class, "target", Object.class);
+
+    private static final ClassValue<Accessor> ACCESSORS = new ClassValue<Accessor>() {
+        @Override
+        protected Accessor computeValue(Class<?> type) {
+            return Accessor.of(type);
+        }
+    };
+
+    private SqlIdResolver() {
+    }
+
+    /**
+     * 解析 StatementHandler 对应的 sqlId（MappedStatement id）
+     *
+     * @param handler StatementHandler（可以是代理）
+     * @return sqlId，解析失败返回null
+     */
+    public static String resolve(StatementHandler handler) {
+        MappedStatement ms = resolveMappedStatement(handler);
+        return ms == null ? null : ms.getId();
+    }
+
+    /**
+     * 解析 StatementHandler 对应的 MappedStatement
+     *
+     * @param handler StatementHandler（可以是代理）
+     * @return MappedStatement，解析失败返回null
+     */
+    public static MappedStatement resolveMappedStatement(StatementHandler handler) {
+        try {
+            Object target = handler;
+            for (int depth = 0; depth < MAX_DEPTH && target != null; depth++) {
+                Accessor accessor = ACCESSORS.get(target.getClass());
+                switch (accessor.kind) {
+                    case MAPPED_STATEMENT:
+                        return (MappedStatement) accessor.field.get(target);
+                    case DELEGATE:
+                        target = accessor.field.get(target);
+                        break;
+                    case PROXY:
+                        InvocationHandler h = Proxy.getInvocationHandler(target);
+                        target = h instanceof Plugin ? PLUGIN_TARGET.get(h) : null;
+                        break;
+                    default:
+                        return fallback(handler);
+                }
+            }
+        } catch (Throwable ignore) {
+            // 忽略异常，回退为反射
+        }
+        return fallback(handler);
+    }
+
+    private static MappedStatement fallback(StatementHandler handler) {
+        try {
+            // 通过MetaObject反射获取MappedStatement对象
+            MetaObject metaObject = SystemMetaObject.forObject(handler);
+            Object msObj = metaObject.getValue("delegate.mappedStatement");
+            if (msObj instanceof MappedStatement) {
+                return (MappedStatement) msObj;
+            }
+        } catch (Throwable ignore) {
+            // 忽略异常情况，返回null
+        }
+        return null;
+    }
+
+    private static Field findField(Class<?> type, String name, Class<?> fieldType) {
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            try {
+                Field f = c.getDeclaredField(name);
+                if (fieldType.isAssignableFrom(f.getType())) {
+                    f.setAccessible(true);
+                    return f;
+                }
+            } catch (NoSuchFieldException ignore) {
+                // 继续查找父类
+            } catch (RuntimeException e) {
+                // 无法访问（如模块限制）
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private enum Kind {
+        MAPPED_STATEMENT, DELEGATE, PROXY, NONE
+    }
+
+    /**
+     * 单个类的访问路径（不可变，按类缓存）
+     */
+    private static final class Accessor {
+        final Kind kind;
+        final Field field;
+
+        private Accessor(Kind kind, Field field) {
+            this.kind = kind;
+            this.field = field;
+        }
+
+        static Accessor of(Class<?> type) {
+            if (Proxy.isProxyClass(type)) {
+                return new Accessor(PLUGIN_TARGET == null ? Kind.NONE : Kind.PROXY, null);
+            }
+            Field ms = findField(type, "mappedStatement", MappedStatement.class);
+            if (ms != null) {
+                return new Accessor(Kind.MAPPED_STATEMENT, ms);
+            }
+            Field delegate = findField(type, "delegate", StatementHandler.class);
+            if (delegate != null) {
+                return new Accessor(Kind.DELEGATE, delegate);
+            }
+            return new Accessor(Kind.NONE, null);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.linyi.sql.insight.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 分析/输出执行器工厂。
+ * <p>
+ * 项目以 Java 8 为编译目标，虚拟线程通过反射在运行时探测（JDK 21+）。
+ * VIRTUAL 模式下每个任务运行在独立虚拟线程上，并发上限由信号量控制而不是线程数；
+ * 运行环境不支持虚拟线程时回退为固定大小的平台线程池。
+ * </p>
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+public final class SqlInsightExecutors {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlInsightExecutors.class);
+
+    /**
+     * 执行器模式
+     */
+    public enum Mode {
+        /**
+         * 固定大小的平台线程池
+         */
+        PLATFORM,
+        /**
+         * 虚拟线程 + 信号量限流（不支持时回退 PLATFORM）
+         */
+        VIRTUAL,
+        /**
+         * 支持虚拟线程时使用 VIRTUAL，否则 PLATFORM
+         */
+        AUTO;
+
+        /**
+         * 解析模式配置，空或非法时返回 PLATFORM
+         */
+        public static Mode parse(String name) {
+            if (name == null || name.trim().isEmpty())
+                return PLATFORM;
+            try {
+                return valueOf(name.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return PLATFORM;
+            }
+        }
+    }
+
+    /**
+     * Thread.Builder.OfVirtual 原型（name 前缀 + 计数器），为null表示当前 JDK 不支持虚拟线程
+     */
+    private static final Method OF_VIRTUAL;
+    private static final Method BUILDER_NAME;
+    private static final Method BUILDER_FACTORY;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builder.getMethod("name", String.class, long.class);
+            factory = builder.getMethod("factory");
+        } catch (Throwable ignore) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = name;
+        BUILDER_FACTORY = factory;
+    }
+
+    private SqlInsightExecutors() {
+    }
+
+    /**
+     * @return 当前 JDK 是否支持虚拟线程
+     */
+    public static boolean isVirtualThreadSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * 按配置解析实际生效的模式：VIRTUAL/AUTO 在不支持虚拟线程时回退为 PLATFORM
+     *
+     * @param mode 模式配置
+     * @return PLATFORM 或 VIRTUAL
+     */
+    public static Mode resolve(String mode) {
+        Mode m = Mode.parse(mode);
+        if (m == Mode.PLATFORM)
+            return Mode.PLATFORM;
+        if (isVirtualThreadSupported())
+            return Mode.VIRTUAL;
+        if (m == Mode.VIRTUAL)
+            log.warn("[SqlInsight] virtual threads are not available on this JVM, falling back to platform threads");
+        return Mode.PLATFORM;
+    }
+
+    /**
+     * 创建线程工厂：VIRTUAL 模式创建命名虚拟线程，否则创建命名守护平台线程
+     *
+     * @param mode   模式配置
+     * @param prefix 线程名前缀
+     * @return 线程工厂
+     */
+    public static ThreadFactory threadFactory(String mode, String prefix) {
+        if (resolve(mode) == Mode.VIRTUAL) {
+            ThreadFactory factory = virtualThreadFactory(prefix);
+            if (factory != null)
+                return factory;
+        }
+        return platformThreadFactory(prefix);
+    }
+
+    /**
+     * 创建执行器
+     *
+     * @param mode           模式配置
+     * @param maxConcurrency 最大并发任务数（PLATFORM 为线程数，VIRTUAL 为信号量许可数）
+     * @param queueCapacity  等待执行的任务上限，超出抛出 RejectedExecutionException
+     * @return 执行器
+     */
+    public static Executor newExecutor(String mode, int maxConcurrency, int queueCapacity) {
+        int n = Math.max(1, maxConcurrency);
+        int q = Math.max(1, queueCapacity);
+        if (resolve(mode) == Mode.VIRTUAL) {
+            ThreadFactory factory = virtualThreadFactory("sql-insight-vt-");
+            if (factory != null)
+                return new VirtualThreadExecutor(factory, n, q);
+        }
+        return new ThreadPoolExecutor(n, n, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(q),
+                platformThreadFactory("sql-insight-async-"));
+    }
+
+    private static ThreadFactory virtualThreadFactory(String prefix) {
+        try {
+            Object builder = OF_VIRTUAL.invoke(null);
+            builder = BUILDER_NAME.invoke(builder, prefix, 0L);
+            return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+        } catch (Throwable e) {
+            log.warn("[SqlInsight] failed to create virtual thread factory, falling back to platform threads: {}",
+                    e.toString());
+            return null;
+        }
+    }
+
+    private static ThreadFactory platformThreadFactory(String prefix) {
+        AtomicInteger seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + seq.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * 每任务一个虚拟线程的执行器：任务在虚拟线程内等待信号量许可，等待中的任务数超过上限时拒绝提交
+     */
+    static final class VirtualThreadExecutor implements Executor {
+
+        private final ThreadFactory factory;
+        private final Semaphore permits;
+        private final int maxPending;
+        private final AtomicInteger pending = new AtomicInteger();
+
+        VirtualThreadExecutor(ThreadFactory factory, int maxConcurrency, int maxPending) {
+            this.factory = factory;
+            this.permits = new Semaphore(maxConcurrency);
+            this.maxPending = maxPending;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (task == null)
+                throw new NullPointerException();
+            if (pending.incrementAndGet() > maxPending) {
+                pending.decrementAndGet();
+                throw new RejectedExecutionException("sql-insight virtual executor is saturated");
+            }
+            Thread t = factory.newThread(() -> {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    pending.decrementAndGet();
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                pending.decrementAndGet();
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+            if (t == null) {
+                pending.decrementAndGet();
+                throw new RejectedExecutionException("sql-insight virtual executor failed to create thread");
+            }
+            t.start();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.linyi.sql.insight.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁令牌桶（GCRA 实现）：仅用一个 AtomicLong 记录“理论到达时间”，通过 CAS 获取令牌。
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+public final class TokenBucket {
+
+    /**
+     * 每个令牌对应的时间间隔（纳秒）
+     */
+    private final long intervalNanos;
+
+    /**
+     * 允许的突发容忍时间（纳秒），即桶容量 * 间隔
+     */
+    private final long burstNanos;
+
+    /**
+     * 理论到达时间（纳秒）
+     */
+    private final AtomicLong tat;
+
+    /**
+     * @param permitsPerSecond 每秒令牌数，必须大于0
+     * @param burst            桶容量（允许的突发数），小于1时按1处理
+     */
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0)
+            throw new IllegalArgumentException("permitsPerSecond must be positive: " + permitsPerSecond);
+        this.intervalNanos = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burstNanos = intervalNanos * Math.max(1, burst);
+        this.tat = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * 按速率创建令牌桶，桶容量为一秒的令牌数
+     *
+     * @param permitsPerSecond 每秒令牌数
+     * @return 令牌桶
+     */
+    public static TokenBucket perSecond(double permitsPerSecond) {
+        return new TokenBucket(permitsPerSecond, (int) Math.ceil(permitsPerSecond));
+    }
+
+    /**
+     * 尝试获取一个令牌（非阻塞）
+     *
+     * @return true表示获取成功，false表示超出速率
+     */
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+        while (true) {
+            long t = tat.get();
+            long next = (t - now > 0 ? t : now) + intervalNanos;
+            if (next - now > burstNanos)
+                return false;
+            if (tat.compareAndSet(t, next))
+                return true;
+        }
+    }
+
+    /**
+     * 归还一个已获取的令牌（获取后因其它条件放弃操作时调用）
+     */
+    public void refund() {
+        tat.addAndGet(-intervalNanos);
+    }
+}
@@ -22,11 +22,29 @@
 
 package com.linyi.sql.insight.extract;
 
-import java.util.regex.Pattern;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 
 /**
- * 基础敏感字段脱敏。采用启发式正则：将 \n(password|token|mobile|id_card|email)\s*=\s*(值)\n 替换为
- * ****。
+ * 敏感字段脱敏引擎。敏感关键字列表（大小写不敏感）编译为 Aho-Corasick 自动机，对 SQL 做一次线性扫描，
+ * 列名中包含任一关键字（如 {@code user_password}、{@code access_token}）即视为敏感列，
+ * 将敏感列对应的字面量值替换为 '****'，支持：
+ * <ul>
+ *     <li>{@code col = 值}、{@code col != 值}、{@code col <> 值}、{@code col like 值}（含 {@code t.col}、{@code `col`}）</li>
+ *     <li>{@code col [not] in (值, 值, ...)}（子查询不处理）</li>
+ *     <li>{@code insert into t (a, col, ...) values (..), (..)}：按列位置脱敏每个 VALUES 元组</li>
+ * </ul>
+ * 字符串字面量与注释会被整体跳过，{@code ?} 占位符保持不变；无需脱敏时返回原字符串，不产生额外分配。
  * 简单实现，不追求 100% 场景覆盖，但保证安全优先。
  *
  * @author linyi
@@ -34,8 +52,91 @@ import java.util.regex.Pattern;
  */
 public class SensitiveFieldMasker {
 
-    private static final Pattern KV_PATTERN = Pattern.compile(
-            "(?i)(password|token|mobile|id_card|email)\\s*=\\s*('.*?'|\\d+|[A-Za-z0-9_@.-]+)");
+    /**
+     * 默认敏感列
+     */
+    public static final List<String> DEFAULT_COLUMNS = java.util.Collections.unmodifiableList(
+            Arrays.asList("password", "token", "mobile", "id_card", "email"));
+
+    private static final String MASK = "'****'";
+    private static final int ALPHABET = 128;
+
+    /**
+     * 关键字自动机（稠密 DFA）：状态 i 读入字符 c 后转移到 {@code next[i * 128 + c]}，0 为根状态
+     */
+    private final int[] next;
+    /**
+     * 状态是否命中某个关键字（已沿失败链接合并）
+     */
+    private final boolean[] terminal;
+
+    public SensitiveFieldMasker() {
+        this(DEFAULT_COLUMNS);
+    }
+
+    /**
+     * @param columns 敏感列名关键字（大小写不敏感，列名包含即命中），为空时使用默认列
+     */
+    public SensitiveFieldMasker(Collection<String> columns) {
+        Collection<String> cols = columns == null || columns.isEmpty() ? DEFAULT_COLUMNS : columns;
+        List<int[]> children = new ArrayList<>();
+        List<Boolean> term = new ArrayList<>();
+        children.add(new int[ALPHABET]);
+        term.add(false);
+        for (String col : cols) {
+            if (col == null)
+                continue;
+            String k = col.trim().toLowerCase();
+            if (k.isEmpty())
+                continue;
+            int node = 0;
+            boolean ascii = true;
+            for (int i = 0; i < k.length() && ascii; i++) {
+                char c = k.charAt(i);
+                if (c >= ALPHABET) {
+                    ascii = false;
+                    break;
+                }
+                int child = children.get(node)[c];
+                if (child == 0) {
+                    child = children.size();
+                    children.add(new int[ALPHABET]);
+                    term.add(false);
+                    children.get(node)[c] = child;
+                }
+                node = child;
+            }
+            if (ascii)
+                term.set(node, true);
+        }
+        int n = children.size();
+        this.next = new int[n * ALPHABET];
+        this.terminal = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(children.get(i), 0, next, i * ALPHABET, ALPHABET);
+            terminal[i] = term.get(i);
+        }
+        // BFS 计算失败链接，将前缀树补全为 DFA（根状态缺失的转移保持为 0）
+        int[] fail = new int[n];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            if (next[c] != 0)
+                queue.add(next[c]);
+        }
+        while (!queue.isEmpty()) {
+            int s = queue.poll();
+            terminal[s] |= terminal[fail[s]];
+            for (int c = 0; c < ALPHABET; c++) {
+                int child = children.get(s)[c];
+                if (child == 0) {
+                    next[s * ALPHABET + c] = next[fail[s] * ALPHABET + c];
+                } else {
+                    fail[child] = next[fail[s] * ALPHABET + c];
+                    queue.add(child);
+                }
+            }
+        }
+    }
 
     /**
      * 对SQL语句中的敏感信息进行掩码处理
@@ -47,18 +148,422 @@ public class SensitiveFieldMasker {
         if (sql == null || sql.isEmpty()) {
             return sql;
         }
-        // 使用预定义的正则表达式模式匹配SQL中的键值对
-        java.util.regex.Matcher matcher = KV_PATTERN.matcher(sql);
-        StringBuffer sb = new StringBuffer();
-        // 遍历所有匹配项，将值部分替换为掩码
-        while (matcher.find()) {
-            String group1 = matcher.group(1);
-            String replacement = group1 + "='****'";
-            matcher.appendReplacement(sb, java.util.regex.Matcher.quoteReplacement(replacement));
-        }
-        // 将剩余未匹配的部分添加到结果中
-        matcher.appendTail(sb);
-        return sb.toString();
+        return new Scan(sql).run();
+    }
+
+    /**
+     * 对 JSON 文本（如 EXPLAIN FORMAT=JSON）中的每个字符串值按 SQL 脱敏。
+     * <p>
+     * attached_condition、index_condition 等字段以 JSON 字符串承载带实参的表达式（如 {@code (o.phone = '138...')}），
+     * 直接对整段 JSON 调用 {@link #mask} 会因双引号字符串被跳过而漏掉，因此逐个解码字符串值后再脱敏。
+     * 无需脱敏时返回原字符串。
+     * </p>
+     *
+     * @param json JSON 文本
+     * @return 脱敏后的 JSON；无法解析时返回null（宁可不输出也不输出未脱敏的内容）
+     */
+    public String maskJson(String json) {
+        if (json == null || json.isEmpty())
+            return json;
+        StringWriter buf = new StringWriter(json.length());
+        boolean changed = false;
+        try (JsonReader in = new JsonReader(new StringReader(json)); JsonWriter out = new JsonWriter(buf)) {
+            out.setHtmlSafe(false);
+            int depth = 0;
+            do {
+                switch (in.peek()) {
+                    case BEGIN_OBJECT:
+                        in.beginObject();
+                        out.beginObject();
+                        depth++;
+                        break;
+                    case END_OBJECT:
+                        in.endObject();
+                        out.endObject();
+                        depth--;
+                        break;
+                    case BEGIN_ARRAY:
+                        in.beginArray();
+                        out.beginArray();
+                        depth++;
+                        break;
+                    case END_ARRAY:
+                        in.endArray();
+                        out.endArray();
+                        depth--;
+                        break;
+                    case NAME:
+                        out.name(in.nextName());
+                        break;
+                    case STRING:
+                        String value = in.nextString();
+                        String masked = mask(value);
+                        changed |= masked != value;
+                        out.value(masked);
+                        break;
+                    case NUMBER:
+                        out.jsonValue(in.nextString());
+                        break;
+                    case BOOLEAN:
+                        out.value(in.nextBoolean());
+                        break;
+                    case NULL:
+                        in.nextNull();
+                        out.nullValue();
+                        break;
+                    default:
+                        return null;
+                }
+            } while (depth > 0);
+            if (in.peek() != JsonToken.END_DOCUMENT)
+                return null;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+        return changed ? buf.toString() : json;
+    }
+
+    /**
+     * 判断 sql[start, end) 是否为敏感列名：包含任一敏感关键字即命中
+     */
+    private boolean isSensitive(String sql, int start, int end) {
+        int state = 0;
+        for (int i = start; i < end; i++) {
+            char c = sql.charAt(i);
+            if (c >= ALPHABET) {
+                // 非 ASCII 字符不属于任何关键字，回到根状态
+                state = 0;
+                continue;
+            }
+            if (c >= 'A' && c <= 'Z')
+                c += 'a' - 'A';
+            state = next[state * ALPHABET + c];
+            if (terminal[state])
+                return true;
+        }
+        return false;
+    }
+
+    private static final int INSERT_NONE = 0;
+    private static final int INSERT_EXPECT_COLUMNS = 1;
+    private static final int INSERT_EXPECT_VALUES = 2;
+
+    /**
+     * 单次扫描状态
+     */
+    private final class Scan {
+        private final String sql;
+        private final int len;
+        private StringBuilder out;
+        private int copied;
+
+        private int insertState = INSERT_NONE;
+        private boolean[] sensitivePositions;
+
+        Scan(String sql) {
+            this.sql = sql;
+            this.len = sql.length();
+        }
+
+        String run() {
+            int i = 0;
+            while (i < len) {
+                char c = sql.charAt(i);
+                if (c == '\'' || c == '"') {
+                    i = skipQuoted(i, c);
+                } else if (isCommentStart(i)) {
+                    i = skipComment(i);
+                } else if (c == '`') {
+                    int end = skipQuoted(i, '`');
+                    int nameEnd = Math.max(i + 1, end - 1);
+                    i = onIdentifier(i + 1, nameEnd, end);
+                } else if (isIdentStart(c)) {
+                    int end = i;
+                    while (end < len && isIdentPart(sql.charAt(end)))
+                        end++;
+                    i = onIdentifier(i, end, end);
+                } else if (c >= '0' && c <= '9') {
+                    // 数字字面量整体跳过，避免 1e5、0x1f 之类被当作标识符
+                    while (i < len && isIdentPart(sql.charAt(i)))
+                        i++;
+                } else if (c == '(' && insertState == INSERT_EXPECT_COLUMNS) {
+                    i = readInsertColumns(i);
+                } else {
+                    i++;
+                }
+            }
+            if (out == null)
+                return sql;
+            out.append(sql, copied, len);
+            return out.toString();
+        }
+
+        /**
+         * 处理一个标识符 sql[start, end)，after 为标识符（含引号）之后的位置，返回继续扫描的位置
+         */
+        private int onIdentifier(int start, int end, int after) {
+            int n = end - start;
+            if (n == 6 && (regionIs(start, "insert") || regionIs(start, "select")) || n == 7 && regionIs(start, "replace")) {
+                insertState = regionIs(start, "select") ? INSERT_NONE : INSERT_EXPECT_COLUMNS;
+                sensitivePositions = null;
+                return after;
+            }
+            if (n == 6 && regionIs(start, "values") || n == 5 && regionIs(start, "value")
+                    || n == 3 && regionIs(start, "set")) {
+                // 没有列清单的 insert ... values / insert ... set 不按位置脱敏
+                boolean tuples = insertState == INSERT_EXPECT_VALUES && sensitivePositions != null && n != 3;
+                insertState = INSERT_NONE;
+                if (tuples)
+                    return maskValueTuples(after);
+            }
+            if (!isSensitive(sql, start, end))
+                return after;
+
+            // 敏感列：识别其后的比较运算符
+            int p = skipSpaces(after);
+            if (p >= len)
+                return after;
+            char c = sql.charAt(p);
+            if (c == '=') {
+                return maskScalar(skipSpaces(p + 1), after);
+            }
+            if ((c == '!' || c == '<') && p + 1 < len && (sql.charAt(p + 1) == '=' || c == '<' && sql.charAt(p + 1) == '>')) {
+                return maskScalar(skipSpaces(p + 2), after);
+            }
+            int wordEnd = wordEnd(p);
+            if (wordEnd - p == 3 && regionIs(p, "not")) {
+                p = skipSpaces(wordEnd);
+                wordEnd = wordEnd(p);
+            }
+            if (wordEnd - p == 4 && regionIs(p, "like")) {
+                return maskScalar(skipSpaces(wordEnd), after);
+            }
+            if (wordEnd - p == 2 && regionIs(p, "in")) {
+                int q = skipSpaces(wordEnd);
+                if (q < len && sql.charAt(q) == '(') {
+                    return maskList(q, null);
+                }
+            }
+            return after;
+        }
+
+        /**
+         * 脱敏单个值：字符串字面量、数字或简单单词；占位符与子表达式不处理
+         */
+        private int maskScalar(int p, int fallback) {
+            if (p >= len)
+                return fallback;
+            char c = sql.charAt(p);
+            int end;
+            if (c == '\'' || c == '"') {
+                end = skipQuoted(p, c);
+            } else if (isBareValueChar(c)) {
+                end = p;
+                while (end < len && isBareValueChar(sql.charAt(end)))
+                    end++;
+            } else {
+                return fallback;
+            }
+            replace(p, end);
+            return end;
+        }
+
+        /**
+         * 脱敏括号列表中的元素：positions 为null时全部元素脱敏，否则仅脱敏对应位置；返回右括号之后的位置
+         */
+        private int maskList(int open, boolean[] positions) {
+            int p = skipSpaces(open + 1);
+            // 子查询不处理
+            if (wordEnd(p) - p == 6 && regionIs(p, "select"))
+                return p;
+            int index = 0;
+            int elemStart = p;
+            int depth = 0;
+            int i = p;
+            while (i < len) {
+                char c = sql.charAt(i);
+                if (c == '\'' || c == '"' || c == '`') {
+                    i = skipQuoted(i, c);
+                    continue;
+                }
+                if (c == '(') {
+                    depth++;
+                } else if (c == ')' && depth > 0) {
+                    depth--;
+                } else if ((c == ',' || c == ')') && depth == 0) {
+                    if (positions == null || index < positions.length && positions[index])
+                        maskElement(elemStart, i);
+                    index++;
+                    if (c == ')')
+                        return i + 1;
+                    elemStart = i + 1;
+                }
+                i++;
+            }
+            return len;
+        }
+
+        private void maskElement(int start, int end) {
+            int s = skipSpaces(start);
+            int e = end;
+            while (e > s && Character.isWhitespace(sql.charAt(e - 1)))
+                e--;
+            if (e <= s)
+                return;
+            if (e - s == 1 && sql.charAt(s) == '?')
+                return;
+            replace(s, e);
+        }
+
+        /**
+         * 读取 insert 的列清单，记录敏感列位置；返回右括号之后的位置
+         */
+        private int readInsertColumns(int open) {
+            List<Boolean> flags = null;
+            boolean any = false;
+            int index = 0;
+            int i = open + 1;
+            while (i < len) {
+                char c = sql.charAt(i);
+                if (c == ')') {
+                    i++;
+                    break;
+                }
+                if (c == '\'' || c == '"') {
+                    i = skipQuoted(i, c);
+                    continue;
+                }
+                if (c == ',') {
+                    index++;
+                    i++;
+                    continue;
+                }
+                int s, e;
+                if (c == '`') {
+                    int end = skipQuoted(i, '`');
+                    s = i + 1;
+                    e = Math.max(s, end - 1);
+                    i = end;
+                } else if (isIdentStart(c)) {
+                    s = i;
+                    while (i < len && isIdentPart(sql.charAt(i)))
+                        i++;
+                    e = i;
+                } else {
+                    i++;
+                    continue;
+                }
+                // 限定名（t.col）以最后一段为准
+                if (i < len && sql.charAt(i) == '.')
+                    continue;
+                if (isSensitive(sql, s, e)) {
+                    if (flags == null)
+                        flags = new ArrayList<>();
+                    while (flags.size() <= index)
+                        flags.add(Boolean.FALSE);
+                    flags.set(index, Boolean.TRUE);
+                    any = true;
+                }
+            }
+            if (any) {
+                sensitivePositions = new boolean[flags.size()];
+                for (int k = 0; k < flags.size(); k++)
+                    sensitivePositions[k] = flags.get(k);
+            }
+            insertState = INSERT_EXPECT_VALUES;
+            return i;
+        }
+
+        /**
+         * 脱敏 VALUES 之后的所有元组；返回最后一个元组之后的位置
+         */
+        private int maskValueTuples(int p) {
+            int i = skipSpaces(p);
+            while (i < len && sql.charAt(i) == '(') {
+                i = skipSpaces(maskList(i, sensitivePositions));
+                if (i < len && sql.charAt(i) == ',')
+                    i = skipSpaces(i + 1);
+                else
+                    break;
+            }
+            return i;
+        }
+
+        private void replace(int start, int end) {
+            if (out == null)
+                out = new StringBuilder(len + 16);
+            out.append(sql, copied, start).append(MASK);
+            copied = end;
+        }
+
+        private boolean regionIs(int start, String lowerWord) {
+            return sql.regionMatches(true, start, lowerWord, 0, lowerWord.length());
+        }
+
+        private int wordEnd(int p) {
+            int e = p;
+            while (e < len && isIdentPart(sql.charAt(e)))
+                e++;
+            return e;
+        }
+
+        private int skipSpaces(int i) {
+            while (i < len && Character.isWhitespace(sql.charAt(i)))
+                i++;
+            return i;
+        }
+
+        private boolean isCommentStart(int i) {
+            char c = sql.charAt(i);
+            if (c == '#')
+                return true;
+            if (i + 1 >= len)
+                return false;
+            char d = sql.charAt(i + 1);
+            return c == '-' && d == '-' || c == '/' && d == '*';
+        }
+
+        private int skipComment(int i) {
+            if (sql.charAt(i) == '/') {
+                int close = sql.indexOf("*/", i + 2);
+                return close < 0 ? len : close + 2;
+            }
+            while (i < len && sql.charAt(i) != '\n')
+                i++;
+            return i;
+        }
+
+        private int skipQuoted(int i, char quote) {
+            i++;
+            while (i < len) {
+                char c = sql.charAt(i);
+                if (c == '\\' && quote != '`') {
+                    i += 2;
+                    continue;
+                }
+                if (c == quote) {
+                    // 连续两个引号表示转义
+                    if (i + 1 < len && sql.charAt(i + 1) == quote) {
+                        i += 2;
+                        continue;
+                    }
+                    return i + 1;
+                }
+                i++;
+            }
+            return len;
+        }
     }
 
+    private static boolean isIdentStart(char c) {
+        return c == '_' || c == '$' || Character.isLetter(c);
+    }
+
+    private static boolean isIdentPart(char c) {
+        return c == '_' || c == '$' || Character.isLetterOrDigit(c);
+    }
+
+    private static boolean isBareValueChar(char c) {
+        return c == '_' || c == '@' || c == '.' || c == '-' || c == '+' || Character.isLetterOrDigit(c);
+    }
 }
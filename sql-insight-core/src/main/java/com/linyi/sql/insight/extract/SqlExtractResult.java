@@ -24,6 +24,11 @@ package com.linyi.sql.insight.extract;
 
 /**
  * SQL 提取结果。
+ * <p>
+ * 由 {@link SqlExtractor#extract} 创建时各阶段按需计算：一行化/脱敏/截断在首次读取 masked/truncated 时执行，
+ * EXPLAIN 渲染在首次读取 explainSql 时执行（两者都未计算时一次扫描同时完成）。
+ * 惰性计算不做同步，应在创建线程上使用。
+ * </p>
  * 
  * @author linyi
  * @since 1.0.0
@@ -39,6 +44,24 @@ public class SqlExtractResult {
     /** 截断后的 SQL */
     private String truncatedSql;
 
+    /** 用于 EXPLAIN 的 SQL（一行化、占位符以参数字面量填充、截断） */
+    private String explainSql;
+
+    /** 惰性计算来源，全部阶段计算完成后释放 */
+    private SqlExtractor extractor;
+    private org.apache.ibatis.mapping.BoundSql boundSql;
+    private int maxLength;
+
+    public SqlExtractResult() {
+    }
+
+    SqlExtractResult(SqlExtractor extractor, org.apache.ibatis.mapping.BoundSql boundSql, int maxLength) {
+        this.extractor = extractor;
+        this.boundSql = boundSql;
+        this.maxLength = maxLength;
+        this.rawSql = boundSql.getSql();
+    }
+
     public String getRawSql() {
         return rawSql;
     }
@@ -48,6 +71,8 @@ public class SqlExtractResult {
     }
 
     public String getMaskedSql() {
+        if (maskedSql == null && extractor != null)
+            extractor.render(this, boundSql, maxLength, false);
         return maskedSql;
     }
 
@@ -56,10 +81,39 @@ public class SqlExtractResult {
     }
 
     public String getTruncatedSql() {
+        if (truncatedSql == null && extractor != null)
+            extractor.render(this, boundSql, maxLength, false);
         return truncatedSql;
     }
 
     public void setTruncatedSql(String truncatedSql) {
         this.truncatedSql = truncatedSql;
     }
+
+    public String getExplainSql() {
+        if (explainSql == null && extractor != null)
+            extractor.render(this, boundSql, maxLength, true);
+        return explainSql;
+    }
+
+    public void setExplainSql(String explainSql) {
+        this.explainSql = explainSql;
+    }
+
+    /**
+     * 供 {@link SqlExtractor} 判断一行化阶段是否已完成（不触发计算）
+     */
+    String getTruncatedSqlIfReady() {
+        return truncatedSql;
+    }
+
+    /**
+     * 供 {@link SqlExtractor} 在各阶段计算完成后释放来源引用
+     */
+    void detachIfComplete() {
+        if (truncatedSql != null && explainSql != null) {
+            extractor = null;
+            boundSql = null;
+        }
+    }
 }
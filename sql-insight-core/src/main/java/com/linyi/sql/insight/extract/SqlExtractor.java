@@ -30,13 +30,105 @@ import org.apache.ibatis.reflection.SystemMetaObject;
 
 /**
  * 从 BoundSql 提取最终 SQL，并进行一行化、脱敏与长度截断。
+ * <p>
+ * 两种渲染按需生成：一行化 SQL（保留占位符，用于输出与脱敏）与 EXPLAIN SQL（占位符以参数字面量填充），
+ * 同时需要时在一次线性扫描内完成。
+ * 扫描识别字符串字面量、引用标识符与注释：字面量内部原样保留，其中的 {@code ?} 不会被替换；
+ * 行注释被丢弃，避免一行化后注释吞掉后续 SQL。渲染写入线程复用的缓冲区。
+ * </p>
  *
  * @author linyi
  * @since 1.0.0
  */
 public class SqlExtractor {
 
-    private final SensitiveFieldMasker masker = new SensitiveFieldMasker();
+    /**
+     * 复用缓冲区的最大保留容量，超出后丢弃以免长期占用内存
+     */
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private static final ThreadLocal<StringBuilder[]> BUFFERS = new ThreadLocal<StringBuilder[]>() {
+        @Override
+        protected StringBuilder[] initialValue() {
+            return new StringBuilder[]{new StringBuilder(256), new StringBuilder(256)};
+        }
+    };
+
+    private final SensitiveFieldMasker masker;
+
+    public SqlExtractor() {
+        this(new SensitiveFieldMasker());
+    }
+
+    public SqlExtractor(SensitiveFieldMasker masker) {
+        this.masker = masker == null ? new SensitiveFieldMasker() : masker;
+    }
+
+    /**
+     * 对任意 SQL 文本脱敏（如带参数值的 EXPLAIN SQL 在输出前）
+     *
+     * @param sql SQL 文本
+     * @return 脱敏后的 SQL
+     */
+    public String mask(String sql) {
+        return masker.mask(sql);
+    }
+
+    /**
+     * 对 JSON 文本中的字符串值脱敏（如 EXPLAIN FORMAT=JSON 的 attached_condition）
+     *
+     * @param json JSON 文本
+     * @return 脱敏后的 JSON，无法解析时返回null
+     */
+    public String maskJson(String json) {
+        return masker.maskJson(json);
+    }
+
+    /**
+     * 创建提取结果：各阶段（一行化脱敏截断、EXPLAIN 渲染）在首次读取时才计算，未读取的阶段不产生任何开销
+     *
+     * @param boundSql  包含SQL语句的对象
+     * @param maxLength 最大长度限制
+     * @return 提取结果，输入为空时返回null
+     */
+    public SqlExtractResult extract(BoundSql boundSql, int maxLength) {
+        if (boundSql == null || boundSql.getSql() == null) {
+            return null;
+        }
+        return new SqlExtractResult(this, boundSql, maxLength);
+    }
+
+    /**
+     * 计算提取结果的阶段：一行化阶段未完成时总是计算；withExplain 为 true 时同一次扫描内渲染 EXPLAIN SQL
+     */
+    void render(SqlExtractResult result, BoundSql boundSql, int maxLength, boolean withExplain) {
+        String sql = boundSql.getSql();
+        boolean needLine = result.getTruncatedSqlIfReady() == null;
+        StringBuilder[] buffers = BUFFERS.get();
+        StringBuilder oneLine = buffers[0];
+        StringBuilder explain = withExplain ? buffers[1] : null;
+        oneLine.setLength(0);
+        if (explain != null)
+            explain.setLength(0);
+        try {
+            render(sql, explain == null ? null : new ParameterSource(boundSql), oneLine, explain);
+            String line = oneLine.toString();
+            if (needLine) {
+                // 对SQL语句进行掩码处理
+                String masked = masker.mask(line);
+                result.setMaskedSql(masked);
+                // 根据最大长度截断SQL语句
+                result.setTruncatedSql(SqlLengthTruncatorUtils.truncate(masked, maxLength));
+            }
+            if (explain != null) {
+                result.setExplainSql(SqlLengthTruncatorUtils.truncate(
+                        line.contentEquals(explain) ? line : explain.toString(), maxLength));
+            }
+            result.detachIfComplete();
+        } finally {
+            release(buffers);
+        }
+    }
 
     /**
      * 提取并清理SQL语句
@@ -46,76 +138,172 @@ public class SqlExtractor {
      * @return 清理后的SQL语句，如果输入为空则返回null，否则返回处理后的SQL字符串
      */
     public String extractAndSanitize(BoundSql boundSql, int maxLength) {
-        if (boundSql == null) {
-            return null;
-        }
-        String sql = boundSql.getSql();
-        if (sql == null) {
-            return null;
-        }
-        // 将SQL语句中的多个空白字符替换为单个空格，并去除首尾空格
-        String oneLine = sql.replaceAll("\\s+", " ").trim();
-        // 对SQL语句进行掩码处理
-        String masked = masker.mask(oneLine);
-        // 根据最大长度截断SQL语句
-        return SqlLengthTruncatorUtils.truncate(masked, maxLength);
+        SqlExtractResult result = extract(boundSql, maxLength);
+        return result == null ? null : result.getTruncatedSql();
     }
 
     /**
      * 为 EXPLAIN 场景准备 SQL：在能力范围内用参数对象填充占位符（简单类型）。
-     * 仅处理常见的 String/Number 参数；其它类型回退为原 SQL。
+     * 仅处理常见的 String/Number/Boolean 参数；其它类型填充为 NULL。
      */
     public String extractForExplain(BoundSql boundSql, int maxLength) {
-        if (boundSql == null)
-            return null;
-        String sql = boundSql.getSql();
-        if (sql == null)
-            return null;
-        String oneLine = sql.replaceAll("\\s+", " ").trim();
-        String filled = oneLine;
-        try {
-            java.util.List<ParameterMapping> mappings = boundSql.getParameterMappings();
-            if (mappings != null && !mappings.isEmpty() && oneLine.contains("?")) {
-                Object rootParam = boundSql.getParameterObject();
-                MetaObject meta = rootParam == null ? null : SystemMetaObject.forObject(rootParam);
-                for (ParameterMapping pm : mappings) {
-                    String prop = pm.getProperty();
-                    Object value;
-                    if (boundSql.hasAdditionalParameter(prop)) {
-                        value = boundSql.getAdditionalParameter(prop);
-                    } else if (meta != null && meta.hasGetter(prop)) {
-                        value = meta.getValue(prop);
-                    } else {
-                        value = rootParam;
-                    }
-                    String lit = toSqlLiteral(value);
-                    if (lit == null)
-                        lit = "NULL";
-                    int q = filled.indexOf('?');
-                    if (q < 0)
-                        break;
-                    filled = filled.substring(0, q) + lit + filled.substring(q + 1);
+        SqlExtractResult result = extract(boundSql, maxLength);
+        return result == null ? null : result.getExplainSql();
+    }
+
+    /**
+     * 单次扫描渲染：空白折叠为单个空格并去除首尾空白；字面量与块注释原样复制；行注释丢弃；
+     * 字面量与注释之外的 {@code ?} 在 explain 中按顺序替换为参数字面量；explain 为null时仅渲染一行化 SQL
+     */
+    private void render(String sql, ParameterSource params, StringBuilder oneLine, StringBuilder explain) {
+        int len = sql.length();
+        boolean pendingSpace = false;
+        int i = 0;
+        while (i < len) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = oneLine.length() > 0;
+                i++;
+                continue;
+            }
+            // 行注释：丢弃，按空白处理
+            if (c == '#' || (c == '-' && i + 1 < len && sql.charAt(i + 1) == '-')) {
+                while (i < len && sql.charAt(i) != '\n')
+                    i++;
+                pendingSpace = oneLine.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                oneLine.append(' ');
+                if (explain != null)
+                    explain.append(' ');
+                pendingSpace = false;
+            }
+            int end;
+            if (c == '\'' || c == '"' || c == '`') {
+                end = skipQuoted(sql, i, c);
+            } else if (c == '/' && i + 1 < len && sql.charAt(i + 1) == '*') {
+                int close = sql.indexOf("*/", i + 2);
+                end = close < 0 ? len : close + 2;
+            } else if (c == '?') {
+                oneLine.append('?');
+                if (explain != null)
+                    params.appendNext(explain);
+                i++;
+                continue;
+            } else {
+                oneLine.append(c);
+                if (explain != null)
+                    explain.append(c);
+                i++;
+                continue;
+            }
+            // 字面量/块注释原样复制
+            oneLine.append(sql, i, end);
+            if (explain != null)
+                explain.append(sql, i, end);
+            i = end;
+        }
+    }
+
+    private static int skipQuoted(String sql, int i, char quote) {
+        int len = sql.length();
+        i++;
+        while (i < len) {
+            char c = sql.charAt(i);
+            if (c == '\\' && quote != '`') {
+                i += 2;
+                continue;
+            }
+            if (c == quote) {
+                // 连续两个引号表示转义
+                if (i + 1 < len && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
                 }
+                return i + 1;
             }
-        } catch (Throwable ignore) {
+            i++;
         }
-        return SqlLengthTruncatorUtils.truncate(filled, maxLength);
+        return len;
     }
 
-    private String toSqlLiteral(Object param) {
-        try {
-            if (param instanceof Number) {
-                return String.valueOf(param);
+    private static void release(StringBuilder[] buffers) {
+        for (int i = 0; i < buffers.length; i++) {
+            if (buffers[i].capacity() > MAX_RETAINED_CAPACITY)
+                buffers[i] = new StringBuilder(256);
+        }
+    }
+
+    /**
+     * 按顺序提供占位符对应的参数字面量；参数解析失败后其余占位符保持为 {@code ?}
+     */
+    private static final class ParameterSource {
+        private final BoundSql boundSql;
+        private final java.util.List<ParameterMapping> mappings;
+        private MetaObject meta;
+        private boolean metaResolved;
+        private int index;
+        private boolean failed;
+
+        ParameterSource(BoundSql boundSql) {
+            this.boundSql = boundSql;
+            java.util.List<ParameterMapping> m = null;
+            try {
+                m = boundSql.getParameterMappings();
+            } catch (Throwable ignore) {
+            }
+            this.mappings = m;
+        }
+
+        void appendNext(StringBuilder out) {
+            if (failed || mappings == null || index >= mappings.size()) {
+                out.append('?');
+                return;
             }
-            if (param instanceof CharSequence) {
-                String s = param.toString().replace("'", "''");
-                return "'" + s + "'";
+            try {
+                String prop = mappings.get(index++).getProperty();
+                Object rootParam = boundSql.getParameterObject();
+                Object value;
+                if (boundSql.hasAdditionalParameter(prop)) {
+                    value = boundSql.getAdditionalParameter(prop);
+                } else {
+                    MetaObject m = metaObject(rootParam);
+                    value = m != null && m.hasGetter(prop) ? m.getValue(prop) : rootParam;
+                }
+                appendLiteral(out, value);
+            } catch (Throwable e) {
+                failed = true;
+                out.append('?');
             }
-            if (param instanceof Boolean) {
-                return (Boolean) param ? "1" : "0";
+        }
+
+        private MetaObject metaObject(Object rootParam) {
+            if (!metaResolved) {
+                meta = rootParam == null ? null : SystemMetaObject.forObject(rootParam);
+                metaResolved = true;
+            }
+            return meta;
+        }
+    }
+
+    private static void appendLiteral(StringBuilder out, Object param) {
+        if (param instanceof Number) {
+            out.append(param);
+        } else if (param instanceof CharSequence) {
+            CharSequence s = (CharSequence) param;
+            out.append('\'');
+            for (int i = 0, n = s.length(); i < n; i++) {
+                char c = s.charAt(i);
+                if (c == '\'')
+                    out.append('\'');
+                out.append(c);
             }
-        } catch (Throwable ignore) {
+            out.append('\'');
+        } else if (param instanceof Boolean) {
+            out.append((Boolean) param ? '1' : '0');
+        } else {
+            out.append("NULL");
         }
-        return null;
     }
 }
@@ -0,0 +1,444 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.linyi.sql.insight.extract;
+
+/**
+ * SQL 指纹：单次扫描、无正则地对 SQL 做词法归一化并计算 64 位指纹。
+ * <p>
+ * 归一化规则：
+ * - 忽略空白与注释（--、#、/* *&#47;），关键字/标识符统一小写；
+ * - 字符串、数字字面量与占位符统一为 ?；
+ * - IN (...) 中仅由值组成的列表折叠为 (?)，与列表长度无关；
+ * - VALUES 后的多个元组仅保留第一个。
+ * </p>
+ * 同一“查询形态”得到同一指纹，可作为去重、缓存、聚合与输出的统一标识。
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+public final class SqlFingerprinter {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // 处理状态
+    private static final int NORMAL = 0;
+    private static final int IN_PENDING = 1;
+    private static final int VALUES_EXPECT_TUPLE = 2;
+    private static final int VALUES_IN_TUPLE = 3;
+    private static final int VALUES_AFTER_TUPLE = 4;
+    private static final int VALUES_PENDING_COMMA = 5;
+    private static final int VALUES_SKIP_TUPLE = 6;
+
+    // 词法单元类型
+    private static final int T_WORD = 0;
+    private static final int T_VALUE = 1;
+    private static final int T_PUNCT = 2;
+
+    private SqlFingerprinter() {
+    }
+
+    /**
+     * 计算 SQL 的 64 位指纹
+     *
+     * @param sql SQL 语句，可以为null
+     * @return 指纹值，null 与空串返回0
+     */
+    public static long fingerprint(String sql) {
+        if (sql == null || sql.isEmpty())
+            return 0L;
+        Engine e = new Engine(sql, null);
+        e.run();
+        return mix(e.hash);
+    }
+
+    /**
+     * 返回 SQL 的归一化文本（与指纹使用同一套规则，主要用于展示与排查）
+     *
+     * @param sql SQL 语句，可以为null
+     * @return 归一化后的 SQL，输入为null时返回null
+     */
+    public static String normalize(String sql) {
+        if (sql == null)
+            return null;
+        StringBuilder sb = new StringBuilder(Math.min(sql.length(), 1024));
+        new Engine(sql, sb).run();
+        return sb.toString();
+    }
+
+    /**
+     * 将指纹格式化为定长 16 位十六进制字符串
+     *
+     * @param fingerprint 指纹值
+     * @return 十六进制表示
+     */
+    public static String toHex(long fingerprint) {
+        String hex = Long.toHexString(fingerprint);
+        if (hex.length() == 16)
+            return hex;
+        StringBuilder sb = new StringBuilder(16);
+        for (int i = hex.length(); i < 16; i++)
+            sb.append('0');
+        return sb.append(hex).toString();
+    }
+
+    /**
+     * 将附加标识（如 sqlId）混入指纹，得到组合键
+     *
+     * @param fingerprint 指纹值
+     * @param extra       附加标识，可以为null
+     * @return 组合后的 64 位键
+     */
+    public static long combine(long fingerprint, String extra) {
+        long h = FNV_OFFSET;
+        if (extra != null) {
+            for (int i = 0; i < extra.length(); i++) {
+                h ^= extra.charAt(i);
+                h *= FNV_PRIME;
+            }
+        }
+        return mix(fingerprint ^ (h * 0x9e3779b97f4a7c15L));
+    }
+
+    /**
+     * 64 位终结混淆（MurmurHash3 fmix64），提升低位分布均匀性
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 单次扫描引擎：词法切分与归一化状态机合一
+     */
+    private static final class Engine {
+        private final String s;
+        private final int n;
+        private final StringBuilder out;
+        private long hash = FNV_OFFSET;
+        private boolean first = true;
+
+        private int state = NORMAL;
+        // IN 列表待定状态：已累计的值个数、是否期待下一个值
+        private int pendingValues;
+        private boolean expectValue;
+        // VALUES 元组括号深度
+        private int depth;
+        // 上一个词（仅记录是否为 in / values）
+        private boolean prevIn;
+        private boolean prevValues;
+
+        Engine(String s, StringBuilder out) {
+            this.s = s;
+            this.n = s.length();
+            this.out = out;
+        }
+
+        void run() {
+            int i = 0;
+            while (i < n) {
+                char c = s.charAt(i);
+                // 空白
+                if (c <= ' ') {
+                    i++;
+                    continue;
+                }
+                // 注释：-- 行注释
+                if (c == '-' && i + 1 < n && s.charAt(i + 1) == '-') {
+                    i = skipLine(i + 2);
+                    continue;
+                }
+                // 注释：# 行注释
+                if (c == '#') {
+                    i = skipLine(i + 1);
+                    continue;
+                }
+                // 注释：块注释
+                if (c == '/' && i + 1 < n && s.charAt(i + 1) == '*') {
+                    int end = s.indexOf("*/", i + 2);
+                    i = end < 0 ? n : end + 2;
+                    continue;
+                }
+                // 字符串字面量
+                if (c == '\'' || c == '"') {
+                    i = skipQuoted(i, c);
+                    token(T_VALUE, 0, 0);
+                    continue;
+                }
+                // 反引号标识符：去掉反引号按普通标识符处理
+                if (c == '`') {
+                    int end = s.indexOf('`', i + 1);
+                    int stop = end < 0 ? n : end;
+                    token(T_WORD, i + 1, stop);
+                    i = end < 0 ? n : end + 1;
+                    continue;
+                }
+                // 数字字面量（含小数、科学计数与 0x 十六进制）
+                if (isDigit(c) || (c == '.' && i + 1 < n && isDigit(s.charAt(i + 1)))) {
+                    i = skipNumber(i);
+                    token(T_VALUE, 0, 0);
+                    continue;
+                }
+                // 占位符
+                if (c == '?') {
+                    i++;
+                    token(T_VALUE, 0, 0);
+                    continue;
+                }
+                // 关键字/标识符
+                if (isWordChar(c)) {
+                    int start = i;
+                    while (i < n && isWordChar(s.charAt(i)))
+                        i++;
+                    token(T_WORD, start, i);
+                    continue;
+                }
+                // 其它符号逐字符作为独立单元
+                token(T_PUNCT, i, i + 1);
+                i++;
+            }
+            // 结束时仍处于待定状态：按原样回放
+            if (state == IN_PENDING) {
+                flushInPending();
+            } else if (state == VALUES_PENDING_COMMA) {
+                emitChar(',');
+            }
+        }
+
+        /**
+         * 处理一个词法单元，驱动归一化状态机
+         */
+        private void token(int type, int start, int end) {
+            char p = type == T_PUNCT ? s.charAt(start) : 0;
+            switch (state) {
+                case IN_PENDING:
+                    if (type == T_VALUE && expectValue) {
+                        pendingValues++;
+                        expectValue = false;
+                        return;
+                    }
+                    if (p == ',' && !expectValue) {
+                        expectValue = true;
+                        return;
+                    }
+                    if (p == ')' && !expectValue && pendingValues > 0) {
+                        // 纯值列表：折叠为 (?)
+                        state = NORMAL;
+                        emitChar('(');
+                        emitChar('?');
+                        emitChar(')');
+                        remember(type, start, end);
+                        return;
+                    }
+                    // 非纯值列表（如子查询）：回放已吞掉的部分后按普通单元处理
+                    flushInPending();
+                    break;
+                case VALUES_EXPECT_TUPLE:
+                    if (p == '(') {
+                        state = VALUES_IN_TUPLE;
+                        depth = 1;
+                        emit(type, start, end);
+                        return;
+                    }
+                    state = NORMAL;
+                    break;
+                case VALUES_IN_TUPLE:
+                    if (p == '(') {
+                        depth++;
+                    } else if (p == ')' && --depth == 0) {
+                        state = VALUES_AFTER_TUPLE;
+                    }
+                    emit(type, start, end);
+                    return;
+                case VALUES_AFTER_TUPLE:
+                    if (p == ',') {
+                        state = VALUES_PENDING_COMMA;
+                        return;
+                    }
+                    state = NORMAL;
+                    break;
+                case VALUES_PENDING_COMMA:
+                    if (p == '(') {
+                        // 后续元组整体忽略
+                        state = VALUES_SKIP_TUPLE;
+                        depth = 1;
+                        return;
+                    }
+                    emitChar(',');
+                    state = NORMAL;
+                    break;
+                case VALUES_SKIP_TUPLE:
+                    if (p == '(') {
+                        depth++;
+                    } else if (p == ')' && --depth == 0) {
+                        state = VALUES_AFTER_TUPLE;
+                    }
+                    return;
+                default:
+                    break;
+            }
+            // NORMAL
+            if (p == '(' && prevIn) {
+                state = IN_PENDING;
+                pendingValues = 0;
+                expectValue = true;
+                prevIn = false;
+                return;
+            }
+            emit(type, start, end);
+            remember(type, start, end);
+            if (prevValues) {
+                state = VALUES_EXPECT_TUPLE;
+            }
+        }
+
+        /**
+         * 记录上一个词是否为 in / values
+         */
+        private void remember(int type, int start, int end) {
+            prevIn = type == T_WORD && wordEquals(start, end, "in");
+            prevValues = type == T_WORD && (wordEquals(start, end, "values") || wordEquals(start, end, "value"));
+        }
+
+        /**
+         * 回放 IN 待定列表：( ? , ? ...
+         */
+        private void flushInPending() {
+            state = NORMAL;
+            emitChar('(');
+            for (int k = 0; k < pendingValues; k++) {
+                emitChar('?');
+                if (k < pendingValues - 1 || expectValue)
+                    emitChar(',');
+            }
+        }
+
+        private void emit(int type, int start, int end) {
+            if (type == T_VALUE) {
+                emitChar('?');
+                return;
+            }
+            separator();
+            for (int k = start; k < end; k++) {
+                append(Character.toLowerCase(s.charAt(k)));
+            }
+        }
+
+        private void emitChar(char c) {
+            separator();
+            append(c);
+        }
+
+        private void separator() {
+            if (first) {
+                first = false;
+                return;
+            }
+            append(' ');
+        }
+
+        private void append(char c) {
+            hash ^= c;
+            hash *= FNV_PRIME;
+            if (out != null)
+                out.append(c);
+        }
+
+        private boolean wordEquals(int start, int end, String lower) {
+            if (end - start != lower.length())
+                return false;
+            for (int k = 0; k < lower.length(); k++) {
+                if (Character.toLowerCase(s.charAt(start + k)) != lower.charAt(k))
+                    return false;
+            }
+            return true;
+        }
+
+        private int skipLine(int i) {
+            while (i < n && s.charAt(i) != '\n')
+                i++;
+            return i;
+        }
+
+        private int skipQuoted(int i, char quote) {
+            i++;
+            while (i < n) {
+                char c = s.charAt(i);
+                if (c == '\\') {
+                    i += 2;
+                    continue;
+                }
+                if (c == quote) {
+                    // 连续两个引号为转义
+                    if (i + 1 < n && s.charAt(i + 1) == quote) {
+                        i += 2;
+                        continue;
+                    }
+                    return i + 1;
+                }
+                i++;
+            }
+            return n;
+        }
+
+        private int skipNumber(int i) {
+            if (s.charAt(i) == '0' && i + 1 < n && (s.charAt(i + 1) == 'x' || s.charAt(i + 1) == 'X')) {
+                i += 2;
+                while (i < n && Character.digit(s.charAt(i), 16) >= 0)
+                    i++;
+                return i;
+            }
+            while (i < n) {
+                char c = s.charAt(i);
+                if (isDigit(c) || c == '.') {
+                    i++;
+                } else if ((c == 'e' || c == 'E') && i + 1 < n) {
+                    char next = s.charAt(i + 1);
+                    if (isDigit(next)) {
+                        i += 2;
+                    } else if ((next == '+' || next == '-') && i + 2 < n && isDigit(s.charAt(i + 2))) {
+                        i += 3;
+                    } else {
+                        break;
+                    }
+                } else {
+                    break;
+                }
+            }
+            return i;
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+
+        private static boolean isWordChar(char c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c) || c == '_' || c == '$'
+                    || c == '@' || c > 127 && Character.isLetterOrDigit(c);
+        }
+    }
+}
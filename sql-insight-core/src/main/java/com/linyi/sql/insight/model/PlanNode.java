@@ -0,0 +1,342 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.linyi.sql.insight.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * EXPLAIN FORMAT=JSON 的类型化计划树节点。
+ * <p>
+ * 按节点种类保留优化器输出的全部结构：查询块、表访问、嵌套循环、排序/分组/去重/窗口操作、
+ * UNION 结果、物化子查询与各类附加子查询，以及代价（cost_info）与行数估计。
+ * 不适用于当前种类的字段保持为null。
+ * </p>
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+public final class PlanNode {
+
+    /**
+     * 节点种类
+     */
+    public enum Kind {
+        /** query_block */
+        QUERY_BLOCK,
+        /** table */
+        TABLE,
+        /** nested_loop */
+        NESTED_LOOP,
+        /** ordering_operation */
+        ORDERING,
+        /** grouping_operation */
+        GROUPING,
+        /** duplicates_removal */
+        DUPLICATES_REMOVAL,
+        /** windowing */
+        WINDOWING,
+        /** union_result */
+        UNION_RESULT,
+        /** materialized_from_subquery */
+        MATERIALIZED_SUBQUERY,
+        /** attached_subqueries / select_list_subqueries / optimized_away_subqueries 等 */
+        SUBQUERY
+    }
+
+    private final Kind kind;
+
+    /** 所属查询块的 select_id */
+    private Integer selectId;
+
+    /** 提示信息（如 "No tables used"） */
+    private String message;
+
+    /** 子查询来源字段名（如 attached_subqueries），仅 SUBQUERY */
+    private String subqueryType;
+
+    /** 子查询是否依赖外层 / 是否可缓存 */
+    private Boolean dependent;
+    private Boolean cacheable;
+
+    // ---- 表访问 ----
+    private String tableName;
+    private String accessType;
+    private List<String> possibleKeys;
+    private String key;
+    private List<String> usedKeyParts;
+    private String keyLength;
+    private List<String> ref;
+    private Long rowsExaminedPerScan;
+    private Long rowsProducedPerJoin;
+    private Double filtered;
+    private Boolean usingIndex;
+    private String usingJoinBuffer;
+    private String attachedCondition;
+
+    // ---- 操作标记 ----
+    private Boolean usingFilesort;
+    private Boolean usingTemporaryTable;
+
+    // ---- cost_info ----
+    private Double queryCost;
+    private Double readCost;
+    private Double evalCost;
+    private Double prefixCost;
+    private Double sortCost;
+    private String dataReadPerJoin;
+
+    private final List<PlanNode> children = new ArrayList<>(2);
+
+    public PlanNode(Kind kind) {
+        this.kind = kind;
+    }
+
+    /**
+     * 添加子节点
+     *
+     * @param child 子节点，为null时忽略
+     * @return 子节点
+     */
+    public PlanNode add(PlanNode child) {
+        if (child != null)
+            children.add(child);
+        return child;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public List<PlanNode> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+
+    public Integer getSelectId() {
+        return selectId;
+    }
+
+    public void setSelectId(Integer selectId) {
+        this.selectId = selectId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getSubqueryType() {
+        return subqueryType;
+    }
+
+    public void setSubqueryType(String subqueryType) {
+        this.subqueryType = subqueryType;
+    }
+
+    public Boolean getDependent() {
+        return dependent;
+    }
+
+    public void setDependent(Boolean dependent) {
+        this.dependent = dependent;
+    }
+
+    public Boolean getCacheable() {
+        return cacheable;
+    }
+
+    public void setCacheable(Boolean cacheable) {
+        this.cacheable = cacheable;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public void setTableName(String tableName) {
+        this.tableName = tableName;
+    }
+
+    public String getAccessType() {
+        return accessType;
+    }
+
+    public void setAccessType(String accessType) {
+        this.accessType = accessType;
+    }
+
+    public List<String> getPossibleKeys() {
+        return possibleKeys;
+    }
+
+    public void setPossibleKeys(List<String> possibleKeys) {
+        this.possibleKeys = possibleKeys;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public List<String> getUsedKeyParts() {
+        return usedKeyParts;
+    }
+
+    public void setUsedKeyParts(List<String> usedKeyParts) {
+        this.usedKeyParts = usedKeyParts;
+    }
+
+    public String getKeyLength() {
+        return keyLength;
+    }
+
+    public void setKeyLength(String keyLength) {
+        this.keyLength = keyLength;
+    }
+
+    public List<String> getRef() {
+        return ref;
+    }
+
+    public void setRef(List<String> ref) {
+        this.ref = ref;
+    }
+
+    public Long getRowsExaminedPerScan() {
+        return rowsExaminedPerScan;
+    }
+
+    public void setRowsExaminedPerScan(Long rowsExaminedPerScan) {
+        this.rowsExaminedPerScan = rowsExaminedPerScan;
+    }
+
+    public Long getRowsProducedPerJoin() {
+        return rowsProducedPerJoin;
+    }
+
+    public void setRowsProducedPerJoin(Long rowsProducedPerJoin) {
+        this.rowsProducedPerJoin = rowsProducedPerJoin;
+    }
+
+    public Double getFiltered() {
+        return filtered;
+    }
+
+    public void setFiltered(Double filtered) {
+        this.filtered = filtered;
+    }
+
+    public Boolean getUsingIndex() {
+        return usingIndex;
+    }
+
+    public void setUsingIndex(Boolean usingIndex) {
+        this.usingIndex = usingIndex;
+    }
+
+    public String getUsingJoinBuffer() {
+        return usingJoinBuffer;
+    }
+
+    public void setUsingJoinBuffer(String usingJoinBuffer) {
+        this.usingJoinBuffer = usingJoinBuffer;
+    }
+
+    public String getAttachedCondition() {
+        return attachedCondition;
+    }
+
+    public void setAttachedCondition(String attachedCondition) {
+        this.attachedCondition = attachedCondition;
+    }
+
+    public Boolean getUsingFilesort() {
+        return usingFilesort;
+    }
+
+    public void setUsingFilesort(Boolean usingFilesort) {
+        this.usingFilesort = usingFilesort;
+    }
+
+    public Boolean getUsingTemporaryTable() {
+        return usingTemporaryTable;
+    }
+
+    public void setUsingTemporaryTable(Boolean usingTemporaryTable) {
+        this.usingTemporaryTable = usingTemporaryTable;
+    }
+
+    public Double getQueryCost() {
+        return queryCost;
+    }
+
+    public void setQueryCost(Double queryCost) {
+        this.queryCost = queryCost;
+    }
+
+    public Double getReadCost() {
+        return readCost;
+    }
+
+    public void setReadCost(Double readCost) {
+        this.readCost = readCost;
+    }
+
+    public Double getEvalCost() {
+        return evalCost;
+    }
+
+    public void setEvalCost(Double evalCost) {
+        this.evalCost = evalCost;
+    }
+
+    public Double getPrefixCost() {
+        return prefixCost;
+    }
+
+    public void setPrefixCost(Double prefixCost) {
+        this.prefixCost = prefixCost;
+    }
+
+    public Double getSortCost() {
+        return sortCost;
+    }
+
+    public void setSortCost(Double sortCost) {
+        this.sortCost = sortCost;
+    }
+
+    public String getDataReadPerJoin() {
+        return dataReadPerJoin;
+    }
+
+    public void setDataReadPerJoin(String dataReadPerJoin) {
+        this.dataReadPerJoin = dataReadPerJoin;
+    }
+}
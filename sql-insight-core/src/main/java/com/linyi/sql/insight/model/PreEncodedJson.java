@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.linyi.sql.insight.model;
+
+/**
+ * 可携带预编码 JSON 的模型。
+ * <p>
+ * 分析完成后由 {@code JsonCodec.preEncode} 编码一次并记录在对象上，各输出通道序列化时直接嵌入该 JSON，
+ * 不再重复编码。对象的修改方法会清除预编码结果；预编码后不应再修改其包含的元素。
+ * </p>
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+public interface PreEncodedJson {
+
+    /**
+     * @return 预编码的 JSON，未编码或已失效时为null
+     */
+    String encodedJson();
+
+    /**
+     * @param json 预编码的 JSON，为null表示清除
+     */
+    void encodedJson(String json);
+}
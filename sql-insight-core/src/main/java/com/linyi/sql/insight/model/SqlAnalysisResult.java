@@ -75,6 +75,21 @@ public final class SqlAnalysisResult {
      */
     private String extra;
 
+    /**
+     * 可能使用的索引（逗号分隔，对应 possible_keys）
+     */
+    private String possibleKeys;
+
+    /**
+     * 截至该表的累计代价（JSON 格式 cost_info.prefix_cost）
+     */
+    private Double cost;
+
+    /**
+     * 连接到该表后产出的行数估计（JSON 格式 rows_produced_per_join）
+     */
+    private Long rowsProduced;
+
     public String getId() {
         return id;
     }
@@ -146,4 +161,28 @@ public final class SqlAnalysisResult {
     public void setExtra(String extra) {
         this.extra = extra;
     }
+
+    public String getPossibleKeys() {
+        return possibleKeys;
+    }
+
+    public void setPossibleKeys(String possibleKeys) {
+        this.possibleKeys = possibleKeys;
+    }
+
+    public Double getCost() {
+        return cost;
+    }
+
+    public void setCost(Double cost) {
+        this.cost = cost;
+    }
+
+    public Long getRowsProduced() {
+        return rowsProduced;
+    }
+
+    public void setRowsProduced(Long rowsProduced) {
+        this.rowsProduced = rowsProduced;
+    }
 }
@@ -22,9 +22,10 @@
 
 package com.linyi.sql.insight.model;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.RandomAccess;
 
 /**
  * 统一的执行计划结果集合。
@@ -36,6 +37,21 @@ public class SqlAnalysisResultList {
 
     private final List<SqlAnalysisResult> results = new ArrayList<>();
 
+    /**
+     * 只读视图，携带结果集合的预编码 JSON（transient 不参与序列化）
+     */
+    private final transient Rows view = new Rows(results);
+
+    /**
+     * 整条查询的优化器代价（JSON 格式 query_block.cost_info.query_cost），其它格式为null
+     */
+    private Double queryCost;
+
+    /**
+     * 类型化计划树（仅 JSON 格式；transient 不参与序列化）
+     */
+    private transient PlanNode planTree;
+
     /**
      * 添加SQL分析结果到结果集合中
      *
@@ -45,6 +61,7 @@ public class SqlAnalysisResultList {
         // 只有当结果对象不为null时才添加到结果集合中
         if (r != null) {
             results.add(r);
+            view.encodedJson(null);
         }
     }
 
@@ -52,9 +69,57 @@ public class SqlAnalysisResultList {
     /**
      * 获取结果集合
      *
-     * @return 结果集合
+     * @return 结果集合（只读，实现 {@link PreEncodedJson}）
      */
     public List<SqlAnalysisResult> getResults() {
-        return Collections.unmodifiableList(results);
+        return view;
+    }
+
+    public Double getQueryCost() {
+        return queryCost;
+    }
+
+    public void setQueryCost(Double queryCost) {
+        this.queryCost = queryCost;
+    }
+
+    public PlanNode getPlanTree() {
+        return planTree;
+    }
+
+    public void setPlanTree(PlanNode planTree) {
+        this.planTree = planTree;
+    }
+
+    /**
+     * 结果集合的只读视图，可携带预编码 JSON
+     */
+    private static final class Rows extends AbstractList<SqlAnalysisResult> implements RandomAccess, PreEncodedJson {
+        private final List<SqlAnalysisResult> results;
+        private volatile String encodedJson;
+
+        Rows(List<SqlAnalysisResult> results) {
+            this.results = results;
+        }
+
+        @Override
+        public SqlAnalysisResult get(int index) {
+            return results.get(index);
+        }
+
+        @Override
+        public int size() {
+            return results.size();
+        }
+
+        @Override
+        public String encodedJson() {
+            return encodedJson;
+        }
+
+        @Override
+        public void encodedJson(String json) {
+            this.encodedJson = json;
+        }
     }
 }
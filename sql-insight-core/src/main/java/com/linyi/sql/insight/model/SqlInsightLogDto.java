@@ -57,6 +57,21 @@ public class SqlInsightLogDto {
      */
     public long bizCostMs;
 
+    /**
+     * 业务SQL返回/影响的行数，-1 表示未知（自定义 ResultHandler、批量、游标）
+     */
+    public long rowCount = -1L;
+
+    /**
+     * 执行计划估算的产出行数（各表 rows × filtered% 的乘积），-1 表示未估算
+     */
+    public long estimatedRows = -1L;
+
+    /**
+     * 实际行数 / 估算行数，未比较时为null
+     */
+    public Double misestimateRatio;
+
     /**
      * SQL ID
      */
@@ -67,6 +82,11 @@ public class SqlInsightLogDto {
      */
     public String sql;
 
+    /**
+     * SQL 指纹（同一查询形态取值相同，十六进制）
+     */
+    public String fingerprint;
+
     /**
      * EXPLAIN SQL
      */
@@ -77,16 +97,36 @@ public class SqlInsightLogDto {
      */
     public String explainJson;
 
+    /**
+     * EXPLAIN FORMAT=TREE 输出（已脱敏，仅 TREE 模式）
+     */
+    public String explainTree;
+
+    /**
+     * EXPLAIN ANALYZE 输出（已脱敏，仅 ANALYZE 模式下采样命中的 WARN/CRIT 查询）
+     */
+    public String explainAnalyze;
+
     /**
      * SQL 执行计划解析结果
      */
     public List<SqlAnalysisResult> explainRows;
 
+    /**
+     * 优化器估算的整条查询代价（仅 JSON 格式）
+     */
+    public Double queryCost;
+
     /**
      * 分析结果
      */
     public SqlScoreResult scoreResult;
 
+    /**
+     * 是否命中执行计划/评分缓存（命中时未实际执行 EXPLAIN）
+     */
+    public boolean planCacheHit;
+
     public SqlInsightLogDto() {
     }
 
@@ -130,6 +170,30 @@ public class SqlInsightLogDto {
         this.bizCostMs = bizCostMs;
     }
 
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public void setRowCount(long rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    public long getEstimatedRows() {
+        return estimatedRows;
+    }
+
+    public void setEstimatedRows(long estimatedRows) {
+        this.estimatedRows = estimatedRows;
+    }
+
+    public Double getMisestimateRatio() {
+        return misestimateRatio;
+    }
+
+    public void setMisestimateRatio(Double misestimateRatio) {
+        this.misestimateRatio = misestimateRatio;
+    }
+
     public String getSqlId() {
         return sqlId;
     }
@@ -146,6 +210,14 @@ public class SqlInsightLogDto {
         this.sql = sql;
     }
 
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
     public String getExplainSql() {
         return explainSql;
     }
@@ -162,6 +234,30 @@ public class SqlInsightLogDto {
         this.explainJson = explainJson;
     }
 
+    public Double getQueryCost() {
+        return queryCost;
+    }
+
+    public void setQueryCost(Double queryCost) {
+        this.queryCost = queryCost;
+    }
+
+    public String getExplainTree() {
+        return explainTree;
+    }
+
+    public void setExplainTree(String explainTree) {
+        this.explainTree = explainTree;
+    }
+
+    public String getExplainAnalyze() {
+        return explainAnalyze;
+    }
+
+    public void setExplainAnalyze(String explainAnalyze) {
+        this.explainAnalyze = explainAnalyze;
+    }
+
     public List<SqlAnalysisResult> getExplainRows() {
         return explainRows;
     }
@@ -177,4 +273,12 @@ public class SqlInsightLogDto {
     public void setScoreResult(SqlScoreResult scoreResult) {
         this.scoreResult = scoreResult;
     }
+
+    public boolean isPlanCacheHit() {
+        return planCacheHit;
+    }
+
+    public void setPlanCacheHit(boolean planCacheHit) {
+        this.planCacheHit = planCacheHit;
+    }
 }
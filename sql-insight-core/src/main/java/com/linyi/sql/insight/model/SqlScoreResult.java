@@ -32,7 +32,7 @@ import java.util.List;
  * @author linyi
  * @since 1.0.0
  */
-public class SqlScoreResult {
+public class SqlScoreResult implements PreEncodedJson {
 
     /**
      * 评分（0-100）
@@ -49,12 +49,18 @@ public class SqlScoreResult {
      */
     private final List<SqlScoreResultDetail> details = new ArrayList<>();
 
+    /**
+     * 预编码的 JSON（见 {@link PreEncodedJson}；transient 不参与序列化）
+     */
+    private transient volatile String encodedJson;
+
     public int getScore() {
         return score;
     }
 
     public void setScore(int score) {
         this.score = score;
+        this.encodedJson = null;
     }
 
     public AnalysisLevel getLevel() {
@@ -63,11 +69,13 @@ public class SqlScoreResult {
 
     public void setLevel(AnalysisLevel level) {
         this.level = level;
+        this.encodedJson = null;
     }
 
     public void addDetail(SqlScoreResultDetail d) {
         if (d != null) {
             details.add(d);
+            encodedJson = null;
         }
     }
 
@@ -75,9 +83,20 @@ public class SqlScoreResult {
         details.clear();
         if (ds != null)
             details.addAll(ds);
+        encodedJson = null;
     }
 
     public List<SqlScoreResultDetail> getDetails() {
         return Collections.unmodifiableList(details);
     }
+
+    @Override
+    public String encodedJson() {
+        return encodedJson;
+    }
+
+    @Override
+    public void encodedJson(String json) {
+        this.encodedJson = json;
+    }
 }
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.linyi.sql.insight.out;
+
+import com.linyi.sql.insight.model.AnalysisLevel;
+import com.linyi.sql.insight.model.SqlInsightLogDto;
+import com.linyi.sql.insight.util.JsonCodec;
+import com.linyi.sql.insight.util.SqlLengthTruncatorUtils;
+import org.slf4j.Logger;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * [SqlInsight-FULL] 完整记录的异步日志输出。
+ * <p>
+ * 分析线程只做采样/等级判断并把记录放入无锁环形缓冲区（多生产者单消费者），
+ * 由后台守护线程完成 JSON 编码、长度截断与日志写入。缓冲区满时直接丢弃并计数，不阻塞调用方。
+ * 缓冲区为空时后台线程无超时挂起，由生产者在其挂起时唤醒，空闲应用中不产生周期性唤醒。
+ * </p>
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+public class AsyncFullLogWriter {
+
+    private final Logger logger;
+    private final double samplingRate;
+    private final int maxChars;
+    private final AnalysisLevel minLevel;
+
+    private final AtomicReferenceArray<SqlInsightLogDto> ring;
+    private final int mask;
+    /**
+     * 生产者占位序号（CAS 递增）
+     */
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * 消费序号（仅消费线程写）
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private volatile boolean running;
+    private volatile Thread drainer;
+    /**
+     * 消费线程是否（即将）挂起；生产者发布后检查，为 true 时唤醒
+     */
+    private volatile boolean parked;
+
+    /**
+     * @param logger       输出使用的 Logger
+     * @param bufferSize   环形缓冲区容量，向上取整为2的幂
+     * @param samplingRate 采样率（0~1）
+     * @param maxChars     单条记录最大字符数，<=0 表示不限制
+     * @param minLevel     最低输出等级，为null时全部输出
+     */
+    public AsyncFullLogWriter(Logger logger, int bufferSize, double samplingRate, int maxChars,
+                              AnalysisLevel minLevel) {
+        this.logger = logger;
+        int size = Integer.highestOneBit(Math.max(2, Math.min(bufferSize, 1 << 20)) - 1) << 1;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.samplingRate = samplingRate;
+        this.maxChars = maxChars;
+        this.minLevel = minLevel;
+    }
+
+    /**
+     * 解析等级配置，空或非法时返回null（表示全部输出）
+     *
+     * @param level 等级名，如 WARN
+     * @return 等级
+     */
+    public static AnalysisLevel parseLevel(String level) {
+        if (level == null || level.trim().isEmpty())
+            return null;
+        try {
+            return AnalysisLevel.valueOf(level.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 启动后台写入线程（守护线程），重复调用无副作用
+     */
+    public synchronized void start() {
+        if (running)
+            return;
+        running = true;
+        drainer = new Thread(this::drainLoop, "sql-insight-full-log");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    /**
+     * 提交一条完整记录（非阻塞）；记录提交后不应再修改
+     *
+     * @param dto 分析记录
+     * @return true表示已入队，false表示被采样/等级过滤或缓冲区已满
+     */
+    public boolean submit(SqlInsightLogDto dto) {
+        if (dto == null || !logger.isInfoEnabled())
+            return false;
+        if (minLevel != null) {
+            AnalysisLevel level = dto.scoreResult == null ? null : dto.scoreResult.getLevel();
+            if (level == null || level.ordinal() < minLevel.ordinal())
+                return false;
+        }
+        if (samplingRate < 1.0 && (samplingRate <= 0.0 || ThreadLocalRandom.current().nextDouble() >= samplingRate))
+            return false;
+        if (!running) {
+            // 未启动时同步输出，保证记录不丢失
+            write(dto);
+            return true;
+        }
+        while (true) {
+            long t = tail.get();
+            if (t - head.get() >= ring.length()) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            if (tail.compareAndSet(t, t + 1)) {
+                ring.lazySet((int) t & mask, dto);
+                if (parked)
+                    LockSupport.unpark(drainer);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 停止后台线程并写出缓冲区中剩余的记录
+     */
+    public void shutdown() {
+        Thread t;
+        synchronized (this) {
+            if (!running)
+                return;
+            running = false;
+            t = drainer;
+            drainer = null;
+        }
+        LockSupport.unpark(t);
+        try {
+            t.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getQueueSize() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    private void drainLoop() {
+        while (true) {
+            boolean stopping = !running;
+            if (drainOnce())
+                continue;
+            if (head.get() != tail.get()) {
+                // 生产者已占位但尚未发布，很快可见
+                Thread.yield();
+                continue;
+            }
+            if (stopping)
+                return;
+            // 先声明挂起再复查：生产者的 tail CAS 与本线程的 parked 写入至少有一方被对方看到，不会丢失唤醒
+            parked = true;
+            if (head.get() == tail.get() && running)
+                LockSupport.park(this);
+            parked = false;
+        }
+    }
+
+    /**
+     * @return true表示消费到一条记录
+     */
+    private boolean drainOnce() {
+        long h = head.get();
+        if (h == tail.get())
+            return false;
+        int idx = (int) h & mask;
+        SqlInsightLogDto dto = ring.get(idx);
+        if (dto == null)
+            return false; // 生产者已占位，尚未写入
+        ring.lazySet(idx, null);
+        head.lazySet(h + 1);
+        write(dto);
+        return true;
+    }
+
+    private void write(SqlInsightLogDto dto) {
+        try {
+            String json = JsonCodec.toJson(dto);
+            logger.info("[SqlInsight-FULL] {}", SqlLengthTruncatorUtils.truncate(json, maxChars));
+            written.incrementAndGet();
+        } catch (Throwable e) {
+            failed.incrementAndGet();
+        }
+    }
+}
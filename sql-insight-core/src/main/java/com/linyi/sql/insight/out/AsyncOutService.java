@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.linyi.sql.insight.out;
+
+import com.linyi.sql.insight.extract.SqlFingerprinter;
+import com.linyi.sql.insight.model.SqlAnalysisResultList;
+import com.linyi.sql.insight.model.SqlScoreResult;
+import com.linyi.sql.insight.util.LogLimiterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 带背压的异步输出：publish 只把结果放入有界队列，由执行器上的少量消费任务依次调用下游输出。
+ * <p>
+ * 队列满时按 {@link OverflowPolicy} 处理，任何情况下都不会阻塞调用方，也不会把
+ * {@link RejectedExecutionException} 抛回业务线程。队列深度、丢弃与合并次数可通过 getter 获取。
+ * </p>
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+public class AsyncOutService implements SqlScoreResultOutService {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncOutService.class);
+
+    public static final int DEFAULT_CAPACITY = 1000;
+    public static final int DEFAULT_CONSUMERS = 4;
+
+    /**
+     * 队列满（或接近满）时的处理策略
+     */
+    public enum OverflowPolicy {
+        /**
+         * 丢弃新提交的结果
+         */
+        DROP_NEWEST,
+        /**
+         * 丢弃队列中最早的结果，为新结果腾出位置
+         */
+        DROP_OLDEST,
+        /**
+         * 队列超过半满后按剩余容量比例降采样，满时丢弃新结果
+         */
+        SAMPLE_DOWN,
+        /**
+         * 同一 sqlId + SQL 形态尚未输出的结果合并为最新一条，满时丢弃新结果
+         */
+        COALESCE;
+
+        /**
+         * 解析策略配置，空或非法时返回 DROP_NEWEST
+         */
+        public static OverflowPolicy parse(String name) {
+            if (name == null || name.trim().isEmpty())
+                return DROP_NEWEST;
+            try {
+                return valueOf(name.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return DROP_NEWEST;
+            }
+        }
+    }
+
+    private final SqlScoreResultOutService delegate;
+    private final Executor executor;
+    private final OverflowPolicy policy;
+    private final int capacity;
+    private final int maxConsumers;
+    private final BlockingQueue<Task> queue;
+    private final Map<Long, Task> pendingByKey;
+
+    private final AtomicInteger consumers = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final LogLimiterUtils limiter = new LogLimiterUtils(5000);
+
+    /**
+     * @param delegate     下游输出
+     * @param executor     执行消费任务的执行器
+     * @param capacity     队列容量
+     * @param maxConsumers 同时运行的消费任务上限
+     * @param policy       溢出策略
+     */
+    public AsyncOutService(SqlScoreResultOutService delegate, Executor executor, int capacity, int maxConsumers,
+                           OverflowPolicy policy) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.capacity = Math.max(1, capacity);
+        this.maxConsumers = Math.max(1, maxConsumers);
+        this.policy = policy == null ? OverflowPolicy.DROP_NEWEST : policy;
+        this.queue = new ArrayBlockingQueue<>(this.capacity);
+        this.pendingByKey = this.policy == OverflowPolicy.COALESCE ? new ConcurrentHashMap<>() : null;
+    }
+
+    @Override
+    public void publish(SqlScoreResult result, String sqlId, String sql, SqlAnalysisResultList plan) {
+        publish(result, sqlId, sql, plan, policy == OverflowPolicy.COALESCE ? SqlFingerprinter.fingerprint(sql) : 0L);
+    }
+
+    @Override
+    public void publish(SqlScoreResult result, String sqlId, String sql, SqlAnalysisResultList plan,
+                        long fingerprint) {
+        if (enqueue(new Payload(result, sqlId, sql, plan), fingerprint))
+            signal();
+    }
+
+    private boolean enqueue(Payload payload, long fingerprint) {
+        switch (policy) {
+            case DROP_OLDEST: {
+                Task task = new Task(0L, payload);
+                while (!queue.offer(task)) {
+                    if (queue.poll() != null)
+                        dropped.incrementAndGet();
+                }
+                return true;
+            }
+            case SAMPLE_DOWN: {
+                int size = queue.size();
+                if (size * 2 > capacity) {
+                    double keep = 2.0 * (capacity - size) / capacity;
+                    if (ThreadLocalRandom.current().nextDouble() >= keep) {
+                        dropped.incrementAndGet();
+                        return false;
+                    }
+                }
+                return offer(new Task(0L, payload));
+            }
+            case COALESCE: {
+                long key = SqlFingerprinter.combine(fingerprint, payload.sqlId);
+                Task[] created = new Task[1];
+                pendingByKey.compute(key, (k, existing) -> {
+                    if (existing != null) {
+                        existing.payload.set(payload);
+                        return existing;
+                    }
+                    created[0] = new Task(k, payload);
+                    return created[0];
+                });
+                if (created[0] == null) {
+                    coalesced.incrementAndGet();
+                    return true;
+                }
+                if (!offer(created[0])) {
+                    pendingByKey.remove(key, created[0]);
+                    return false;
+                }
+                return true;
+            }
+            case DROP_NEWEST:
+            default:
+                return offer(new Task(0L, payload));
+        }
+    }
+
+    private boolean offer(Task task) {
+        if (queue.offer(task))
+            return true;
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * 消费任务数未达上限时再启动一个；执行器拒绝时仅计数，已入队的结果由后续提交再次触发消费
+     */
+    private void signal() {
+        while (true) {
+            int n = consumers.get();
+            if (n >= maxConsumers)
+                return;
+            if (consumers.compareAndSet(n, n + 1))
+                break;
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            consumers.decrementAndGet();
+            rejected.incrementAndGet();
+            if (limiter.allow("rejected"))
+                log.warn("[SqlInsight] output executor rejected the consumer task, results stay queued: {}",
+                        e.toString());
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Task task;
+            while ((task = queue.poll()) != null) {
+                run(task);
+            }
+            consumers.decrementAndGet();
+            // 退出前再次检查，避免与刚入队的结果错过
+            if (queue.isEmpty())
+                return;
+            int n = consumers.get();
+            if (n >= maxConsumers || !consumers.compareAndSet(n, n + 1))
+                return;
+        }
+    }
+
+    private void run(Task task) {
+        // 先移出合并表再取走载荷：移出之前的合并更新都已写入载荷，之后的更新会创建新任务
+        if (pendingByKey != null)
+            pendingByKey.remove(task.key, task);
+        Payload p = task.payload.getAndSet(null);
+        if (p == null)
+            return;
+        try {
+            delegate.publish(p.result, p.sqlId, p.sql, p.plan);
+        } catch (Throwable e) {
+            if (limiter.allow("publish"))
+                log.warn("[SqlInsight] async output failed: {}", e.toString());
+        }
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * 待输出的结果；COALESCE 策略下在出队前可整体替换为同一形态的最新载荷
+     */
+    private static final class Task {
+        final long key;
+        final AtomicReference<Payload> payload;
+
+        Task(long key, Payload payload) {
+            this.key = key;
+            this.payload = new AtomicReference<>(payload);
+        }
+    }
+
+    /**
+     * 一次分析的输出内容（不可变，整体替换保证各字段来自同一次分析）
+     */
+    private static final class Payload {
+        final SqlScoreResult result;
+        final String sqlId;
+        final String sql;
+        final SqlAnalysisResultList plan;
+
+        Payload(SqlScoreResult result, String sqlId, String sql, SqlAnalysisResultList plan) {
+            this.result = result;
+            this.sqlId = sqlId;
+            this.sql = sql;
+            this.plan = plan;
+        }
+    }
+}
@@ -22,10 +22,10 @@
 
 package com.linyi.sql.insight.out;
 
-import com.google.gson.Gson;
 import com.linyi.sql.insight.model.SqlScoreResult;
 import com.linyi.sql.insight.model.SqlAnalysisResultList;
 import com.linyi.sql.insight.util.AppConstants;
+import com.linyi.sql.insight.util.JsonCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -50,7 +50,6 @@ public class HttpOutService implements SqlScoreResultOutService {
     private static final Logger log = LoggerFactory.getLogger(HttpOutService.class);
 
     private final String endpoint;
-    private final Gson gson = new Gson();
 
     public HttpOutService(String endpoint) {
         this.endpoint = endpoint;
@@ -77,7 +76,7 @@ public class HttpOutService implements SqlScoreResultOutService {
             conn.setRequestProperty("Content-Type", "application/json");
 
             // 构造请求体并发送POST请求
-            String body = gson.toJson(new Payload(sqlId, sql, result, plan));
+            String body = JsonCodec.toJson(new Payload(sqlId, sql, result, plan));
             try (OutputStream os = conn.getOutputStream()) {
                 os.write(body.getBytes(StandardCharsets.UTF_8));
             }
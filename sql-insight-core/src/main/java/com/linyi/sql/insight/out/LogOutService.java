@@ -22,9 +22,9 @@
 
 package com.linyi.sql.insight.out;
 
-import com.google.gson.Gson;
 import com.linyi.sql.insight.model.SqlScoreResult;
 import com.linyi.sql.insight.model.SqlAnalysisResultList;
+import com.linyi.sql.insight.util.JsonCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,7 +37,6 @@ import org.slf4j.LoggerFactory;
 public class LogOutService implements SqlScoreResultOutService {
 
     private static final Logger log = LoggerFactory.getLogger(LogOutService.class);
-    private static final Gson gson = new Gson();
 
     /**
      * 发布SQL评分结果到日志系统
@@ -53,7 +52,7 @@ public class LogOutService implements SqlScoreResultOutService {
         }
         // 简单结构化日志，后续可切换为 JSON
         int planSize = plan == null || plan.getResults() == null ? 0 : plan.getResults().size();
-        String resultJson = gson.toJson(result);
+        String resultJson = JsonCodec.toJson(result);
         log.info("[SqlInsight] sqlId={}, result={}, planSize={}, sql={}",
                 sqlId,
                 resultJson,
@@ -36,18 +36,27 @@ public interface SqlScoreResultOutService {
 
     void publish(SqlScoreResult result, String sqlId, String sql, SqlAnalysisResultList plan);
 
+    /**
+     * 发布结果并附带调用方已计算的 SQL 指纹（见 {@link com.linyi.sql.insight.extract.SqlFingerprinter}），
+     * 需要按 SQL 形态处理的实现可直接使用而无需重新计算；默认忽略指纹
+     *
+     * @param fingerprint SQL指纹
+     */
+    default void publish(SqlScoreResult result, String sqlId, String sql, SqlAnalysisResultList plan,
+                         long fingerprint) {
+        publish(result, sqlId, sql, plan);
+    }
+
     /**
      * 创建一个异步执行的 SqlScoreResultOutService 实例
      *
      * @param executor 用于执行异步任务的线程池执行器
-     * @return 返回一个新的 SqlScoreResultOutService 实例，其 publish 方法将在指定的执行器中异步执行
+     * @return 返回一个新的 SqlScoreResultOutService 实例，其 publish 方法将在指定的执行器中异步执行；
+     *         使用有界队列（丢弃最新）缓冲，不会阻塞调用方或抛出 RejectedExecutionException
      */
     default SqlScoreResultOutService async(java.util.concurrent.Executor executor) {
-        SqlScoreResultOutService self = this;
-        // 使用 CompletableFuture 异步执行 publish 操作
-        return (result, sqlId, sql, plan) -> java.util.concurrent.CompletableFuture.runAsync(
-                () -> self.publish(result, sqlId, sql, plan), executor);
+        return new AsyncOutService(this, executor, AsyncOutService.DEFAULT_CAPACITY,
+                AsyncOutService.DEFAULT_CONSUMERS, AsyncOutService.OverflowPolicy.DROP_NEWEST);
     }
 
-
 }
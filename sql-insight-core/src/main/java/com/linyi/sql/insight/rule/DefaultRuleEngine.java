@@ -38,6 +38,9 @@ import java.util.List;
  * - extra contains "..."
  * - rows >/>=/</<= N
  * - filtered >/>=/</<= X
+ * - cost >/>=/</<= X（表级累计代价 prefix_cost，仅 JSON 格式）
+ * - rowsProduced >/>=/</<= N（连接产出行数 rows_produced_per_join，仅 JSON 格式）
+ * - queryCost >/>=/</<= X（整条查询代价 query_cost，仅 JSON 格式；只含该原子的规则按整条计划评估一次）
  * 并支持 AND/OR 组合（无括号，OR 优先按左到右顶层拆分）。
  *
  * @author linyi
@@ -45,6 +48,8 @@ import java.util.List;
  */
 public class DefaultRuleEngine implements RuleEngine {
 
+    private static final String PLAN_COST = "queryCost";
+
     /**
      * 评估SQL分析结果并根据规则生成评分详情列表
      *
@@ -61,30 +66,76 @@ public class DefaultRuleEngine implements RuleEngine {
         List<SqlScoreRule> sorted = new ArrayList<>(rules);
         sorted.sort(Comparator.comparingInt(SqlScoreRule::getPriority));
         List<SqlScoreResultDetail> details = new ArrayList<>();
+        // 计划级规则（仅引用 queryCost）对整条计划评估一次
+        List<SqlScoreRule> rowRules = new ArrayList<>(sorted.size());
+        for (SqlScoreRule rule : sorted) {
+            if (isPlanLevel(rule.getCondition())) {
+                if (matchExpr(plan, null, rule.getCondition()))
+                    details.add(detail(rule));
+            } else {
+                rowRules.add(rule);
+            }
+        }
         // 遍历所有分析结果，按规则进行匹配和评分
         for (SqlAnalysisResult r : plan.getResults()) {
-            for (SqlScoreRule rule : sorted) {
-                if (matchExpr(r, rule.getCondition())) {
-                    SqlScoreResultDetail d = new SqlScoreResultDetail();
-                    d.setRuleId(rule.getId());
-                    d.setScore(rule.getScore());
-                    d.setLevel(rule.getLevel());
-                    d.setReason(rule.getReason());
-                    details.add(d);
+            for (SqlScoreRule rule : rowRules) {
+                if (matchExpr(plan, r, rule.getCondition())) {
+                    details.add(detail(rule));
                 }
             }
         }
         return details;
     }
 
+    private static SqlScoreResultDetail detail(SqlScoreRule rule) {
+        SqlScoreResultDetail d = new SqlScoreResultDetail();
+        d.setRuleId(rule.getId());
+        d.setScore(rule.getScore());
+        d.setLevel(rule.getLevel());
+        d.setReason(rule.getReason());
+        return d;
+    }
+
+    /**
+     * 判断规则是否只引用计划级原子（queryCost）
+     *
+     * @param expr 条件表达式
+     * @return 所有原子均以 queryCost 开头时返回true
+     */
+    private boolean isPlanLevel(String expr) {
+        if (expr == null || !expr.contains(PLAN_COST))
+            return false;
+        for (String or : splitTopLevel(stripParens(expr), "||")) {
+            for (String and : splitTopLevel(or, "&&")) {
+                String c = stripParens(and.trim());
+                if (c.contains("||") || c.contains("&&")) {
+                    if (!isPlanLevel(c))
+                        return false;
+                } else if (!c.startsWith(PLAN_COST)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private String stripParens(String expr) {
+        String e = expr.trim();
+        while (e.startsWith("(") && e.endsWith(")") && isBalancedOuter(e)) {
+            e = e.substring(1, e.length() - 1).trim();
+        }
+        return e;
+    }
+
     /**
      * 匹配SQL表达式
      *
-     * @param r    SQL分析结果对象，用于获取匹配所需的数据上下文
+     * @param plan 整条执行计划，用于计划级原子
+     * @param r    SQL分析结果对象，用于获取匹配所需的数据上下文，计划级评估时为null
      * @param expr 待匹配的表达式字符串，可能包含逻辑运算符和括号
      * @return 如果表达式匹配成功返回true，否则返回false
      */
-    private boolean matchExpr(SqlAnalysisResult r, String expr) {
+    private boolean matchExpr(SqlAnalysisResultList plan, SqlAnalysisResult r, String expr) {
         if (expr == null)
             return false;
         String e = expr.trim();
@@ -103,12 +154,12 @@ public class DefaultRuleEngine implements RuleEngine {
                     continue;
                 // 判断是否需要递归处理表达式或进行原子匹配
                 if (!(c.contains("||") || c.contains("&&") || (c.startsWith("(") && c.endsWith(")")))) {
-                    if (!match(r, c)) {
+                    if (!match(plan, r, c)) {
                         all = false;
                         break;
                     }
                 } else {
-                    if (!matchExpr(r, c)) {
+                    if (!matchExpr(plan, r, c)) {
                         all = false;
                         break;
                     }
@@ -190,14 +241,21 @@ public class DefaultRuleEngine implements RuleEngine {
     /**
      * 匹配SQL分析结果与给定条件
      *
-     * @param r    SQL分析结果对象
+     * @param plan 整条执行计划
+     * @param r    SQL分析结果对象，计划级评估时为null
      * @param cond 匹配条件字符串
      * @return 如果匹配成功返回true，否则返回false
      */
-    private boolean match(SqlAnalysisResult r, String cond) {
-        if (r == null || cond == null)
+    private boolean match(SqlAnalysisResultList plan, SqlAnalysisResult r, String cond) {
+        if (cond == null)
             return false;
         String c = cond.trim();
+        // 整条查询代价：queryCost > X
+        if (c.startsWith(PLAN_COST)) {
+            return compareNumber(plan == null ? null : plan.getQueryCost(), c.substring(PLAN_COST.length()).trim());
+        }
+        if (r == null)
+            return false;
         // key 等值判断与空/null 判断
         if (c.startsWith("key") && c.contains("==")) {
             String[] arr = c.split("==", 2);
@@ -226,6 +284,15 @@ public class DefaultRuleEngine implements RuleEngine {
             String right = unquote(c.substring(idx + "contains".length()).trim());
             return r.getExtra() != null && r.getExtra().toLowerCase().contains(right.toLowerCase());
         }
+        // 连接产出行数：rowsProduced > N（需先于 rows 判断）
+        if (c.startsWith("rowsProduced")) {
+            return compareNumber(r.getRowsProduced() == null ? null : r.getRowsProduced().doubleValue(),
+                    c.substring("rowsProduced".length()).trim());
+        }
+        // 表级累计代价：cost > X
+        if (c.startsWith("cost")) {
+            return compareNumber(r.getCost(), c.substring(4).trim());
+        }
         // rows 阈值：rows > N / >= / < / <=
         if (c.startsWith("rows")) {
             return compareNumber(r.getRows() == null ? null : r.getRows().doubleValue(), c.substring(4).trim());
@@ -35,6 +35,34 @@ public final class AppConstants {
     public static final String METRIC_SUCCESS = "sql_analysis_success_total";
     public static final String METRIC_FAILURE = "sql_analysis_failure_total";
     public static final String METRIC_DURATION = "sql_analysis_duration_ms";
+    public static final String METRIC_PLAN_CACHE_SIZE = "sql_analysis_plan_cache_size";
+    public static final String METRIC_PLAN_CACHE_HITS = "sql_analysis_plan_cache_hits";
+    public static final String METRIC_PLAN_CACHE_MISSES = "sql_analysis_plan_cache_misses";
+    public static final String METRIC_PLAN_CACHE_EVICTIONS = "sql_analysis_plan_cache_evictions";
+    public static final String METRIC_DEDUP_SIZE = "sql_analysis_dedup_size";
+    public static final String METRIC_DEDUP_EVICTIONS = "sql_analysis_dedup_evictions";
+    public static final String METRIC_DEDUP_EXPIRATIONS = "sql_analysis_dedup_expirations";
+    public static final String METRIC_FLOW_IN_FLIGHT = "sql_analysis_in_flight";
+    public static final String METRIC_FLOW_REJECTED = "sql_analysis_flow_rejected";
+    public static final String METRIC_SAMPLING_K = "sql_analysis_sampling_k";
+    public static final String METRIC_SAMPLING_OVERHEAD = "sql_analysis_sampling_overhead_ratio";
+    public static final String METRIC_SAMPLING_FORCED = "sql_analysis_sampling_forced";
+    public static final String METRIC_SAMPLING_TRACKED = "sql_analysis_sampling_tracked";
+    public static final String METRIC_SAMPLING_TRACKED_EVICTIONS = "sql_analysis_sampling_tracked_evictions";
+    public static final String METRIC_FULL_LOG_QUEUE = "sql_analysis_full_log_queue_size";
+    public static final String METRIC_FULL_LOG_DROPPED = "sql_analysis_full_log_dropped";
+    public static final String METRIC_OUT_QUEUE = "sql_analysis_out_queue_size";
+    public static final String METRIC_OUT_DROPPED = "sql_analysis_out_dropped";
+    public static final String METRIC_OUT_REJECTED = "sql_analysis_out_rejected";
+    public static final String METRIC_ANALYSIS_QUEUE = "sql_analysis_async_queue_size";
+    public static final String METRIC_ANALYSIS_SUBMITTED = "sql_analysis_async_submitted";
+    public static final String METRIC_ANALYSIS_DROPPED = "sql_analysis_async_dropped";
+    public static final String METRIC_ANALYSIS_FAILED = "sql_analysis_async_failed";
+    public static final String METRIC_MISESTIMATE_PERSISTENT = "sql_analysis_misestimate_persistent";
+    public static final String METRIC_MISESTIMATE_OBSERVED = "sql_analysis_misestimate_observed";
+    public static final String METRIC_MISESTIMATE_FLAGGED = "sql_analysis_misestimate_flagged";
+    public static final String METRIC_EXEC_LATENCY = "sql_analysis_exec_latency_ms";
+    public static final String METRIC_LATENCY_TRACKED = "sql_analysis_exec_latency_tracked";
 
     /**
      * HTTP 连接超时（毫秒）
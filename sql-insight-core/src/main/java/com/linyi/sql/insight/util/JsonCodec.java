@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.linyi.sql.insight.util;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.linyi.sql.insight.model.PreEncodedJson;
+import com.linyi.sql.insight.model.SqlAnalysisResult;
+import com.linyi.sql.insight.model.SqlAnalysisResultList;
+import com.linyi.sql.insight.model.SqlScoreResult;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * 共享 JSON 编解码器。
+ * <p>
+ * 全局复用一个 Gson 实例（反射元数据与 TypeAdapter 只构建一次），编码通过流式 JsonWriter 写入线程复用的缓冲区，
+ * 不持有任何跨调用的可变状态。
+ * </p>
+ * <p>
+ * 每次分析的评分结果与计划行由拦截器调用 {@link #preEncode} 编码一次，JSON 记录在对象自身（{@link PreEncodedJson}）；
+ * 日志、HTTP 与完整日志各通道序列化时经 {@link JsonWriter#jsonValue} 直接嵌入，不再重复编码。
+ * </p>
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+public final class JsonCodec {
+
+    private static final TypeToken<List<SqlAnalysisResult>> ROWS_TYPE = new TypeToken<List<SqlAnalysisResult>>() {
+    };
+
+    private static final Gson GSON = new GsonBuilder().registerTypeAdapterFactory(new PreEncodedFactory()).create();
+
+    /**
+     * 复用缓冲区的最大保留容量，超出后丢弃以免长期占用内存
+     */
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private static final ThreadLocal<BufferWriter> BUFFER = new ThreadLocal<BufferWriter>() {
+        @Override
+        protected BufferWriter initialValue() {
+            return new BufferWriter();
+        }
+    };
+
+    private JsonCodec() {
+    }
+
+    /**
+     * @return 共享的 Gson 实例
+     */
+    public static Gson gson() {
+        return GSON;
+    }
+
+    /**
+     * 将对象编码为 JSON
+     *
+     * @param value 对象，为null时返回 "null"；已预编码时直接返回预编码结果
+     * @return JSON 字符串
+     */
+    @SuppressWarnings("unchecked")
+    public static String toJson(Object value) {
+        if (value == null)
+            return "null";
+        if (value instanceof PreEncodedJson && ((PreEncodedJson) value).encodedJson() != null)
+            return ((PreEncodedJson) value).encodedJson();
+        return encode(value, (TypeAdapter<Object>) GSON.getAdapter(value.getClass()));
+    }
+
+    /**
+     * 预编码评分结果（已编码时不重复编码）
+     *
+     * @param result 评分结果，可为null
+     */
+    public static void preEncode(SqlScoreResult result) {
+        if (result != null && result.encodedJson() == null) {
+            result.encodedJson(toJson(result));
+        }
+    }
+
+    /**
+     * 预编码计划行（已编码时不重复编码），计划本身与 {@code explainRows} 序列化时均嵌入该 JSON
+     *
+     * @param plan 执行计划，可为null
+     */
+    public static void preEncode(SqlAnalysisResultList plan) {
+        if (plan == null || !(plan.getResults() instanceof PreEncodedJson))
+            return;
+        PreEncodedJson rows = (PreEncodedJson) plan.getResults();
+        if (rows.encodedJson() == null) {
+            rows.encodedJson(encode(plan.getResults(), GSON.getAdapter(ROWS_TYPE)));
+        }
+    }
+
+    private static <T> String encode(T value, TypeAdapter<T> adapter) {
+        BufferWriter buffer = BUFFER.get().acquire();
+        try {
+            JsonWriter writer = GSON.newJsonWriter(buffer);
+            adapter.write(writer, value);
+            writer.flush();
+            return buffer.toString();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * 预编码嵌入：{@link PreEncodedJson} 类型与计划行列表已编码时直接写入原始 JSON；
+     * {@link SqlAnalysisResultList} 按字段写出，使其中的计划行同样复用预编码结果
+     */
+    private static final class PreEncodedFactory implements TypeAdapterFactory {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            Class<? super T> raw = type.getRawType();
+            if (raw == SqlAnalysisResultList.class) {
+                TypeAdapter<SqlAnalysisResultList> delegate = gson.getDelegateAdapter(this,
+                        TypeToken.get(SqlAnalysisResultList.class));
+                return (TypeAdapter<T>) new PlanAdapter(delegate, gson.getAdapter(ROWS_TYPE),
+                        gson.getAdapter(Double.class));
+            }
+            if (PreEncodedJson.class.isAssignableFrom(raw) || ROWS_TYPE.equals(type)) {
+                return new EmbeddingAdapter<>(gson.getDelegateAdapter(this, type));
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 已预编码时嵌入原始 JSON，否则交给默认适配器
+     */
+    private static final class EmbeddingAdapter<T> extends TypeAdapter<T> {
+        private final TypeAdapter<T> delegate;
+
+        EmbeddingAdapter(TypeAdapter<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(JsonWriter out, T value) throws IOException {
+            String json = value instanceof PreEncodedJson ? ((PreEncodedJson) value).encodedJson() : null;
+            if (json != null) {
+                out.jsonValue(json);
+            } else {
+                delegate.write(out, value);
+            }
+        }
+
+        @Override
+        public T read(JsonReader in) throws IOException {
+            return delegate.read(in);
+        }
+    }
+
+    /**
+     * {@link SqlAnalysisResultList} 写出：与反射序列化的字段及顺序一致（results、queryCost），
+     * results 写只读视图以复用其预编码 JSON；读取仍走反射适配器
+     */
+    private static final class PlanAdapter extends TypeAdapter<SqlAnalysisResultList> {
+        private final TypeAdapter<SqlAnalysisResultList> delegate;
+        private final TypeAdapter<List<SqlAnalysisResult>> rows;
+        private final TypeAdapter<Double> cost;
+
+        PlanAdapter(TypeAdapter<SqlAnalysisResultList> delegate, TypeAdapter<List<SqlAnalysisResult>> rows,
+                TypeAdapter<Double> cost) {
+            this.delegate = delegate;
+            this.rows = rows;
+            this.cost = cost;
+        }
+
+        @Override
+        public void write(JsonWriter out, SqlAnalysisResultList plan) throws IOException {
+            if (plan == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("results");
+            rows.write(out, plan.getResults());
+            if (plan.getQueryCost() != null) {
+                out.name("queryCost");
+                cost.write(out, plan.getQueryCost());
+            }
+            out.endObject();
+        }
+
+        @Override
+        public SqlAnalysisResultList read(JsonReader in) throws IOException {
+            return delegate.read(in);
+        }
+    }
+
+    /**
+     * 线程复用的字符缓冲 Writer
+     */
+    private static final class BufferWriter extends Writer {
+        private StringBuilder sb = new StringBuilder(512);
+
+        BufferWriter acquire() {
+            sb.setLength(0);
+            return this;
+        }
+
+        void release() {
+            if (sb.capacity() > MAX_RETAINED_CAPACITY)
+                sb = new StringBuilder(512);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            sb.append(cbuf, off, len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            sb.append(str, off, off + len);
+        }
+
+        @Override
+        public void write(int c) {
+            sb.append((char) c);
+        }
+
+        @Override
+        public Writer append(CharSequence csq) {
+            sb.append(csq);
+            return this;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String toString() {
+            return sb.toString();
+        }
+    }
+}
@@ -30,7 +30,10 @@ package com.linyi.sql.insight.util;
  */
 public class SqlLengthTruncatorUtils {
 
-    private static final String TRUNCATED_SUFFIX = " ... [truncated]";
+    /**
+     * 截断后追加的后缀
+     */
+    public static final String TRUNCATED_SUFFIX = " ... [truncated]";
 
     private SqlLengthTruncatorUtils() {
     }
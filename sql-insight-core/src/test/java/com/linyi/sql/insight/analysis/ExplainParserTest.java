@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.linyi.sql.insight.analysis;
+
+import com.linyi.sql.insight.model.PlanNode;
+import com.linyi.sql.insight.model.SqlAnalysisResult;
+import com.linyi.sql.insight.model.SqlAnalysisResultList;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * {@link ExplainParser} 测试
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+class ExplainParserTest {
+
+    /**
+     * 按给定列名与行数据构造只读的 ResultSet 代理
+     */
+    private static ResultSet resultSet(String[] labels, String[][] rows) {
+        ResultSetMetaData md = (ResultSetMetaData) Proxy.newProxyInstance(ExplainParserTest.class.getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class}, (p, m, a) -> {
+                    switch (m.getName()) {
+                        case "getColumnCount":
+                            return labels.length;
+                        case "getColumnLabel":
+                        case "getColumnName":
+                            return labels[(Integer) a[0] - 1];
+                        default:
+                            throw new UnsupportedOperationException(m.getName());
+                    }
+                });
+        int[] cursor = {-1};
+        return (ResultSet) Proxy.newProxyInstance(ExplainParserTest.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (p, m, a) -> {
+                    switch (m.getName()) {
+                        case "getMetaData":
+                            return md;
+                        case "next":
+                            return ++cursor[0] < rows.length;
+                        case "getString":
+                            return rows[cursor[0]][(Integer) a[0] - 1];
+                        default:
+                            throw new UnsupportedOperationException(m.getName());
+                    }
+                });
+    }
+
+    @Test
+    void parseTableResolvesColumnsByLabel() {
+        String[] labels = {"ID", "select_type", "table", "partitions", "type", "possible_keys", "key", "key_len",
+                "ref", "rows", "filtered", "Extra"};
+        ResultSet rs = resultSet(labels, new String[][]{
+                {"1", "SIMPLE", "o", null, "ref", "idx_user", "idx_user", "8", "const", "12", "10.00", "Using where"},
+                {"1", "SIMPLE", "u", null, "eq_ref", "PRIMARY", "PRIMARY", "8", "o.user_id", "1", "100.00", null}
+        });
+        List<SqlAnalysisResult> list = new ExplainParser().parseTable(rs).getResults();
+
+        assertEquals(2, list.size());
+        SqlAnalysisResult o = list.get(0);
+        assertEquals("1", o.getId());
+        assertEquals("o", o.getTable());
+        assertEquals("ref", o.getType());
+        assertEquals("idx_user", o.getKey());
+        assertEquals("8", o.getKeyLen());
+        assertEquals("const", o.getRef());
+        assertEquals(12L, o.getRows());
+        assertEquals("10.00", o.getFiltered());
+        assertEquals("Using where", o.getExtra());
+        assertEquals("eq_ref", list.get(1).getType());
+        assertNull(list.get(1).getExtra());
+    }
+
+    @Test
+    void parseTableReusesLayoutOnlyForSameColumns() {
+        ExplainParser parser = new ExplainParser();
+        String[] full = {"id", "table", "type", "rows"};
+        String[] shuffled = {"rows", "type", "table", "id"};
+        for (int round = 0; round < 2; round++) {
+            SqlAnalysisResult a = parser.parseTable(resultSet(full, new String[][]{{"1", "a", "ALL", "10"}}))
+                    .getResults().get(0);
+            assertEquals("a", a.getTable());
+            assertEquals(10L, a.getRows());
+            SqlAnalysisResult b = parser.parseTable(resultSet(shuffled, new String[][]{{"20", "ref", "b", "2"}}))
+                    .getResults().get(0);
+            assertEquals("2", b.getId());
+            assertEquals("b", b.getTable());
+            assertEquals("ref", b.getType());
+            assertEquals(20L, b.getRows());
+        }
+    }
+
+    @Test
+    void parseTableLeavesMissingColumnsNull() {
+        // 不同数据源的列顺序与列集合可能不同，每个结果集单独解析
+        ResultSet rs = resultSet(new String[]{"rows", "table", "select_id"}, new String[][]{{"7", "t", "2"}});
+        SqlAnalysisResult r = new ExplainParser().parseTable(rs).getResults().get(0);
+
+        assertEquals("2", r.getId());
+        assertEquals("t", r.getTable());
+        assertEquals(7L, r.getRows());
+        assertNull(r.getType());
+        assertNull(r.getExtra());
+    }
+
+    private static String resource(String name) throws IOException {
+        try (InputStream in = ExplainParserTest.class.getResourceAsStream("/explain/" + name)) {
+            assertNotNull(in, name);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            for (int n; (n = in.read(buf)) > 0; ) {
+                out.write(buf, 0, n);
+            }
+            return out.toString(StandardCharsets.UTF_8.name());
+        }
+    }
+
+    /**
+     * 把解析结果渲染为逐行文本：表格行的全部字段 + 计划树
+     */
+    private static String render(SqlAnalysisResultList list) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("queryCost=").append(list.getQueryCost()).append('\n');
+        for (SqlAnalysisResult r : list.getResults()) {
+            sb.append(r.getId()).append('|').append(r.getTable()).append('|').append(r.getType()).append('|')
+                    .append(r.getKey()).append('|').append(r.getKeyLen()).append('|').append(r.getRef()).append('|')
+                    .append(r.getRows()).append('|').append(r.getFiltered()).append('|').append(r.getExtra()).append('|')
+                    .append(r.getPossibleKeys()).append('|').append(r.getCost()).append('|')
+                    .append(r.getRowsProduced()).append('\n');
+        }
+        if (list.getPlanTree() != null)
+            render(list.getPlanTree(), "", sb);
+        return sb.toString();
+    }
+
+    private static void render(PlanNode n, String indent, StringBuilder sb) {
+        sb.append(indent).append(n.getKind()).append(" sel=").append(n.getSelectId()).append(" t=")
+                .append(n.getTableName()).append(" cost=").append(n.getQueryCost()).append('/')
+                .append(n.getPrefixCost()).append(" sub=").append(n.getSubqueryType()).append(" msg=")
+                .append(n.getMessage()).append(" ukp=").append(n.getUsedKeyParts()).append(" cond=")
+                .append(n.getAttachedCondition()).append('\n');
+        for (PlanNode c : n.getChildren()) {
+            render(c, indent + "  ", sb);
+        }
+    }
+
+    /**
+     * 流式解析结果与改写前基于 DOM（JsonParser）的解析结果一致；*.expected 为改写前的输出
+     */
+    private static void assertSameAsDom(String plan) throws IOException {
+        String json = resource(plan + ".json");
+        assertEquals(resource(plan + ".expected"), render(new ExplainParser().parseJson(json)), plan);
+    }
+
+    @Test
+    void parseJsonNestedLoop() throws IOException {
+        assertSameAsDom("nested");
+    }
+
+    @Test
+    void parseJsonUnion() throws IOException {
+        assertSameAsDom("union");
+    }
+
+    @Test
+    void parseJsonSubqueries() throws IOException {
+        assertSameAsDom("subquery");
+        assertSameAsDom("message");
+    }
+
+    @Test
+    void parseJsonMalformed() throws IOException {
+        assertSameAsDom("truncated");
+        assertSameAsDom("garbage");
+        assertEquals("queryCost=null\n", render(new ExplainParser().parseJson(null)));
+        assertEquals("queryCost=null\n", render(new ExplainParser().parseJson("")));
+    }
+
+    @Test
+    void parseTreeSkipsInternalTemporaryTables() {
+        String tree = "-> Table scan on <temporary>  (cost=2.5..2.5 rows=10)\n"
+                + "    -> Temporary table with deduplication  (cost=1.3 rows=10)\n"
+                + "        -> Table scan on <derived2>  (cost=2.5..2.5 rows=10)\n"
+                + "            -> Materialize  (cost=0.0 rows=10)\n"
+                + "                -> Filter: (o.status = 1)  (cost=1.2 rows=10)\n"
+                + "                    -> Table scan on o  (cost=1.2 rows=100)\n";
+        List<SqlAnalysisResult> list = new ExplainParser().parseTree(tree).getResults();
+
+        assertEquals(3, list.size());
+        assertEquals("Using temporary", list.get(0).getExtra());
+        assertNull(list.get(0).getTable());
+        assertEquals("Using temporary", list.get(1).getExtra());
+        SqlAnalysisResult scan = list.get(2);
+        assertEquals("o", scan.getTable());
+        assertEquals("ALL", scan.getType());
+        assertEquals(100L, scan.getRows());
+        assertEquals("Using where", scan.getExtra());
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.linyi.sql.insight.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link DedupWindowStore} 测试
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+class DedupWindowStoreTest {
+
+    private static final long WINDOW = 1000L;
+
+    /**
+     * 单分段 16 槽时落在同一起始槽的第 n 个键
+     */
+    private static long colliding(int n) {
+        return 16L * n + 3;
+    }
+
+    @Test
+    void duplicateWithinWindowAndExpiryAfterIt() {
+        DedupWindowStore store = new DedupWindowStore(16, 1);
+        assertTrue(store.tryAcquire(42L, 0L, WINDOW));
+        assertFalse(store.tryAcquire(42L, WINDOW - 1, WINDOW));
+        assertTrue(store.tryAcquire(42L, WINDOW, WINDOW));
+        assertFalse(store.tryAcquire(42L, WINDOW + 1, WINDOW));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void resetLetsKeyPassAgain() {
+        DedupWindowStore store = new DedupWindowStore(16, 1);
+        assertTrue(store.tryAcquire(7L, 0L, WINDOW));
+        store.reset(7L);
+        assertTrue(store.tryAcquire(7L, 1L, WINDOW));
+        assertFalse(store.tryAcquire(7L, 2L, WINDOW));
+        // 0 与其它键一样参与去重
+        assertTrue(store.tryAcquire(0L, 0L, WINDOW));
+        assertFalse(store.tryAcquire(0L, 1L, WINDOW));
+    }
+
+    @Test
+    void fullProbeWindowEvictsOldestEntry() {
+        DedupWindowStore store = new DedupWindowStore(16, 1);
+        assertEquals(16, store.capacity());
+        for (int n = 1; n <= 8; n++) {
+            assertTrue(store.tryAcquire(colliding(n), n, WINDOW));
+        }
+        assertEquals(8, store.size());
+
+        // 探测窗口内 8 个槽均被未过期条目占用：淘汰最久未检查的 colliding(1)
+        assertTrue(store.tryAcquire(colliding(9), 9L, WINDOW));
+        assertEquals(1, store.getEvictionCount());
+        assertEquals(0, store.getExpirationCount());
+        assertFalse(store.tryAcquire(colliding(9), 10L, WINDOW));
+        assertFalse(store.tryAcquire(colliding(2), 10L, WINDOW));
+        assertTrue(store.tryAcquire(colliding(1), 10L, WINDOW));
+        assertEquals(2, store.getEvictionCount());
+        // 淘汰复用槽位，条目数不变
+        assertEquals(8, store.size());
+
+        // 起始槽在窗口之外的键不受影响
+        assertTrue(store.tryAcquire(11L, 10L, WINDOW));
+        assertFalse(store.tryAcquire(11L, 11L, WINDOW));
+    }
+
+    @Test
+    void fullProbeWindowReusesExpiredEntryFirst() {
+        DedupWindowStore store = new DedupWindowStore(16, 1);
+        for (int n = 1; n <= 8; n++) {
+            assertTrue(store.tryAcquire(colliding(n), n * 100L, WINDOW));
+        }
+        // colliding(1) 与 colliding(2) 已过期，复用第一个过期槽而不是淘汰
+        assertTrue(store.tryAcquire(colliding(9), 1250L, WINDOW));
+        assertEquals(1, store.getExpirationCount());
+        assertEquals(0, store.getEvictionCount());
+        assertFalse(store.tryAcquire(colliding(8), 1250L, WINDOW));
+        assertFalse(store.tryAcquire(colliding(9), 1251L, WINDOW));
+    }
+
+    @Test
+    void capacityIsFixedAtConstruction() {
+        DedupWindowStore store = new DedupWindowStore(1000, 4);
+        assertEquals(1024, store.capacity());
+        for (long k = 1; k <= 10_000; k++) {
+            store.tryAcquire(k * 0x9E3779B97F4A7C15L, k, WINDOW);
+        }
+        assertTrue(store.size() <= store.capacity());
+        assertTrue(store.getEvictionCount() > 0);
+    }
+}
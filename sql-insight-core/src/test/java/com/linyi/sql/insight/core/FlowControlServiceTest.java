@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.linyi.sql.insight.core;
+
+import com.linyi.sql.insight.config.SqlAnalysisProperties;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link FlowControlService} 测试
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+class FlowControlServiceTest {
+
+    private static FlowControlService flow(int maxConcurrent, double budgetPerSecond) {
+        SqlAnalysisProperties properties = new SqlAnalysisProperties();
+        properties.setSamplingRate(1.0);
+        properties.setOnlyCheckOnce(true);
+        properties.setCheckIntervalMs(60_000L);
+        properties.setMaxConcurrentAnalyses(maxConcurrent);
+        properties.setExplainBudgetPerSecond(budgetPerSecond);
+        return new FlowControlService(properties);
+    }
+
+    @Test
+    void concurrencyRejectionKeepsBudgetAndClearsDedup() {
+        FlowControlService flow = flow(1, 1.0);
+        assertTrue(flow.tryBeginAnalysis());
+
+        assertTrue(flow.shouldAnalyze("a.select", 42L));
+        assertFalse(flow.tryBeginExplain("a.select", 42L));
+        assertEquals(1, flow.getConcurrencyRejectedCount());
+        assertEquals(1, flow.getInFlightCount());
+        flow.endAnalysis();
+
+        // 去重记录已撤销，且唯一的预算令牌未被消耗
+        assertTrue(flow.shouldAnalyze("a.select", 42L));
+        assertTrue(flow.tryBeginExplain("a.select", 42L));
+        flow.endAnalysis();
+        assertEquals(0, flow.getGlobalBudgetRejectedCount());
+        assertFalse(flow.shouldAnalyze("a.select", 42L));
+    }
+
+    @Test
+    void budgetRejectionReleasesSlotAndClearsDedup() {
+        FlowControlService flow = flow(1, 1.0);
+        assertTrue(flow.shouldAnalyze("a.select", 1L));
+        assertTrue(flow.tryBeginExplain("a.select", 1L));
+        flow.endAnalysis();
+
+        assertTrue(flow.shouldAnalyze("b.select", 2L));
+        assertFalse(flow.tryBeginExplain("b.select", 2L));
+        assertEquals(1, flow.getGlobalBudgetRejectedCount());
+        assertEquals(0, flow.getInFlightCount());
+        assertTrue(flow.shouldAnalyze("b.select", 2L));
+    }
+}
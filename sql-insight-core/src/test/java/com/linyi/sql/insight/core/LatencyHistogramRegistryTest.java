@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.linyi.sql.insight.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link LatencyHistogramRegistry} 测试
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+class LatencyHistogramRegistryTest {
+
+    @Test
+    void recentServesLastCompleteWindow() throws InterruptedException {
+        LatencyHistogramRegistry registry = new LatencyHistogramRegistry(16, 200L);
+        for (int i = 0; i < 3; i++) {
+            registry.record("a.select", 1L, 1_000_000L);
+        }
+        // 第一个窗口结束前返回已记录的部分
+        assertEquals(3, registry.recent().getCount());
+
+        Thread.sleep(250L);
+        assertEquals(3, registry.recent().getCount());
+        registry.record("a.select", 1L, 1_000_000L);
+        assertEquals(3, registry.recent().getCount());
+
+        Thread.sleep(250L);
+        assertEquals(1, registry.recent().getCount());
+        Thread.sleep(250L);
+        assertEquals(0, registry.recent().getCount());
+        // 累计的按键汇总不受窗口影响
+        assertEquals(4, registry.summaries(0).get(0).getCount());
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.linyi.sql.insight.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link LatencyHistogram} 测试
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+class LatencyHistogramTest {
+
+    @Test
+    void indexAndUpperBoundRoundTrip() {
+        for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; i++) {
+            long upper = LatencyHistogram.upperBound(i);
+            assertEquals(i, LatencyHistogram.index(upper), "upper bound of bucket " + i);
+            if (i + 1 < LatencyHistogram.BUCKET_COUNT) {
+                assertEquals(i + 1, LatencyHistogram.index(upper + 1), "first value after bucket " + i);
+            }
+        }
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.index(Long.MAX_VALUE));
+    }
+
+    @Test
+    void relativeErrorStaysWithinSubBucketWidth() {
+        for (long micros = 16; micros < (1L << 30); micros = micros * 3 + 7) {
+            long upper = LatencyHistogram.upperBound(LatencyHistogram.index(micros));
+            assertTrue(upper >= micros);
+            assertTrue(upper - micros <= micros / 16, "bucket too wide for " + micros);
+        }
+    }
+
+    @Test
+    void minusReturnsDeltaBetweenSnapshots() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(1_000_000L);
+        h.record(2_000_000L);
+        LatencyHistogram.Snapshot base = h.snapshot();
+        h.record(50_000_000L);
+        LatencyHistogram.Snapshot delta = h.snapshot().minus(base);
+        assertEquals(1, delta.getCount());
+        assertEquals(50.0, delta.percentileMs(0.5), 50.0 / 16);
+        assertEquals(0, base.minus(h.snapshot()).getCount());
+    }
+}
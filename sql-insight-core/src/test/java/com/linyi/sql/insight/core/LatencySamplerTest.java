@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.linyi.sql.insight.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link LatencySampler} 测试
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+class LatencySamplerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static void warmUp(LatencySampler sampler, long fingerprint) {
+        for (int i = 0; i < 20; i++) {
+            assertTrue(sampler.sample(fingerprint, FAST), "warming up " + fingerprint);
+        }
+    }
+
+    @Test
+    void slowAndTailExecutionsAreForced() {
+        LatencySampler sampler = new LatencySampler(100L, 0.0, 16, 1);
+        warmUp(sampler, 7L);
+        assertFalse(sampler.sample(7L, FAST / 2));
+        assertTrue(sampler.sample(7L, FAST * 10));
+        assertEquals(1, sampler.getTailForcedCount());
+        assertTrue(sampler.sample(7L, TimeUnit.MILLISECONDS.toNanos(200)));
+        assertEquals(1, sampler.getSlowForcedCount());
+    }
+
+    @Test
+    void newFingerprintsAreTrackedAfterCapIsReached() {
+        LatencySampler sampler = new LatencySampler(0L, 0.0, 16, 1);
+        for (long fp = 1; fp <= 200; fp++) {
+            warmUp(sampler, fp);
+        }
+        assertEquals(16, sampler.getTrackedCount());
+        assertTrue(sampler.getEvictionCount() > 0);
+
+        // 超出上限后出现的新指纹仍然有 p95 估计：预热期必采，预热后快执行不采、尾部执行必采
+        long fresh = 1_000_003L;
+        warmUp(sampler, fresh);
+        assertFalse(sampler.sample(fresh, FAST / 2));
+        assertTrue(sampler.sample(fresh, FAST * 10));
+        assertEquals(1, sampler.getTailForcedCount());
+        assertEquals(16, sampler.getTrackedCount());
+    }
+
+    @Test
+    void evictsLeastRecentlySeenFingerprint() {
+        LatencySampler sampler = new LatencySampler(0L, 0.0, 8, 1);
+        // 8 个指纹落在同一探测窗口
+        for (int n = 1; n <= 8; n++) {
+            warmUp(sampler, 8L * n);
+        }
+        // 最近出现过的 8 仍保留，最久未出现的 16 被淘汰
+        assertFalse(sampler.sample(8L, FAST / 2));
+        warmUp(sampler, 8L * 9);
+        assertEquals(1, sampler.getEvictionCount());
+        assertFalse(sampler.sample(8L, FAST / 2));
+        assertTrue(sampler.sample(16L, FAST / 2));
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.linyi.sql.insight.core;
+
+import com.linyi.sql.insight.util.AppConstants;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * {@link MetricsRecorder} 测试
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+class MetricsRecorderTest {
+
+    @Test
+    void analysisDispatcherDropsAreExportedAsCounter() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        // 未启动的调度器拒绝所有提交
+        AsyncAnalysisDispatcher dispatcher = new AsyncAnalysisDispatcher(null, 1, 1, (c, s) -> {
+        });
+        new MetricsRecorder(registry).bindAnalysisDispatcher(dispatcher);
+        dispatcher.submit(new AnalysisSnapshot("a.select", "select 1", null, "select 1", 0L, 1L));
+        dispatcher.submit(new AnalysisSnapshot("a.select", "select 1", null, "select 1", 0L, 1L));
+
+        FunctionCounter dropped = registry.find(AppConstants.METRIC_ANALYSIS_DROPPED).functionCounter();
+        assertNotNull(dropped);
+        assertEquals(2.0, dropped.count());
+        assertEquals(0.0, registry.find(AppConstants.METRIC_ANALYSIS_SUBMITTED).functionCounter().count());
+        assertNotNull(registry.find(AppConstants.METRIC_ANALYSIS_FAILED).functionCounter());
+        assertEquals(0.0, registry.find(AppConstants.METRIC_ANALYSIS_QUEUE).gauge().value());
+    }
+}
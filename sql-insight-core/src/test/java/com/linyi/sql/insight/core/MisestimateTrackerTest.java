@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.linyi.sql.insight.core;
+
+import com.linyi.sql.insight.analysis.ExplainParser;
+import com.linyi.sql.insight.model.SqlAnalysisResult;
+import com.linyi.sql.insight.model.SqlAnalysisResultList;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link MisestimateTracker} 测试
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+class MisestimateTrackerTest {
+
+    private static SqlAnalysisResult row(String id, String table, long rows, String filtered) {
+        SqlAnalysisResult r = new SqlAnalysisResult();
+        r.setId(id);
+        r.setTable(table);
+        r.setRows(rows);
+        r.setFiltered(filtered);
+        return r;
+    }
+
+    @Test
+    void plainSelectAndUpdateAreComparable() {
+        assertTrue(MisestimateTracker.isComparable("select * from t where a = 1", null));
+        assertTrue(MisestimateTracker.isComparable("/* hint */ SELECT t.count, u.max_age from t join u on t.id = u.id", null));
+        assertTrue(MisestimateTracker.isComparable("select * from t where name = 'limit 10 group by'", null));
+        assertTrue(MisestimateTracker.isComparable("update t set a = 1 where b = 2", null));
+    }
+
+    @Test
+    void aggregatesGroupingAndLimitAreNotComparable() {
+        assertFalse(MisestimateTracker.isComparable("select count(*) from t", null));
+        assertFalse(MisestimateTracker.isComparable("select MAX (a) from t where b = 1", null));
+        assertFalse(MisestimateTracker.isComparable("select a from t group by a", null));
+        assertFalse(MisestimateTracker.isComparable("select distinct a from t", null));
+        assertFalse(MisestimateTracker.isComparable("select * from t order by id limit 20", null));
+        assertFalse(MisestimateTracker.isComparable("select a from t union select a from u", null));
+        assertFalse(MisestimateTracker.isComparable("delete from t where a = 1", null));
+        assertFalse(MisestimateTracker.isComparable("select * from t where a = 1 ... [truncated]", null));
+        assertFalse(MisestimateTracker.isComparable(null, null));
+    }
+
+    @Test
+    void groupingNodeInPlanTreeIsNotComparable() {
+        String json = "{\"query_block\":{\"select_id\":1,\"grouping_operation\":{\"using_temporary_table\":true,"
+                + "\"table\":{\"table_name\":\"t\",\"access_type\":\"ALL\",\"rows_examined_per_scan\":100}}}}";
+        SqlAnalysisResultList plan = new ExplainParser().parseJson(json);
+        assertFalse(MisestimateTracker.isComparable("select * from t", plan));
+    }
+
+    @Test
+    void estimatePrefersRowsProducedOfLastOuterTable() {
+        SqlAnalysisResultList plan = new SqlAnalysisResultList();
+        plan.add(row("1", "a", 1000, "10.00"));
+        plan.add(row("1", "b", 5, "100.00"));
+        plan.add(row("2", "c", 1_000_000, "100.00"));
+        assertEquals(500, MisestimateTracker.estimateRows(plan));
+
+        plan.getResults().get(1).setRowsProduced(321L);
+        assertEquals(321, MisestimateTracker.estimateRows(plan));
+        assertEquals(-1, MisestimateTracker.estimateRows(new SqlAnalysisResultList()));
+    }
+
+    @Test
+    void flagsOnlyAfterMinimumSamples() {
+        MisestimateTracker tracker = new MisestimateTracker(10);
+        for (int i = 0; i < 4; i++)
+            tracker.observe("fp", "id", 1, 1000);
+        assertEquals(0, tracker.getPersistentCount());
+        tracker.observe("fp", "id", 1, 1000);
+        assertEquals(1, tracker.getPersistentCount());
+        tracker.observe("ok", "id", 100, 120);
+        assertEquals(1, tracker.getPersistentCount());
+        assertNull(tracker.observe("fp", "id", -1, 10));
+    }
+}
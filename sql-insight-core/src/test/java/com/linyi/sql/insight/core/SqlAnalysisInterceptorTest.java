@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.linyi.sql.insight.core;
+
+import com.linyi.sql.insight.config.SqlAnalysisProperties;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link SqlAnalysisInterceptor} 执行阶段拦截测试：只有 query/update 计时，未执行的上下文在最外层执行返回后清除
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+class SqlAnalysisInterceptorTest {
+
+    private static final Statement STATEMENT = (Statement) Proxy.newProxyInstance(
+            Statement.class.getClassLoader(), new Class<?>[]{Statement.class}, (p, m, a) -> null);
+
+    private SqlAnalysisInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        SqlAnalysisProperties props = new SqlAnalysisProperties();
+        // 只计时，不进入分析
+        props.setSamplingRate(0);
+        props.setFullLogEnabled(false);
+        interceptor = new SqlAnalysisInterceptor(props);
+    }
+
+    private static StatementHandler handler(String sql) {
+        BoundSql boundSql = new BoundSql(new Configuration(), sql, Collections.emptyList(), null);
+        return (StatementHandler) Proxy.newProxyInstance(StatementHandler.class.getClassLoader(),
+                new Class<?>[]{StatementHandler.class}, (p, m, a) -> {
+                    switch (m.getName()) {
+                        case "getBoundSql":
+                            return boundSql;
+                        case "prepare":
+                            return STATEMENT;
+                        case "query":
+                            return Collections.emptyList();
+                        case "update":
+                            return 1;
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private Object call(StatementHandler h, String method, Object... args) throws Throwable {
+        Method m;
+        switch (method) {
+            case "prepare":
+                m = StatementHandler.class.getMethod(method, Connection.class, Integer.class);
+                break;
+            case "query":
+                m = StatementHandler.class.getMethod(method, Statement.class, ResultHandler.class);
+                break;
+            default:
+                m = StatementHandler.class.getMethod(method, Statement.class);
+                break;
+        }
+        return interceptor.intercept(new Invocation(h, m, args));
+    }
+
+    private void prepare(StatementHandler h) throws Throwable {
+        call(h, "prepare", null, 0);
+    }
+
+    private long timedExecutions() {
+        long n = 0;
+        for (LatencyHistogramRegistry.Summary s : interceptor.getLatencyHistograms().summaries(0))
+            n += s.getCount();
+        return n;
+    }
+
+    @Test
+    void onlyQueryAndUpdateAreTimed() throws Throwable {
+        StatementHandler cursor = handler("select * from t where id = 1");
+        prepare(cursor);
+        call(cursor, "queryCursor", STATEMENT);
+
+        StatementHandler batch = handler("update t set a = 1 where id = 2");
+        prepare(batch);
+        call(batch, "batch", STATEMENT);
+        assertEquals(0, timedExecutions());
+
+        StatementHandler query = handler("select * from t where id = 3");
+        prepare(query);
+        call(query, "query", STATEMENT, null);
+        StatementHandler update = handler("update t set a = 1 where id = 4");
+        prepare(update);
+        call(update, "update", STATEMENT);
+        assertEquals(2, timedExecutions());
+    }
+
+    @Test
+    void unexecutedContextsAreClearedAfterOutermostExecute() throws Throwable {
+        StatementHandler neverExecuted = handler("select * from a where id = 1");
+        StatementHandler executed = handler("select * from b where id = 2");
+        prepare(neverExecuted);
+        prepare(executed);
+        call(executed, "query", STATEMENT, null);
+        assertEquals(1, timedExecutions());
+
+        // 残留上下文已清除：迟到的执行不再被当作入选语句计时
+        call(neverExecuted, "query", STATEMENT, null);
+        assertEquals(1, timedExecutions());
+    }
+}
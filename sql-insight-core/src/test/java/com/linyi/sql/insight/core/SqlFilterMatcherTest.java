@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.linyi.sql.insight.core;
+
+import com.linyi.sql.insight.config.SqlAnalysisProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link SqlFilterMatcher} 类型前缀树与 sqlId 黑白名单测试
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+class SqlFilterMatcherTest {
+
+    @Test
+    void multiWordTypeMatchesAcrossWhitespaceRuns() {
+        SqlAnalysisProperties props = new SqlAnalysisProperties();
+        props.setDenySqlTypes(Collections.singletonList("insert into"));
+        SqlFilterMatcher matcher = new SqlFilterMatcher(props);
+
+        assertFalse(SqlFilterMatcher.passType(matcher.matchType("insert into t values (1)")));
+        assertFalse(SqlFilterMatcher.passType(matcher.matchType("  INSERT\n  INTO t values (1)")));
+        assertFalse(SqlFilterMatcher.passType(matcher.matchType("insert\t\t into t values (1)")));
+        assertTrue(SqlFilterMatcher.passType(matcher.matchType("insertinto t values (1)")));
+    }
+
+    @Test
+    void explainableTypesIgnoreLeadingWhitespaceAndCase() {
+        SqlFilterMatcher matcher = new SqlFilterMatcher(new SqlAnalysisProperties());
+
+        assertTrue(SqlFilterMatcher.isExplainable(matcher.matchType("\n  SELECT * from t")));
+        assertTrue(SqlFilterMatcher.isExplainable(matcher.matchType("update t set a = 1")));
+        assertFalse(SqlFilterMatcher.isExplainable(matcher.matchType("insert into t values (1)")));
+    }
+
+    @Test
+    void sqlIdBlacklistWinsOverWhitelist() {
+        SqlAnalysisProperties props = new SqlAnalysisProperties();
+        props.setBlacklistSqlIdContains(Collections.singletonList("Internal"));
+        props.setWhitelistSqlIdContains(Arrays.asList("UserMapper", "OrderMapper"));
+        SqlFilterMatcher matcher = new SqlFilterMatcher(props);
+
+        assertTrue(matcher.passSqlId("com.demo.UserMapper.selectById"));
+        assertFalse(matcher.passSqlId("com.demo.UserMapper.selectInternal"));
+        assertFalse(matcher.passSqlId("com.demo.ItemMapper.selectById"));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.linyi.sql.insight.extract;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * {@link SensitiveFieldMasker} 测试
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+class SensitiveFieldMaskerTest {
+
+    private final SensitiveFieldMasker masker = new SensitiveFieldMasker();
+
+    @Test
+    void masksColumnsContainingKeyword() {
+        assertEquals("update user set user_password = '****' where id = 1",
+                masker.mask("update user set user_password = 'secret' where id = 1"));
+        assertEquals("select * from s where access_token='****'",
+                masker.mask("select * from s where access_token='abc123'"));
+        assertEquals("select * from u where login_email = '****'",
+                masker.mask("select * from u where login_email = 'z@z.com'"));
+    }
+
+    @Test
+    void masksExactAndQualifiedColumns() {
+        assertEquals("select * from u where u.PASSWORD <> '****' and `mobile` like '****'",
+                masker.mask("select * from u where u.PASSWORD <> 'x' and `mobile` like '138%'"));
+        assertEquals("select * from u where id_card in ('****', '****', ?)",
+                masker.mask("select * from u where id_card in ('a', 'b', ?)"));
+    }
+
+    @Test
+    void masksInsertValuesByColumnPosition() {
+        assertEquals("insert into u (id, user_email, name) values (1, '****', 'n'), (2, '****', 'm')",
+                masker.mask("insert into u (id, user_email, name) values (1, 'a@b', 'n'), (2, 'c@d', 'm')"));
+    }
+
+    @Test
+    void leavesLiteralsCommentsAndPlaceholdersAlone() {
+        String sql = "select 'password = 1' from t /* token = 2 */ where mobile = ?";
+        assertSame(sql, masker.mask(sql));
+        String plain = "select id, name from t where status = 1";
+        assertSame(plain, masker.mask(plain));
+    }
+
+    @Test
+    void customKeywordsMatchInsideIdentifiers() {
+        SensitiveFieldMasker custom = new SensitiveFieldMasker(Collections.singletonList("Secret"));
+        assertEquals("select * from t where api_secret_key = '****' and password = 'p'",
+                custom.mask("select * from t where api_secret_key = 'k' and password = 'p'"));
+    }
+
+    @Test
+    void masksConditionsInsideExplainJson() {
+        String plan = "{\"query_block\": {\"select_id\": 1, \"cost_info\": {\"query_cost\": \"1.20\"},"
+                + " \"table\": {\"table_name\": \"o\", \"access_type\": \"ALL\", \"rows_examined_per_scan\": 10,"
+                + " \"attached_condition\": \"((`db`.`o`.`mobile` = '13800000000') and (`db`.`o`.`status` = 1))\","
+                + " \"index_condition\": \"(`db`.`o`.`user_email` like 'z@z.com%')\", \"using_index\": false}}}";
+        String masked = masker.maskJson(plan);
+
+        assertFalse(masked.contains("13800000000"), masked);
+        assertFalse(masked.contains("z@z.com"), masked);
+        assertEquals("{\"query_block\":{\"select_id\":1,\"cost_info\":{\"query_cost\":\"1.20\"},"
+                + "\"table\":{\"table_name\":\"o\",\"access_type\":\"ALL\",\"rows_examined_per_scan\":10,"
+                + "\"attached_condition\":\"((`db`.`o`.`mobile` = '****') and (`db`.`o`.`status` = 1))\","
+                + "\"index_condition\":\"(`db`.`o`.`user_email` like '****')\",\"using_index\":false}}}", masked);
+    }
+
+    @Test
+    void explainJsonWithoutSensitiveValuesIsReturnedAsIs() {
+        String plan = "{\"query_block\": {\"table\": {\"attached_condition\": \"(`t`.`status` = 1)\"}}}";
+        assertSame(plan, masker.maskJson(plan));
+        // 无法解析的 JSON 不输出
+        assertNull(masker.maskJson("{\"query_block\": {\"table\": \"(`t`.`mobile` = '138')"));
+    }
+}
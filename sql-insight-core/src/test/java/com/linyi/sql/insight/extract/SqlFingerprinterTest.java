@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.linyi.sql.insight.extract;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * {@link SqlFingerprinter} 测试
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+class SqlFingerprinterTest {
+
+    private static void assertSameShape(String expected, String... sqls) {
+        long fp = SqlFingerprinter.fingerprint(sqls[0]);
+        for (String sql : sqls) {
+            assertEquals(expected, SqlFingerprinter.normalize(sql), sql);
+            assertEquals(fp, SqlFingerprinter.fingerprint(sql), sql);
+        }
+    }
+
+    @Test
+    void literalsAndCaseAreNormalized() {
+        assertSameShape("select * from t where id = ? and name = ?",
+                "SELECT * FROM t WHERE id = 1 AND name = 'bob'",
+                "select *  from T where ID=2 and NAME=\"al\\\"ice\"",
+                "select * from t where id = ? and name = 'it''s'");
+        assertEquals("select a from t where x = - ? and y = ? and z = ?",
+                SqlFingerprinter.normalize("select a from t where x = -3.5e2 and y = 0x1F and z = ?"));
+        assertEquals("select a1 , t . col from t where c = ?",
+                SqlFingerprinter.normalize("select a1, t.`col` from `t` where c = 2"));
+    }
+
+    @Test
+    void inListsCollapseRegardlessOfLength() {
+        assertSameShape("select a from t where id in ( ? )",
+                "select a from t where id in (1, 2, 3)",
+                "select a from t where id IN ( 4 )",
+                "select a from t where id in ('a','b','c','d','e','f')");
+        // 子查询与行构造器不是纯值列表，不折叠
+        assertEquals("select a from t where id in ( select b from u where c = ? )",
+                SqlFingerprinter.normalize("select a from t where id in (select b from u where c = 1)"));
+        assertEquals("select a from t where ( x , y ) in ( ( ? , ? ) , ( ? , ? ) )",
+                SqlFingerprinter.normalize("select a from t where (x, y) in ((1,2),(3,4))"));
+        assertNotEquals(SqlFingerprinter.fingerprint("select a from t where id in (1)"),
+                SqlFingerprinter.fingerprint("select a from t where id in (select b from u)"));
+    }
+
+    @Test
+    void valuesTuplesKeepOnlyTheFirst() {
+        assertSameShape("insert into t ( a , b ) values ( ? , ? )",
+                "insert into t (a, b) values (1, 'x'), (2, 'y'), (3, 'z')",
+                "INSERT INTO t (a, b) VALUES (9, 'q')");
+    }
+
+    @Test
+    void commentsAreIgnored() {
+        assertSameShape("select a from t where b = ?",
+                "select a from t where b = 1",
+                "/* hint */ select a -- trailing\n from t # mysql\n where b = 1",
+                "select /*+ INDEX(t idx) */ a from t where b = 'x -- not a comment'");
+    }
+
+    @Test
+    void differentShapesDiffer() {
+        assertNotEquals(SqlFingerprinter.fingerprint("select a from t where b = 1"),
+                SqlFingerprinter.fingerprint("select a from t where c = 1"));
+        assertNotEquals(SqlFingerprinter.fingerprint("select a from t"),
+                SqlFingerprinter.fingerprint("select a from u"));
+    }
+
+    @Test
+    void nullAndEmpty() {
+        assertEquals(0L, SqlFingerprinter.fingerprint(null));
+        assertEquals(0L, SqlFingerprinter.fingerprint(""));
+        assertNull(SqlFingerprinter.normalize(null));
+        assertEquals(16, SqlFingerprinter.toHex(SqlFingerprinter.fingerprint("select 1")).length());
+    }
+}
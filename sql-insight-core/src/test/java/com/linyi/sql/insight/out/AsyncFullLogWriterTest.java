@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.linyi.sql.insight.out;
+
+import com.linyi.sql.insight.model.SqlInsightLogDto;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link AsyncFullLogWriter} 测试
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+class AsyncFullLogWriterTest {
+
+    private static Logger countingLogger(AtomicLong lines) {
+        return (Logger) Proxy.newProxyInstance(Logger.class.getClassLoader(), new Class<?>[]{Logger.class},
+                (proxy, method, args) -> {
+                    if ("isInfoEnabled".equals(method.getName()))
+                        return true;
+                    if ("info".equals(method.getName()))
+                        lines.incrementAndGet();
+                    return method.getReturnType() == boolean.class ? false : null;
+                });
+    }
+
+    @Test
+    void drainsEveryRecordFromConcurrentProducers() throws Exception {
+        AtomicLong lines = new AtomicLong();
+        AsyncFullLogWriter writer = new AsyncFullLogWriter(countingLogger(lines), 1 << 16, 1.0, 0, null);
+        writer.start();
+        int producers = 4;
+        int perProducer = 5000;
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            Thread t = new Thread(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    SqlInsightLogDto dto = new SqlInsightLogDto();
+                    dto.sqlId = "id" + i;
+                    writer.submit(dto);
+                    if (i % 1000 == 0)
+                        Thread.yield();
+                }
+            });
+            t.start();
+            threads.add(t);
+        }
+        go.countDown();
+        for (Thread t : threads)
+            t.join();
+        writer.shutdown();
+
+        assertEquals(0, writer.getDroppedCount());
+        assertEquals(producers * perProducer, writer.getWrittenCount());
+        assertEquals(producers * perProducer, lines.get());
+    }
+
+    @Test
+    void idleDrainerParksWithoutTimeoutAndWakesOnSubmit() throws Exception {
+        AtomicLong lines = new AtomicLong();
+        AsyncFullLogWriter writer = new AsyncFullLogWriter(countingLogger(lines), 16, 1.0, 0, null);
+        writer.start();
+        try {
+            Thread drainer = awaitDrainerWaiting();
+            assertEquals(Thread.State.WAITING, drainer.getState());
+
+            writer.submit(new SqlInsightLogDto());
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (lines.get() == 0 && System.nanoTime() < deadline)
+                Thread.sleep(1);
+            assertEquals(1, lines.get());
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+    private static Thread awaitDrainerWaiting() throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (System.nanoTime() < deadline) {
+            for (Thread t : Thread.getAllStackTraces().keySet()) {
+                if ("sql-insight-full-log".equals(t.getName()) && t.getState() == Thread.State.WAITING)
+                    return t;
+            }
+            Thread.sleep(5);
+        }
+        throw new AssertionError("drainer did not park");
+    }
+}
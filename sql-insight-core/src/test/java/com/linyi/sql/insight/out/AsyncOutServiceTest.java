@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.linyi.sql.insight.out;
+
+import com.linyi.sql.insight.model.SqlAnalysisResultList;
+import com.linyi.sql.insight.model.SqlScoreResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link AsyncOutService} 测试
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+class AsyncOutServiceTest {
+
+    private static SqlScoreResult score(int value) {
+        SqlScoreResult r = new SqlScoreResult();
+        r.setScore(value);
+        return r;
+    }
+
+    @Test
+    void coalescePublishesLatestPayloadOnce() {
+        ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        List<String> delivered = new ArrayList<>();
+        AsyncOutService out = new AsyncOutService(
+                (result, sqlId, sql, plan) -> delivered.add(sqlId + "|" + sql + "|" + result.getScore()),
+                tasks::add, 16, 1, AsyncOutService.OverflowPolicy.COALESCE);
+
+        for (int i = 1; i <= 3; i++)
+            out.publish(score(i), "m.a", "select * from t where id = " + i, new SqlAnalysisResultList(), 42L);
+        out.publish(score(9), "m.b", "select 1", null, 7L);
+        while (!tasks.isEmpty())
+            tasks.poll().run();
+
+        assertEquals(2, out.getCoalescedCount());
+        assertEquals(2, delivered.size());
+        assertEquals("m.a|select * from t where id = 3|3", delivered.get(0));
+        assertEquals("m.b|select 1|9", delivered.get(1));
+    }
+
+    @Test
+    void coalescedPayloadFieldsComeFromOneAnalysis() throws Exception {
+        AtomicLong mismatched = new AtomicLong();
+        AtomicLong delivered = new AtomicLong();
+        ExecutorService consumers = Executors.newFixedThreadPool(2);
+        AsyncOutService out = new AsyncOutService((result, sqlId, sql, plan) -> {
+            delivered.incrementAndGet();
+            if (!sql.equals("q" + result.getScore()))
+                mismatched.incrementAndGet();
+        }, consumers, 64, 2, AsyncOutService.OverflowPolicy.COALESCE);
+
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            final int base = p * 100_000;
+            Thread t = new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    int v = base + i;
+                    out.publish(score(v), "m.x", "q" + v, null, 1L);
+                }
+            });
+            t.start();
+            producers.add(t);
+        }
+        for (Thread t : producers)
+            t.join();
+        consumers.shutdown();
+        assertTrue(consumers.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertTrue(delivered.get() > 0);
+        assertEquals(0, mismatched.get());
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2025 Lin Yi (linyi)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.linyi.sql.insight.util;
+
+import com.google.gson.Gson;
+import com.linyi.sql.insight.model.AnalysisLevel;
+import com.linyi.sql.insight.model.PreEncodedJson;
+import com.linyi.sql.insight.model.SqlAnalysisResult;
+import com.linyi.sql.insight.model.SqlAnalysisResultList;
+import com.linyi.sql.insight.model.SqlInsightLogDto;
+import com.linyi.sql.insight.model.SqlScoreResult;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link JsonCodec} 测试
+ *
+ * @author linyi
+ * @since 1.0.0
+ */
+class JsonCodecTest {
+
+    @Test
+    void matchesPlainGson() {
+        SqlAnalysisResultList plan = new SqlAnalysisResultList();
+        SqlAnalysisResult row = new SqlAnalysisResult();
+        row.setTable("t");
+        row.setType("ALL");
+        plan.add(row);
+        plan.setQueryCost(12.5);
+        assertEquals(new Gson().toJson(plan), JsonCodec.toJson(plan));
+        assertEquals("null", JsonCodec.toJson(null));
+    }
+
+    @Test
+    void reflectsMutationAfterEncoding() {
+        SqlScoreResult result = new SqlScoreResult();
+        result.setScore(10);
+        result.setLevel(AnalysisLevel.OK);
+        String first = JsonCodec.toJson(result);
+
+        result.setScore(80);
+        result.setLevel(AnalysisLevel.CRIT);
+        String second = JsonCodec.toJson(result);
+
+        assertEquals(new Gson().toJson(result), second);
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    void preEncodedOutputMatchesPlainGson() {
+        SqlScoreResult result = result();
+        SqlAnalysisResultList plan = plan();
+        SqlInsightLogDto dto = dto(result, plan);
+        String expectedResult = new Gson().toJson(result);
+        String expectedPlan = new Gson().toJson(plan);
+        String expectedDto = new Gson().toJson(dto);
+
+        JsonCodec.preEncode(result);
+        JsonCodec.preEncode(plan);
+
+        assertEquals(expectedResult, result.encodedJson());
+        assertEquals(expectedResult, JsonCodec.toJson(result));
+        assertEquals(expectedPlan, JsonCodec.toJson(plan));
+        assertEquals(expectedDto, JsonCodec.toJson(dto));
+    }
+
+    @Test
+    void sinksEmbedPreEncodedJson() {
+        SqlScoreResult result = result();
+        SqlAnalysisResultList plan = plan();
+        SqlInsightLogDto dto = dto(result, plan);
+        // 以标记值代替预编码结果：输出中出现标记说明直接嵌入、未重复编码
+        result.encodedJson("{\"r\":1}");
+        ((PreEncodedJson) plan.getResults()).encodedJson("[\"rows\"]");
+
+        assertEquals("{\"r\":1}", JsonCodec.toJson(result));
+        assertEquals("{\"results\":[\"rows\"],\"queryCost\":12.5}", JsonCodec.toJson(plan));
+        String json = JsonCodec.toJson(dto);
+        assertTrue(json.contains("\"explainRows\":[\"rows\"]"));
+        assertTrue(json.contains("\"scoreResult\":{\"r\":1}"));
+    }
+
+    @Test
+    void mutationClearsPreEncodedJson() {
+        SqlScoreResult result = result();
+        SqlAnalysisResultList plan = plan();
+        JsonCodec.preEncode(result);
+        JsonCodec.preEncode(plan);
+
+        result.setScore(80);
+        plan.add(new SqlAnalysisResult());
+
+        assertNull(result.encodedJson());
+        assertNull(((PreEncodedJson) plan.getResults()).encodedJson());
+        assertEquals(new Gson().toJson(result), JsonCodec.toJson(result));
+        assertEquals(new Gson().toJson(plan), JsonCodec.toJson(plan));
+    }
+
+    private static SqlScoreResult result() {
+        SqlScoreResult result = new SqlScoreResult();
+        result.setScore(10);
+        result.setLevel(AnalysisLevel.WARN);
+        return result;
+    }
+
+    private static SqlAnalysisResultList plan() {
+        SqlAnalysisResultList plan = new SqlAnalysisResultList();
+        SqlAnalysisResult row = new SqlAnalysisResult();
+        row.setTable("t");
+        row.setType("ALL");
+        plan.add(row);
+        plan.setQueryCost(12.5);
+        return plan;
+    }
+
+    private static SqlInsightLogDto dto(SqlScoreResult result, SqlAnalysisResultList plan) {
+        SqlInsightLogDto dto = new SqlInsightLogDto();
+        dto.sqlId = "m.q";
+        dto.explainRows = plan.getResults();
+        dto.queryCost = plan.getQueryCost();
+        dto.scoreResult = result;
+        return dto;
+    }
+}
@@ -36,9 +36,6 @@ import org.springframework.context.annotation.Configuration;
 
 import javax.sql.DataSource;
 import java.util.concurrent.Executor;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 import com.linyi.sql.insight.out.LogOutService;
 import com.linyi.sql.insight.out.MqOutService;
 import com.linyi.sql.insight.out.HttpOutService;
@@ -47,7 +44,14 @@ import com.linyi.sql.insight.out.SqlScoreResultOutService;
 import com.linyi.sql.insight.score.DefaultScoreService;
 import com.linyi.sql.insight.score.ScoreService;
 import com.linyi.sql.insight.core.MetricsRecorder;
+import com.linyi.sql.insight.core.CompositeSqlRewriteStrategy;
+import com.linyi.sql.insight.core.SqlRewriteStrategy;
+import com.linyi.sql.insight.core.SqlInsightExecutors;
+import com.linyi.sql.insight.core.LatencyHistogramRegistry;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import io.micrometer.core.instrument.MeterRegistry;
 import com.linyi.sql.insight.starter.ui.InMemoryAnalysisStore;
 import com.linyi.sql.insight.starter.ui.SqlAnalyzerController;
@@ -68,7 +72,9 @@ import com.linyi.sql.insight.rule.HttpRuleLoader;
 @AutoConfigureAfter(DataSourceAutoConfiguration.class)
 public class SqlAnalysisAutoConfiguration {
 
-    @Bean
+    private static final Logger log = LoggerFactory.getLogger(SqlAnalysisAutoConfiguration.class);
+
+    @Bean(destroyMethod = "shutdown")
     @ConditionalOnMissingBean
     @ConditionalOnProperty(prefix = "sql.analysis", name = "enabled", havingValue = "true", matchIfMissing = true)
     public Interceptor sqlAnalysisInterceptor(SqlAnalysisProperties coreProps, SqlScoreResultOutService outService,
@@ -76,7 +82,10 @@ public class SqlAnalysisAutoConfiguration {
             ObjectProvider<InMemoryAnalysisStore> storeProvider,
             ObjectProvider<SseHub> sseHubProvider,
             com.linyi.sql.insight.starter.SqlAnalysisProperties props,
-            ScoreService scoreService) {
+            ScoreService scoreService,
+            @Qualifier("sqlInsightAnalysisDataSource") ObjectProvider<DataSource> analysisDataSourceProvider,
+            ObjectProvider<DataSource> dataSourceProvider,
+            ObjectProvider<SqlRewriteStrategy> rewriteStrategyProvider) {
         SqlAnalysisInterceptor interceptor = new SqlAnalysisInterceptor(coreProps);
         InMemoryAnalysisStore store = storeProvider.getIfAvailable();
         SseHub sseHub = sseHubProvider.getIfAvailable();
@@ -94,10 +103,28 @@ public class SqlAnalysisAutoConfiguration {
         if (registry != null) {
             interceptor.setMetricsRecorder(new MetricsRecorder(registry));
         }
-        // SQL 重写策略（可选）
-        if (coreProps.isRewriteEnabled() && coreProps.getRewriteMaxLimit() > 0) {
-            interceptor.setSqlRewriteStrategy(
-                    new com.linyi.sql.insight.core.LimitCapSqlRewriteStrategy(coreProps.getRewriteMaxLimit()));
+        // SQL 重写策略（可选）：容器中的 SqlRewriteStrategy Bean 按顺序组成链，LIMIT 上限策略位于链尾
+        if (coreProps.isRewriteEnabled()) {
+            java.util.List<SqlRewriteStrategy> strategies = new java.util.ArrayList<>();
+            rewriteStrategyProvider.orderedStream().forEach(strategies::add);
+            if (coreProps.getRewriteMaxLimit() > 0) {
+                strategies.add(new com.linyi.sql.insight.core.LimitCapSqlRewriteStrategy(coreProps.getRewriteMaxLimit()));
+            }
+            interceptor.setSqlRewriteStrategy(CompositeSqlRewriteStrategy.of(strategies));
+        }
+        // 异步分析（可选）：优先使用名为 sqlInsightAnalysisDataSource 的独立数据源
+        if (coreProps.isAsyncAnalysisEnabled()) {
+            DataSource analysisDataSource = analysisDataSourceProvider.getIfAvailable();
+            if (analysisDataSource == null) {
+                analysisDataSource = dataSourceProvider.getIfUnique();
+                log.warn("[SqlInsight] bean 'sqlInsightAnalysisDataSource' not found, async analysis falls back to "
+                        + "the application DataSource");
+            }
+            if (analysisDataSource != null) {
+                interceptor.enableAsyncAnalysis(analysisDataSource);
+            } else {
+                log.warn("[SqlInsight] no DataSource available for async analysis, keep analyzing synchronously");
+            }
         }
         return interceptor;
     }
@@ -112,6 +139,28 @@ public class SqlAnalysisAutoConfiguration {
         core.setSamplingRate(mappedProps.getSamplingRate());
         core.setOnlyCheckOnce(mappedProps.isOnlyCheckOnce());
         core.setCheckIntervalMs(mappedProps.getCheckIntervalMs());
+        core.setDedupMaxEntries(mappedProps.getDedupMaxEntries());
+        core.setExplainBudgetPerSecond(mappedProps.getExplainBudgetPerSecond());
+        core.setExplainBudgetPerSqlIdPerSecond(mappedProps.getExplainBudgetPerSqlIdPerSecond());
+        core.setMaxConcurrentAnalyses(mappedProps.getMaxConcurrentAnalyses());
+        core.setSamplingMode(mappedProps.getSamplingMode());
+        core.setTargetOverheadPercent(mappedProps.getTargetOverheadPercent());
+        core.setSlowThresholdMs(mappedProps.getSlowThresholdMs());
+        core.setSensitiveColumns(mappedProps.getSensitiveColumns());
+        core.setFullLogEnabled(mappedProps.isFullLogEnabled());
+        core.setFullLogSamplingRate(mappedProps.getFullLogSamplingRate());
+        core.setFullLogMaxChars(mappedProps.getFullLogMaxChars());
+        core.setFullLogBufferSize(mappedProps.getFullLogBufferSize());
+        core.setFullLogMinLevel(mappedProps.getFullLogMinLevel());
+        core.setAsyncQueueCapacity(mappedProps.getAsyncQueueCapacity());
+        core.setAsyncOverflowPolicy(mappedProps.getAsyncOverflowPolicy());
+        core.setExecutorMode(mappedProps.getExecutorMode());
+        core.setMisestimateThreshold(mappedProps.getMisestimateThreshold());
+        core.setLatencyHistogramEnabled(mappedProps.isLatencyHistogramEnabled());
+        core.setLatencyHistogramMaxKeys(mappedProps.getLatencyHistogramMaxKeys());
+        core.setExplainMode(mappedProps.getExplainMode());
+        core.setExplainAnalyzeSamplingRate(mappedProps.getExplainAnalyzeSamplingRate());
+        core.setExplainAnalyzeTimeoutMs(mappedProps.getExplainAnalyzeTimeoutMs());
         core.setAsyncEnabled(mappedProps.isAsyncEnabled());
         core.setAsyncPoolSize(mappedProps.getAsyncPoolSize());
         core.setAllowSqlTypes(mappedProps.getAllowSqlTypes());
@@ -120,6 +169,12 @@ public class SqlAnalysisAutoConfiguration {
         core.setBlacklistSqlIdContains(mappedProps.getBlacklistSqlIdContains());
         core.setRewriteEnabled(mappedProps.isRewriteEnabled());
         core.setRewriteMaxLimit(mappedProps.getRewriteMaxLimit());
+        core.setAsyncAnalysisEnabled(mappedProps.isAsyncAnalysisEnabled());
+        core.setAnalysisQueueCapacity(mappedProps.getAnalysisQueueCapacity());
+        core.setAnalysisWorkerThreads(mappedProps.getAnalysisWorkerThreads());
+        core.setPlanCacheEnabled(mappedProps.isPlanCacheEnabled());
+        core.setPlanCacheMaxSize(mappedProps.getPlanCacheMaxSize());
+        core.setPlanCacheTtlMs(mappedProps.getPlanCacheTtlMs());
         return core;
     }
 
@@ -149,8 +204,7 @@ public class SqlAnalysisAutoConfiguration {
     @Bean
     @ConditionalOnMissingBean(name = "sqlInsightExecutor")
     public Executor sqlInsightExecutor(SqlAnalysisProperties coreProps) {
-        int n = Math.max(1, coreProps.getAsyncPoolSize());
-        return new ThreadPoolExecutor(n, n, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(1000));
+        return SqlInsightExecutors.newExecutor(coreProps.getExecutorMode(), coreProps.getAsyncPoolSize(), 1000);
     }
 
     @Bean
@@ -187,6 +241,18 @@ public class SqlAnalysisAutoConfiguration {
         return new SqlAnalyzerController.RecentApi(store, sseHub());
     }
 
+    @Bean
+    @ConditionalOnProperty(prefix = "sql.analysis", name = "ui-enabled", havingValue = "true")
+    public SqlAnalyzerController.LatencyApi sqlAnalyzerLatencyApi(ObjectProvider<Interceptor> interceptorProvider) {
+        // 容器中可能还有其他 MyBatis 插件，取 SqlAnalysisInterceptor 的直方图
+        LatencyHistogramRegistry histograms = interceptorProvider.stream()
+                .filter(i -> i instanceof SqlAnalysisInterceptor)
+                .map(i -> ((SqlAnalysisInterceptor) i).getLatencyHistograms())
+                .filter(java.util.Objects::nonNull)
+                .findFirst().orElse(null);
+        return new SqlAnalyzerController.LatencyApi(histograms);
+    }
+
     @Bean
     @ConditionalOnProperty(prefix = "sql.analysis", name = "ui-enabled", havingValue = "true")
     public SseHub sseHub() {
@@ -30,15 +30,18 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.stream.Collectors;
+import com.linyi.sql.insight.core.LatencyHistogramRegistry;
 import com.linyi.sql.insight.model.SqlInsightLogDto;
 
 /**
  * 简易 UI 控制器：
  * - /sql-analyzer Thymeleaf 页面（支持 level/sqlId 过滤 + 分页）
  * - /sql-analyzer/recent JSON 数据（保留）
+ * - /sql-analyzer/latency 按指纹的执行耗时分位 JSON
  * 
  * @author linyi
  * @since 1.0.0
@@ -118,4 +121,23 @@ public class SqlAnalyzerController {
             return sseHub.register();
         }
     }
+
+    @RestController
+    @RequestMapping("/sql-analyzer")
+    public static class LatencyApi {
+        private final LatencyHistogramRegistry histograms;
+
+        public LatencyApi(LatencyHistogramRegistry histograms) {
+            this.histograms = histograms;
+        }
+
+        /**
+         * 各指纹 + sqlId 的真实执行耗时分位（毫秒），按 p99 降序
+         */
+        @GetMapping("/latency")
+        public List<LatencyHistogramRegistry.Summary> latency(
+                @RequestParam(name = "limit", required = false, defaultValue = "100") int limit) {
+            return histograms == null ? Collections.emptyList() : histograms.summaries(limit);
+        }
+    }
 }